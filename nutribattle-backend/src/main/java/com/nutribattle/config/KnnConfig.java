@@ -0,0 +1,46 @@
+// File: src/main/java/com/nutribattle/config/KnnConfig.java
+
+package com.nutribattle.config;
+
+import com.nutribattle.service.DistanceKernel;
+import com.nutribattle.service.ScalarDistanceKernel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the KNN recommendation engines
+ */
+@Configuration
+@Slf4j
+public class KnnConfig {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL_CLASS = "com.nutribattle.service.VectorApiDistanceKernel";
+
+    /**
+     * Pick the distance kernel once at startup: the SIMD kernel when enabled
+     * (app.knn.simd.enabled) and the JVM runs with --add-modules jdk.incubator.vector,
+     * otherwise the scalar kernel.
+     */
+    @Bean
+    public DistanceKernel distanceKernel(@Value("${app.knn.simd.enabled:true}") boolean simdEnabled) {
+        if (simdEnabled) {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+                try {
+                    DistanceKernel kernel = (DistanceKernel) Class.forName(VECTOR_KERNEL_CLASS)
+                            .getDeclaredConstructor().newInstance();
+                    log.info("Using {} distance kernel", kernel.name());
+                    return kernel;
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    log.warn("Vector API kernel could not be loaded, falling back to scalar", e);
+                }
+            } else {
+                log.info("Module {} not available (start the JVM with --add-modules {}), using scalar distance kernel",
+                        VECTOR_MODULE, VECTOR_MODULE);
+            }
+        }
+        return new ScalarDistanceKernel();
+    }
+}
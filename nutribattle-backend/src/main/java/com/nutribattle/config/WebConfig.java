@@ -1,29 +1,44 @@
 package com.nutribattle.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Web configuration for CORS and static resources
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     
+    @Value("${app.images.directory:}")
+    private String imageDirectory;
+    
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:3000")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Next-After") // Cursor of paged food listings
                 .allowCredentials(true);
     }
     
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serve images from the food-images directory
-        registry.addResourceHandler("/images/foods/**")
-                .addResourceLocations("file:C:/Nutribattle/nutribattle-backend/src/main/resources/static/images/foods/");
+        // Serve images from the food-images directory, falling back to the ones packaged in the jar
+        Path directory = imageDirectory.isBlank() ? null : Paths.get(imageDirectory);
+        if (directory != null && Files.isDirectory(directory)) {
+            registry.addResourceHandler("/images/foods/**")
+                    .addResourceLocations(directory.toUri().toString(), "classpath:/static/images/foods/");
+        } else {
+            registry.addResourceHandler("/images/foods/**")
+                    .addResourceLocations("classpath:/static/images/foods/");
+        }
     }
 }
\ No newline at end of file
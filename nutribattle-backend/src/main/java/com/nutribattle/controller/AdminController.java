@@ -2,11 +2,16 @@ package com.nutribattle.controller;
 
 import com.nutribattle.dto.ApiResponse;
 import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FruitVegKeyword;
 import com.nutribattle.entity.User;
+import com.nutribattle.event.FoodCatalogChangedEvent;
 import com.nutribattle.repository.FoodRepository;
 import com.nutribattle.repository.UserRepository;
+import com.nutribattle.service.CoOccurrenceService;
+import com.nutribattle.service.FruitVegKeywordService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -28,6 +33,9 @@ public class AdminController {
     
     private final UserRepository userRepository;
     private final FoodRepository foodRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CoOccurrenceService coOccurrenceService;
+    private final FruitVegKeywordService fruitVegKeywordService;
     
     // ========== USER MANAGEMENT ==========
     
@@ -86,6 +94,8 @@ public class AdminController {
     public ResponseEntity<Food> addFood(@Valid @RequestBody Food food) {
         food.setId(null); // Ensure new food
         Food saved = foodRepository.save(food);
+        eventPublisher.publishEvent(new FoodCatalogChangedEvent(this, saved.getId(),
+                FoodCatalogChangedEvent.ChangeType.CREATED));
         return ResponseEntity.ok(saved);
     }
     
@@ -119,8 +129,12 @@ public class AdminController {
         food.setIron(foodUpdate.getIron());
         food.setImageUrl(foodUpdate.getImageUrl());
         food.setDescription(foodUpdate.getDescription());
+        food.setMinPortionGrams(foodUpdate.getMinPortionGrams());
+        food.setMaxPortionGrams(foodUpdate.getMaxPortionGrams());
         
         Food updated = foodRepository.save(food);
+        eventPublisher.publishEvent(new FoodCatalogChangedEvent(this, id,
+                FoodCatalogChangedEvent.ChangeType.UPDATED));
         return ResponseEntity.ok(updated);
     }
     
@@ -135,9 +149,46 @@ public class AdminController {
         }
         
         foodRepository.deleteById(id);
+        eventPublisher.publishEvent(new FoodCatalogChangedEvent(this, id,
+                FoodCatalogChangedEvent.ChangeType.DELETED));
         return ResponseEntity.ok(new ApiResponse(true, "Food deleted successfully"));
     }
     
+    /**
+     * List the keywords behind the Nutri-Score fruit/vegetable/nut estimate
+     * GET /api/admin/nutriscore/keywords
+     */
+    @GetMapping("/nutriscore/keywords")
+    public ResponseEntity<List<FruitVegKeyword>> getNutriScoreKeywords() {
+        return ResponseEntity.ok(fruitVegKeywordService.getKeywords());
+    }
+    
+    /**
+     * Add a keyword and re-score the foods it matches
+     * POST /api/admin/nutriscore/keywords
+     */
+    @PostMapping("/nutriscore/keywords")
+    public ResponseEntity<ApiResponse> addNutriScoreKeyword(@RequestBody FruitVegKeyword keyword) {
+        try {
+            int rescored = fruitVegKeywordService.addKeyword(
+                    keyword.getKeyword(), keyword.getField(), keyword.getKeywordClass());
+            return ResponseEntity.ok(new ApiResponse(true,
+                    "Keyword added, " + rescored + " foods re-scored"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+    
+    /**
+     * Recount food co-occurrence from the whole intake history
+     * POST /api/admin/co-occurrence/rebuild
+     */
+    @PostMapping("/co-occurrence/rebuild")
+    public ResponseEntity<ApiResponse> rebuildCoOccurrence() {
+        coOccurrenceService.rebuild();
+        return ResponseEntity.ok(new ApiResponse(true, "Co-occurrence rebuilt"));
+    }
+    
     // ========== STATISTICS ==========
     
     /**
@@ -1,10 +1,13 @@
 package com.nutribattle.controller;
 
 import com.nutribattle.dto.CalorieKnnRecommendation;
+import com.nutribattle.dto.MealOptimizationResult;
 import com.nutribattle.entity.User;
 import com.nutribattle.repository.UserRepository;
 import com.nutribattle.service.CalorieKnnService;
+import com.nutribattle.service.MealOptimizerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,15 +23,38 @@ import java.util.Optional;
 public class CalorieKnnController {
 
     private final CalorieKnnService knnService;
+    private final MealOptimizerService mealOptimizerService;
     private final UserRepository userRepository;
 
     @GetMapping("/recommend")
     public CalorieKnnRecommendation recommend(@RequestParam String mealType) {
+        return knnService.getCalorieBasedRecommendations(currentUser(), mealType);
+    }
+
+    /**
+     * Combinations of 2-4 foods with gram quantities that hit the meal's calorie target
+     * and the user's macro split
+     * GET /api/knn/optimize?mealType=LUNCH&minFoods=2&maxFoods=4&solutions=5&timeBudgetMs=200
+     */
+    @GetMapping("/optimize")
+    public ResponseEntity<MealOptimizationResult> optimize(
+            @RequestParam String mealType,
+            @RequestParam(defaultValue = "2") int minFoods,
+            @RequestParam(defaultValue = "4") int maxFoods,
+            @RequestParam(defaultValue = "5") int solutions,
+            @RequestParam(required = false) Long timeBudgetMs) {
+        try {
+            return ResponseEntity.ok(mealOptimizerService.optimize(currentUser(), mealType,
+                    minFoods, maxFoods, solutions, timeBudgetMs));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private User currentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        User currentUser = userRepository.findByUsername(username)
+        return userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return knnService.getCalorieBasedRecommendations(currentUser, mealType);
     }
 }
\ No newline at end of file
@@ -1,12 +1,24 @@
 package com.nutribattle.controller;
 
+import com.nutribattle.dto.FoodSuggestion;
+import com.nutribattle.dto.FoodView;
 import com.nutribattle.entity.Food;
+import com.nutribattle.service.CatalogResponseCache;
+import com.nutribattle.service.FoodJsonWriter;
+import com.nutribattle.service.FoodSearchIndex;
 import com.nutribattle.service.FoodService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * REST Controller for Food-related endpoints.
@@ -19,14 +31,64 @@ import java.util.List;
 public class FoodController {
     
     private final FoodService foodService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final FoodJsonWriter foodJsonWriter;
+    private final FoodSearchIndex foodSearchIndex;
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String NEXT_AFTER_HEADER = "X-Next-After";
     
     /**
-     * Get all foods
-     * GET /api/foods
+     * Get all foods, optionally filtered by Nutri-Score grade and sorted
+     * GET /api/foods?grade=A,B&sort=score
+     * GET /api/foods?after=120&limit=50 (pages in id order, next cursor in X-Next-After)
+     * Without parameters the body is pre-serialized, with an ETag (304 when unchanged)
      */
     @GetMapping
-    public List<Food> getAllFoods() {
-        return foodService.getAllFoods();
+    public ResponseEntity<?> getAllFoods(
+            @RequestParam(required = false) List<String> grade,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        long start = System.nanoTime();
+        boolean paged = after != null || limit != null;
+        if (grade == null && sort == null && !paged) {
+            return cachedJson(catalogResponseCache.allFoods(), ifNoneMatch, acceptEncoding);
+        }
+        try {
+            if (paged) {
+                FoodService.Page page = foodService.getFoodsPage(grade, after, pageSize(limit, sort));
+                return listing(page.getNextAfter()).body(foodJsonWriter.buffered("foods", page.getFoods(), start));
+            }
+            return ResponseEntity.ok(views(foodService.getFoods(grade, sort)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Same as above, written to the client one food at a time
+     * GET /api/foods?stream=true (accepts grade, sort, after and limit too)
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllFoods(
+            @RequestParam(required = false) List<String> grade,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        long start = System.nanoTime();
+        try {
+            if (after != null || limit != null) {
+                FoodService.Page page = foodService.getFoodsPage(grade, after, pageSize(limit, sort));
+                return listing(page.getNextAfter()).body(foodJsonWriter.stream("foods", page.getFoods(), start));
+            }
+            List<Food> foods = grade == null && sort == null ? foodService.getAllFoods() : foodService.getFoods(grade, sort);
+            return listing(null).body(foodJsonWriter.stream("foods", foods, start));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
@@ -34,53 +96,209 @@ public class FoodController {
      * GET /api/foods/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Food> getFoodById(@PathVariable Long id) {
+    public ResponseEntity<FoodView> getFoodById(@PathVariable Long id) {
         Food food = foodService.getFoodById(id);
-        return food != null ? ResponseEntity.ok(food) : ResponseEntity.notFound().build();
+        return food != null ? ResponseEntity.ok(FoodView.of(food)) : ResponseEntity.notFound().build();
     }
     
     /**
      * Get foods by type (Traditional or Modern)
      * GET /api/foods/type/{type}
+     * GET /api/foods/type/{type}?after=120&limit=50 (pages in id order, next cursor in X-Next-After)
+     * Without paging the body is pre-serialized, with an ETag (304 when unchanged)
      */
     @GetMapping("/type/{type}")
-    public List<Food> getFoodsByType(@PathVariable String type) {
-        return foodService.getFoodsByType(type);
+    public ResponseEntity<?> getFoodsByType(
+            @PathVariable String type,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+        long start = System.nanoTime();
+        if (after == null && limit == null) {
+            return cachedJson(catalogResponseCache.foodsByType(type), ifNoneMatch, acceptEncoding);
+        }
+        try {
+            FoodService.Page page = foodService.getFoodsByTypePage(type, after, pageSize(limit, null));
+            return listing(page.getNextAfter()).body(foodJsonWriter.buffered("type", page.getFoods(), start));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * GET /api/foods/type/{type}?stream=true (accepts after and limit too)
+     */
+    @GetMapping(value = "/type/{type}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamFoodsByType(
+            @PathVariable String type,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        long start = System.nanoTime();
+        try {
+            if (after != null || limit != null) {
+                FoodService.Page page = foodService.getFoodsByTypePage(type, after, pageSize(limit, null));
+                return listing(page.getNextAfter()).body(foodJsonWriter.stream("type", page.getFoods(), start));
+            }
+            return listing(null).body(foodJsonWriter.stream("type", foodService.getFoodsByType(type), start));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * Search foods by name
      * GET /api/foods/search?name=momo
+     * GET /api/foods/search?name=momo&after=120&limit=50 (pages in id order, next cursor in X-Next-After)
+     * GET /api/foods/search?name=momos&fuzzy=true&limit=20 (ranked, forgiving typos and spelling variants)
      */
     @GetMapping("/search")
-    public List<Food> searchFoods(@RequestParam String name) {
-        return foodService.searchFoods(name);
+    public ResponseEntity<?> searchFoods(
+            @RequestParam String name,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy) throws IOException {
+        long start = System.nanoTime();
+        if (fuzzy) {
+            if (after != null) {
+                return ResponseEntity.badRequest().build(); // Ranked results have no id cursor
+            }
+            int size = limit != null ? Math.max(0, Math.min(limit, FoodService.MAX_PAGE_SIZE)) : DEFAULT_PAGE_SIZE;
+            return ResponseEntity.ok(views(foodSearchIndex.search(name, size)));
+        }
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(views(foodService.searchFoods(name)));
+        }
+        try {
+            FoodService.Page page = foodService.searchFoodsPage(name, after, pageSize(limit, null));
+            return listing(page.getNextAfter()).body(foodJsonWriter.buffered("search", page.getFoods(), start));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Ranked suggestions while typing, for the food selector
+     * GET /api/foods/typeahead?q=mom&limit=8
+     */
+    @GetMapping("/typeahead")
+    public List<FoodSuggestion> typeahead(@RequestParam String q, @RequestParam(defaultValue = "8") int limit) {
+        return foodSearchIndex.typeahead(q, Math.max(0, Math.min(limit, 20))); // Cap at 20
+    }
+    
+    /**
+     * GET /api/foods/search?name=momo&stream=true (accepts after and limit too)
+     */
+    @GetMapping(value = "/search", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamSearchFoods(
+            @RequestParam String name,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        long start = System.nanoTime();
+        try {
+            if (after != null || limit != null) {
+                FoodService.Page page = foodService.searchFoodsPage(name, after, pageSize(limit, null));
+                return listing(page.getNextAfter()).body(foodJsonWriter.stream("search", page.getFoods(), start));
+            }
+            return listing(null).body(foodJsonWriter.stream("search", foodService.searchFoods(name), start));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * Get all food categories
      * GET /api/foods/categories
+     * Pre-serialized, with an ETag (304 when unchanged)
      */
     @GetMapping("/categories")
-    public List<String> getCategories() {
-        return foodService.getAllCategories();
+    public ResponseEntity<byte[]> getCategories(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return cachedJson(catalogResponseCache.categories(), ifNoneMatch, acceptEncoding);
     }
     
     /**
      * Get random foods for homepage with limit of 60
      * GET /api/foods/random?limit=60
+     * GET /api/foods/random?limit=60&seed=42&page=2 (stable order per seed, for infinite scroll)
      */
     @GetMapping("/random")
-    public List<Food> getRandomFoods(@RequestParam(defaultValue = "60") int limit) {
-        return foodService.getRandomFoods(Math.min(limit, 60)); // Cap at 60
+    public ResponseEntity<?> getRandomFoods(
+            @RequestParam(defaultValue = "60") int limit,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(defaultValue = "0") int page) {
+        int capped = Math.max(0, Math.min(limit, 60)); // Cap at 60
+        if (seed == null) {
+            return ResponseEntity.ok(views(foodService.getRandomFoods(capped)));
+        }
+        try {
+            return ResponseEntity.ok(views(foodService.getRandomFoods(capped, seed, page)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * Get limited foods for homepage display
      * GET /api/foods/homepage
+     * One of a few pre-serialized random selections, with an ETag
      */
     @GetMapping("/homepage")
-    public List<Food> getHomepageFoods() {
-        return foodService.getHomepageFoods(60); // Fixed 60 foods for homepage
+    public ResponseEntity<byte[]> getHomepageFoods(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return cachedJson(catalogResponseCache.homepage(60), ifNoneMatch, acceptEncoding); // Fixed 60 foods for homepage
+    }
+    
+    /**
+     * Serve a pre-serialized body: 304 if the browser already holds it,
+     * otherwise the gzip bytes when accepted and the plain bytes if not
+     */
+    private static ResponseEntity<byte[]> cachedJson(CatalogResponseCache.CachedResponse response,
+                                                     String ifNoneMatch, String acceptEncoding) {
+        // Browsers must revalidate, which costs them a 304 while the catalog is unchanged
+        CacheControl cacheControl = CacheControl.noCache();
+        boolean gzip = CatalogResponseCache.acceptsGzip(acceptEncoding);
+        if (response.matches(ifNoneMatch, gzip)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.getEtag(gzip))
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(response.getEtag(gzip))
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        byte[] body = gzip ? response.getGzip() : response.getIdentity();
+        return builder.contentLength(body.length).body(body);
+    }
+    
+    /**
+     * Pages follow id order, so they cannot be combined with another sort
+     */
+    private static int pageSize(Integer limit, String sort) {
+        if (sort != null) {
+            throw new IllegalArgumentException("Pages follow id order and cannot be sorted");
+        }
+        return limit != null ? limit : DEFAULT_PAGE_SIZE;
+    }
+    
+    private static ResponseEntity.BodyBuilder listing(Long nextAfter) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (nextAfter != null) {
+            builder.header(NEXT_AFTER_HEADER, nextAfter.toString());
+        }
+        return builder;
+    }
+    
+    private static List<FoodView> views(List<Food> foods) {
+        return foods.stream().map(FoodView::of).collect(Collectors.toList());
     }
 }
\ No newline at end of file
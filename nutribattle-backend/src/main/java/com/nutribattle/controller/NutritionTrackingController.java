@@ -3,9 +3,13 @@
 package com.nutribattle.controller;
 
 import com.nutribattle.dto.*;
+import com.nutribattle.entity.FoodIntake;
 import com.nutribattle.entity.User;
 import com.nutribattle.service.CalorieKnnService;
+import com.nutribattle.service.MealPlanService;
+import com.nutribattle.service.MealRecommendationService;
 import com.nutribattle.service.NutritionTrackingService;
+import com.nutribattle.service.TasteProfileService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -23,6 +27,9 @@ public class NutritionTrackingController {
     
     private final NutritionTrackingService nutritionTrackingService;
     private final CalorieKnnService calorieKnnService;
+    private final MealRecommendationService mealRecommendationService;
+    private final MealPlanService mealPlanService;
+    private final TasteProfileService tasteProfileService;
     
     /**
      * Set nutrition goals
@@ -60,6 +67,73 @@ public class NutritionTrackingController {
         return ResponseEntity.ok(recommendations);
     }
     
+    /**
+     * Get alternatives to a logged meal as a whole
+     * GET /api/nutrition/recommendations/meal?mealType=LUNCH&date=2024-01-15&k=5
+     */
+    @GetMapping("/recommendations/meal")
+    public ResponseEntity<MealRecommendationResult> getMealRecommendations(
+            @AuthenticationPrincipal User user,
+            @RequestParam FoodIntake.MealType mealType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(defaultValue = "true") boolean includeCombinations) {
+        
+        if (k < 1 || k > 10) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (date == null) {
+            date = LocalDate.now();
+        }
+        
+        try {
+            MealRecommendationResult result = mealRecommendationService.getMealAlternatives(
+                user, date, mealType, k, includeCombinations);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Get foods matching what the user usually eats for a meal, nudged towards their goal
+     * GET /api/nutrition/recommendations/personal?mealType=LUNCH&k=5
+     */
+    @GetMapping("/recommendations/personal")
+    public ResponseEntity<PersonalRecommendationResult> getPersonalRecommendations(
+            @AuthenticationPrincipal User user,
+            @RequestParam FoodIntake.MealType mealType,
+            @RequestParam(defaultValue = "5") int k) {
+        
+        if (k < 1 || k > 20) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(tasteProfileService.recommend(user, mealType, k));
+    }
+    
+    /**
+     * Plan breakfast, lunch, dinner and snack for 1-7 days
+     * GET /api/nutrition/plan?days=7&maxRepeats=2&startDate=2024-01-15
+     */
+    @GetMapping("/plan")
+    public ResponseEntity<MealPlan> getMealPlan(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "2") int maxRepeats,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate) {
+        
+        if (startDate == null) {
+            startDate = LocalDate.now();
+        }
+        
+        try {
+            return ResponseEntity.ok(mealPlanService.generatePlan(user, startDate, days, maxRepeats));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     // Existing endpoints...
     @PostMapping("/intake")
     public ResponseEntity<FoodIntakeResponse> addFoodIntake(
@@ -1,8 +1,17 @@
 // RecommendationController.java
 package com.nutribattle.controller;
 
+import com.nutribattle.dto.BatchRecommendationRequest;
+import com.nutribattle.dto.BatchRecommendationResult;
+import com.nutribattle.dto.CoConsumedFood;
 import com.nutribattle.dto.FoodRecommendation;
+import com.nutribattle.dto.MealRecommendationRequest;
+import com.nutribattle.dto.MealRecommendationResult;
+import com.nutribattle.dto.RecommendationConstraints;
+import com.nutribattle.service.CoOccurrenceService;
 import com.nutribattle.service.KnnRecommendationService;
+import com.nutribattle.service.MealRecommendationService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,40 +27,126 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:3000")
 public class RecommendationController {
     
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int DEFAULT_K = 5; // When a request body leaves k out or sends null
+    
     private final KnnRecommendationService knnRecommendationService;
+    private final MealRecommendationService mealRecommendationService;
+    private final CoOccurrenceService coOccurrenceService;
     
     /**
      * Get healthier alternatives for a food using KNN with category mode
-     * GET /api/recommendations/{foodId}?k=5&mode=MIXED
+     * GET /api/recommendations/{foodId}?k=5&mode=MIXED&engine=EXACT&maxSugar=10&minGrade=B
      * 
      * @param foodId The food to get recommendations for
      * @param k Number of recommendations (default 5)
      * @param mode Recommendation mode: SAME_CATEGORY, OPPOSITE_CATEGORY, or MIXED (default MIXED)
+     * @param engine Search engine: EXACT or HNSW (default from app.knn.engine)
+     * @param efSearch HNSW candidate list size, trades latency for recall (optional)
+     * @param constraints Optional limits: maxCalories, maxFat, maxSaturatedFat, maxCarbs,
+     *                    maxSugar, maxSodium, minProtein, minFiber (per 100g), minGrade (A-E)
      */
     @GetMapping("/{foodId}")
     public ResponseEntity<List<FoodRecommendation>> getRecommendations(
             @PathVariable Long foodId,
             @RequestParam(defaultValue = "5") int k,
-            @RequestParam(defaultValue = "MIXED") String mode) {
+            @RequestParam(defaultValue = "MIXED") String mode,
+            @RequestParam(required = false) String engine,
+            @RequestParam(required = false) Integer efSearch,
+            RecommendationConstraints constraints) {
         
         if (k < 1 || k > 10) {
             return ResponseEntity.badRequest().build();
         }
+        if (efSearch != null && (efSearch < 1 || efSearch > 1000)) {
+            return ResponseEntity.badRequest().build();
+        }
         
-        // Validate mode
-        KnnRecommendationService.RecommendationMode recMode;
+        // Validate mode (falls back to MIXED)
+        KnnRecommendationService.RecommendationMode recMode = knnRecommendationService.parseMode(mode);
+        
+        KnnRecommendationService.SearchEngine searchEngine;
         try {
-            recMode = KnnRecommendationService.RecommendationMode.valueOf(mode.toUpperCase());
+            searchEngine = knnRecommendationService.resolveEngine(engine);
         } catch (IllegalArgumentException e) {
-            recMode = KnnRecommendationService.RecommendationMode.MIXED;
+            return ResponseEntity.badRequest().build(); // Unknown engine name
         }
         
         try {
             List<FoodRecommendation> recommendations = 
-                knnRecommendationService.getHealthierAlternatives(foodId, k, recMode);
+                knnRecommendationService.getHealthierAlternatives(foodId, k, recMode,
+                    searchEngine, efSearch, constraints);
             return ResponseEntity.ok(recommendations);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Get alternatives for many source foods in one request
+     * POST /api/recommendations/batch
+     * Body: [{"foodId": 1, "k": 5, "mode": "MIXED"}, ...]
+     * 
+     * Replaces one /api/recommendations/{foodId} call per logged food
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchRecommendationResult>> getBatchRecommendations(
+            @RequestBody List<BatchRecommendationRequest> requests) {
+        
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (BatchRecommendationRequest request : requests) {
+            // A null k means the default, as in getBatchAlternatives
+            if (request.getFoodId() == null || (request.getK() != null && (request.getK() < 1 || request.getK() > 10))) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        return ResponseEntity.ok(knnRecommendationService.getBatchAlternatives(requests));
+    }
+    
+    /**
+     * Get single foods or two-food combinations that replace a whole meal
+     * POST /api/recommendations/meal
+     * Body: {"items": [{"foodId": 1, "grams": 150}, {"foodId": 7, "grams": 80}], "k": 5}
+     * 
+     * The meal is searched as one quantity-weighted nutrient profile
+     */
+    @PostMapping("/meal")
+    public ResponseEntity<MealRecommendationResult> getMealRecommendations(
+            @Valid @RequestBody MealRecommendationRequest request) {
+        
+        int k = request.getK() != null ? request.getK() : DEFAULT_K;
+        try {
+            MealRecommendationResult result = mealRecommendationService.getMealAlternatives(
+                request.getItems(), k, !Boolean.FALSE.equals(request.getIncludeCombinations()));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * People who eat this also eat
+     * GET /api/recommendations/{foodId}/also-eaten?scope=MEAL&k=5
+     * 
+     * @param scope MEAL (logged in the same meal) or DAY (logged on the same day)
+     */
+    @GetMapping("/{foodId}/also-eaten")
+    public ResponseEntity<List<CoConsumedFood>> getAlsoEaten(
+            @PathVariable Long foodId,
+            @RequestParam(defaultValue = "MEAL") CoOccurrenceService.Scope scope,
+            @RequestParam(defaultValue = "5") int k) {
+        
+        if (k < 1 || k > 50) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            return ResponseEntity.ok(coOccurrenceService.alsoEaten(foodId, scope, k));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+// File: src/main/java/com/nutribattle/dto/BatchRecommendationRequest.java
+
+package com.nutribattle.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * One entry of a batch recommendation request
+ */
+@Data
+public class BatchRecommendationRequest {
+    
+    @NotNull(message = "Food ID is required")
+    private Long foodId;
+    
+    @Min(value = 1, message = "k must be at least 1")
+    @Max(value = 10, message = "k must be at most 10")
+    private Integer k = 5; // Null also means 5
+    
+    private String mode = "MIXED"; // SAME_CATEGORY, OPPOSITE_CATEGORY or MIXED
+}
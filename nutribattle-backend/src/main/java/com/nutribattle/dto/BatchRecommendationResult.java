@@ -0,0 +1,19 @@
+// File: src/main/java/com/nutribattle/dto/BatchRecommendationResult.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recommendations for one entry of a batch request, in request order
+ */
+@Data
+public class BatchRecommendationResult {
+    private Long foodId;
+    private String mode;
+    private List<FoodRecommendation> recommendations = new ArrayList<>();
+    private String error; // Set when this entry could not be served (e.g. food not found)
+}
@@ -0,0 +1,17 @@
+// File: src/main/java/com/nutribattle/dto/CoConsumedFood.java
+
+package com.nutribattle.dto;
+
+import com.nutribattle.entity.Food;
+import lombok.Data;
+
+/**
+ * A food that people log together with another food
+ */
+@Data
+public class CoConsumedFood {
+    private Food food;
+    private Integer togetherCount; // Meals (or days) holding both foods
+    private Double confidence; // Share of the source food's meals (or days) that also hold this food
+    private Double score; // Cosine similarity of the two foods' basket sets, 0-1
+}
@@ -25,6 +25,10 @@ public class DailyNutritionSummary {
     private Double totalSugar = 0.0;
     private Double totalSodium = 0.0;
     
+    // Nutri-Score of the combined intakes (null when nothing is logged)
+    private String nutriScore;
+    private Integer nutriScoreValue;
+    
     // Percentages
     private Double caloriePercentage;
     private Double proteinPercentage;
@@ -0,0 +1,20 @@
+// File: src/main/java/com/nutribattle/dto/FoodSuggestion.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+/**
+ * One typeahead entry: just enough of the food to show it in a dropdown
+ */
+@Data
+public class FoodSuggestion {
+    private Long id;
+    private String name;
+    private String category;
+    private String type;
+    private String imageUrl;
+    private String nutriScore;
+    private Double score; // Relevance, higher first
+    private Integer edits; // Typos forgiven to match (0 for exact and prefix matches)
+}
@@ -0,0 +1,48 @@
+// File: src/main/java/com/nutribattle/dto/FoodView.java
+
+package com.nutribattle.dto;
+
+import com.nutribattle.entity.Food;
+import lombok.Value;
+
+/**
+ * Read-only food as returned by the public catalog endpoints.
+ * Same JSON fields as the Food entity, but immutable and detached from JPA.
+ */
+@Value
+public class FoodView {
+    Long id;
+    String name;
+    String category;
+    String type;  // "Traditional" or "Modern"
+    
+    // Nutritional values per 100g
+    Double calories;
+    Double protein;
+    Double fat;
+    Double saturatedFat;
+    Double carbs;
+    Double sugar;
+    Double fiber;
+    Double sodium;
+    Double vitaminA;
+    Double vitaminC;
+    Double calcium;
+    Double iron;
+    
+    String imageUrl;
+    String description;
+    Double minPortionGrams;
+    Double maxPortionGrams;
+    String nutriScore;
+    Integer nutriScoreValue;
+    
+    public static FoodView of(Food food) {
+        return new FoodView(food.getId(), food.getName(), food.getCategory(), food.getType(),
+                food.getCalories(), food.getProtein(), food.getFat(), food.getSaturatedFat(),
+                food.getCarbs(), food.getSugar(), food.getFiber(), food.getSodium(),
+                food.getVitaminA(), food.getVitaminC(), food.getCalcium(), food.getIron(),
+                food.getImageUrl(), food.getDescription(), food.getMinPortionGrams(), food.getMaxPortionGrams(),
+                food.getNutriScore(), food.getNutriScoreValue());
+    }
+}
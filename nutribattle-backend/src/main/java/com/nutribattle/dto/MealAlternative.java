@@ -0,0 +1,31 @@
+// File: src/main/java/com/nutribattle/dto/MealAlternative.java
+
+package com.nutribattle.dto;
+
+import com.nutribattle.entity.Food;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single food or a small combination of foods that replaces a whole meal
+ */
+@Data
+public class MealAlternative {
+    private List<Portion> portions;
+    private Double similarityScore; // 0-1, higher is closer to the meal's nutrient profile
+    private String reason;
+    
+    /**
+     * A food with the amount that replaces its share of the meal
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Portion {
+        private Food food;
+        private Double grams;
+    }
+}
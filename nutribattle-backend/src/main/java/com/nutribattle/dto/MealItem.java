@@ -0,0 +1,25 @@
+// File: src/main/java/com/nutribattle/dto/MealItem.java
+
+package com.nutribattle.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One food of a meal with the amount eaten
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MealItem {
+    
+    @NotNull(message = "Food ID is required")
+    private Long foodId;
+    
+    @NotNull(message = "Grams is required")
+    @Positive(message = "Grams must be positive")
+    private Double grams;
+}
@@ -0,0 +1,34 @@
+// File: src/main/java/com/nutribattle/dto/MealOptimizationResult.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Food combinations with gram quantities that hit a meal's calorie target
+ * while staying close to the user's macro split
+ */
+@Data
+public class MealOptimizationResult {
+    private Double targetCalories;
+    private Double targetProtein; // grams
+    private Double targetCarbs; // grams
+    private Double targetFat; // grams
+    private List<Combination> solutions; // Best first
+    private boolean complete; // false when the time budget ran out before the search finished
+    private Long exploredNodes;
+    private Long elapsedMs;
+
+    @Data
+    public static class Combination {
+        private List<MealAlternative.Portion> portions;
+        private Double calories;
+        private Double protein;
+        private Double carbs;
+        private Double fat;
+        private Double caloriesDifference;
+        private Double macroDeviation; // Mean relative distance from the protein/carb/fat targets
+    }
+}
@@ -0,0 +1,34 @@
+// File: src/main/java/com/nutribattle/dto/MealPlan.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One food per meal for several consecutive days, matched to the user's calorie goal
+ */
+@Data
+public class MealPlan {
+    private LocalDate startDate;
+    private Integer days;
+    private Integer maxRepeats; // Times any food may appear in the whole plan
+    private Double dailyTargetCalories;
+    private List<DayPlan> plan;
+
+    @Data
+    public static class DayPlan {
+        private LocalDate date;
+        private List<PlannedMeal> meals;
+        private Double totalCalories;
+    }
+
+    @Data
+    public static class PlannedMeal {
+        private String mealType;
+        private Double targetCalories;
+        private CalorieKnnRecommendation.FoodMatch match; // null when no food is left under the repeat limit
+    }
+}
@@ -0,0 +1,30 @@
+// File: src/main/java/com/nutribattle/dto/MealRecommendationRequest.java
+
+package com.nutribattle.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request for alternatives to a whole meal
+ */
+@Data
+public class MealRecommendationRequest {
+    
+    @NotEmpty(message = "Meal items are required")
+    @Size(max = 50, message = "A meal can have at most 50 items")
+    @Valid
+    private List<MealItem> items;
+    
+    @Min(value = 1, message = "k must be at least 1")
+    @Max(value = 10, message = "k must be at most 10")
+    private Integer k = 5; // Null also means 5
+    
+    private Boolean includeCombinations = true; // Also suggest two-food combinations
+}
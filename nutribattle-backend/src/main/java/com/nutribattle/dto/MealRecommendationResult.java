@@ -0,0 +1,18 @@
+// File: src/main/java/com/nutribattle/dto/MealRecommendationResult.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alternatives to a meal, ranked by distance to the meal's aggregate nutrient profile
+ */
+@Data
+public class MealRecommendationResult {
+    private Double totalGrams;
+    private Map<String, Double> mealProfile; // Quantity-weighted nutrients per 100g
+    private List<MealAlternative> alternatives;
+}
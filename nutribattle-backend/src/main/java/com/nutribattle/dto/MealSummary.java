@@ -12,4 +12,8 @@ public class MealSummary {
     private Double protein = 0.0;
     private Double fat = 0.0;
     private Double carbs = 0.0;
+    
+    // Nutri-Score of the combined intakes (null when nothing is logged)
+    private String nutriScore;
+    private Integer nutriScoreValue;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+// File: src/main/java/com/nutribattle/dto/PersonalRecommendationResult.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Foods close to what a user usually eats for a meal, nudged towards their goal
+ */
+@Data
+public class PersonalRecommendationResult {
+    private String mealType;
+    private String nutritionGoal;
+    private Map<String, Double> tasteProfile; // Decayed average nutrients per 100g, null without history
+    private Double profileGrams; // Decayed grams behind the profile
+    private List<FoodRecommendation> recommendations;
+}
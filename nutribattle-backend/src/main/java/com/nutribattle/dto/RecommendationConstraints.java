@@ -0,0 +1,33 @@
+// File: src/main/java/com/nutribattle/dto/RecommendationConstraints.java
+
+package com.nutribattle.dto;
+
+import lombok.Data;
+
+/**
+ * Optional hard limits a recommended food must satisfy (nutrients per 100g).
+ * Bound from query parameters, e.g. ?maxSugar=10&minGrade=B
+ */
+@Data
+public class RecommendationConstraints {
+    
+    private Double maxCalories;
+    private Double maxFat;
+    private Double maxSaturatedFat;
+    private Double maxCarbs;
+    private Double maxSugar;
+    private Double maxSodium;
+    private Double minProtein;
+    private Double minFiber;
+    
+    private String minGrade; // Worst acceptable Nutri-Score: "B" means A or B
+    
+    /**
+     * Whether no constraint is set
+     */
+    public boolean hasNone() {
+        return maxCalories == null && maxFat == null && maxSaturatedFat == null && maxCarbs == null
+                && maxSugar == null && maxSodium == null && minProtein == null && minFiber == null
+                && (minGrade == null || minGrade.isBlank());
+    }
+}
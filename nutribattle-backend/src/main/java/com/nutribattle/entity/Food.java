@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "foods")
+@EntityListeners(NutriScoreListener.class)  // Keeps the stored Nutri-Score in sync with the nutrients
 @Data  // Lombok annotation that generates getters, setters, toString, equals, hashCode
 @NoArgsConstructor  // Generates no-args constructor
 @AllArgsConstructor  // Generates all-args constructor
@@ -70,10 +71,21 @@ public class Food {
     @Column(columnDefinition = "TEXT")  // For longer text
     private String description;
     
-    // Calculated Nutri-Score (A-E)
-    @Transient  // Not stored in database, calculated at runtime
+    // Realistic serving range in grams; null falls back to the category default
+    @Column(name = "min_portion_grams")
+    private Double minPortionGrams;
+    
+    @Column(name = "max_portion_grams")
+    private Double maxPortionGrams;
+    
+    // Nutri-Score grade (A-E), calculated whenever the food is inserted or updated
+    @Column(name = "nutri_score", length = 1)
     private String nutriScore;
     
+    // Raw Nutri-Score points behind the grade (lower is better)
+    @Column(name = "nutri_score_value")
+    private Integer nutriScoreValue;
+    
     // Constructor for CSV import
     public Food(String name, String category, String type, Double calories, 
                 Double protein, Double fat, Double saturatedFat, Double carbs, 
@@ -53,6 +53,9 @@ public class FoodIntake {
     @Column(nullable = false)
     private Double fat;
     
+    @Column(name = "saturated_fat")
+    private Double saturatedFat; // Null on intakes logged before it was tracked
+    
     @Column(nullable = false)
     private Double carbs;
     
@@ -67,6 +70,10 @@ public class FoodIntake {
     
     private String notes; // Optional user notes
     
+    // Food's fruit/vegetable/nut points when the intake was counted in the meal totals
+    @Column(name = "fruit_veg_points")
+    private Integer fruitVegPoints;
+    
     /**
      * Meal types
      */
@@ -84,6 +91,7 @@ public class FoodIntake {
         this.calories = food.getCalories() * factor;
         this.protein = food.getProtein() * factor;
         this.fat = food.getFat() * factor;
+        this.saturatedFat = food.getSaturatedFat() * factor;
         this.carbs = food.getCarbs() * factor;
         this.fiber = food.getFiber() * factor;
         this.sugar = food.getSugar() * factor;
@@ -0,0 +1,63 @@
+// File: src/main/java/com/nutribattle/entity/FruitVegKeyword.java
+
+package com.nutribattle.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyword used to estimate the fruit/vegetable/nut content of a food for its Nutri-Score.
+ * Built-in keywords live in NutriScoreCalculator; rows in this table are the ones admins
+ * added at runtime.
+ */
+@Entity
+@Table(name = "fruit_veg_keywords",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"keyword", "field"}))
+@Data
+@NoArgsConstructor
+public class FruitVegKeyword {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Lowercase text searched for anywhere in the field
+    @Column(nullable = false, length = 50)
+    private String keyword;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Field field;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "keyword_class", nullable = false)
+    private KeywordClass keywordClass;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    public FruitVegKeyword(String keyword, Field field, KeywordClass keywordClass) {
+        this.keyword = keyword;
+        this.field = field;
+        this.keywordClass = keywordClass;
+    }
+    
+    /**
+     * Food text the keyword is matched against
+     */
+    public enum Field {
+        CATEGORY, NAME
+    }
+    
+    /**
+     * What a match says about the food:
+     * FRUIT_VEGETABLE and NUT_SEED give 5 points, LEGUME 3,
+     * MIXED_DISH together with VEGETABLE_INGREDIENT 2, and PICKLE 2 for traditional foods
+     */
+    public enum KeywordClass {
+        FRUIT_VEGETABLE, NUT_SEED, LEGUME, MIXED_DISH, VEGETABLE_INGREDIENT, PICKLE
+    }
+}
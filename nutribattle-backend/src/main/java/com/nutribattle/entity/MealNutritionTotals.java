@@ -0,0 +1,85 @@
+// File: src/main/java/com/nutribattle/entity/MealNutritionTotals.java
+
+package com.nutribattle.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running nutrient totals of one meal (user, date, meal type), adjusted on every
+ * intake write so that meal and day Nutri-Scores can be read without the intakes.
+ * Nutrients are absolute amounts for the whole meal, not per 100g.
+ */
+@Entity
+@Table(name = "meal_nutrition_totals",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "intake_date", "meal_type"}))
+@Data
+@NoArgsConstructor
+public class MealNutritionTotals {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Column(name = "intake_date", nullable = false)
+    private LocalDate intakeDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "meal_type", nullable = false)
+    private FoodIntake.MealType mealType;
+    
+    @Column(name = "intake_count", nullable = false)
+    private Integer intakeCount = 0;
+    
+    @Column(nullable = false)
+    private Double grams = 0.0;
+    
+    @Column(nullable = false)
+    private Double calories = 0.0;
+    
+    @Column(nullable = false)
+    private Double protein = 0.0;
+    
+    @Column(nullable = false)
+    private Double fat = 0.0;
+    
+    @Column(name = "saturated_fat", nullable = false)
+    private Double saturatedFat = 0.0;
+    
+    @Column(nullable = false)
+    private Double carbs = 0.0;
+    
+    @Column(nullable = false)
+    private Double fiber = 0.0;
+    
+    @Column(nullable = false)
+    private Double sugar = 0.0;
+    
+    @Column(nullable = false)
+    private Double sodium = 0.0;
+    
+    // Sum of grams x fruit/vegetable/nut points of each intake
+    @Column(name = "fruit_veg_point_grams", nullable = false)
+    private Double fruitVegPointGrams = 0.0;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    // Backstop against lost updates; primitive so rows from before the column read as 0
+    @Version
+    private long version;
+    
+    public MealNutritionTotals(User user, LocalDate intakeDate, FoodIntake.MealType mealType) {
+        this.user = user;
+        this.intakeDate = intakeDate;
+        this.mealType = mealType;
+    }
+}
@@ -0,0 +1,28 @@
+// File: src/main/java/com/nutribattle/entity/NutriScoreListener.java
+
+package com.nutribattle.entity;
+
+import com.nutribattle.service.NutriScoreCalculator;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JPA listener that recalculates a food's Nutri-Score grade and points
+ * right before it is written, so reads never need to score foods again.
+ * Created through Spring (Hibernate's bean container), so it shares the
+ * calculator and its admin-configured keywords.
+ */
+@RequiredArgsConstructor
+public class NutriScoreListener {
+    
+    private final NutriScoreCalculator nutriScoreCalculator;
+    
+    @PrePersist
+    @PreUpdate
+    public void updateNutriScore(Food food) {
+        // Name or category may have changed, so the cached fruit/vegetable points are stale
+        nutriScoreCalculator.invalidate(food.getId());
+        nutriScoreCalculator.applyNutriScore(food);
+    }
+}
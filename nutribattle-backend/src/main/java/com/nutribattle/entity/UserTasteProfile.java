@@ -0,0 +1,81 @@
+// File: src/main/java/com/nutribattle/entity/UserTasteProfile.java
+
+package com.nutribattle.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Exponentially decayed record of what a user eats for one meal type.
+ * Each nutrient column holds the sum of grams x nutrient per 100g over the user's
+ * intakes, every intake weighted by its age relative to referenceDate; divided by
+ * totalGrams this gives the profile's nutrients per 100g.
+ */
+@Entity
+@Table(name = "user_taste_profiles",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "meal_type"}))
+@Data
+@NoArgsConstructor
+public class UserTasteProfile {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "meal_type", nullable = false)
+    private FoodIntake.MealType mealType;
+    
+    // Newest intake date seen; weights are relative to it
+    @Column(name = "reference_date", nullable = false)
+    private LocalDate referenceDate;
+    
+    @Column(name = "total_grams", nullable = false)
+    private Double totalGrams = 0.0;
+    
+    // Decayed sums of grams x nutrient per 100g
+    @Column(nullable = false)
+    private Double calories = 0.0;
+    
+    @Column(nullable = false)
+    private Double protein = 0.0;
+    
+    @Column(nullable = false)
+    private Double fat = 0.0;
+    
+    @Column(name = "saturated_fat", nullable = false)
+    private Double saturatedFat = 0.0;
+    
+    @Column(nullable = false)
+    private Double carbs = 0.0;
+    
+    @Column(nullable = false)
+    private Double sugar = 0.0;
+    
+    @Column(nullable = false)
+    private Double fiber = 0.0;
+    
+    @Column(nullable = false)
+    private Double sodium = 0.0;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    // Backstop against lost updates; primitive so rows from before the column read as 0
+    @Version
+    private long version;
+    
+    public UserTasteProfile(User user, FoodIntake.MealType mealType, LocalDate referenceDate) {
+        this.user = user;
+        this.mealType = mealType;
+        this.referenceDate = referenceDate;
+    }
+}
@@ -0,0 +1,30 @@
+// File: src/main/java/com/nutribattle/event/FoodCatalogChangedEvent.java
+
+package com.nutribattle.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a food has been created, updated or deleted,
+ * so that in-memory indexes built from the catalog can refresh themselves.
+ */
+@Getter
+public class FoodCatalogChangedEvent extends ApplicationEvent {
+
+    /**
+     * Kind of catalog change
+     */
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Long foodId;
+    private final ChangeType changeType;
+
+    public FoodCatalogChangedEvent(Object source, Long foodId, ChangeType changeType) {
+        super(source);
+        this.foodId = foodId;
+        this.changeType = changeType;
+    }
+}
@@ -0,0 +1,22 @@
+// File: src/main/java/com/nutribattle/event/FoodCatalogRebuiltEvent.java
+
+package com.nutribattle.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after the food catalog has been reloaded as a whole (first load, keyword
+ * re-scoring, or a change not tied to one food), so that indexes built from it can
+ * rebuild right away instead of on their next query.
+ */
+@Getter
+public class FoodCatalogRebuiltEvent extends ApplicationEvent {
+
+    private final long version;
+
+    public FoodCatalogRebuiltEvent(Object source, long version) {
+        super(source);
+        this.version = version;
+    }
+}
@@ -0,0 +1,41 @@
+// File: src/main/java/com/nutribattle/event/FoodIntakeChangedEvent.java
+
+package com.nutribattle.event;
+
+import com.nutribattle.entity.FoodIntake;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+
+/**
+ * Published when a food is added to, removed from or moved between a user's meals.
+ * Identifies the affected day rather than carrying its contents: listeners run after
+ * commit, possibly late or out of order, and read the day's current intakes themselves.
+ */
+@Getter
+public class FoodIntakeChangedEvent extends ApplicationEvent {
+
+    /**
+     * Kind of intake change
+     */
+    public enum ChangeType {
+        ADDED, REMOVED, MOVED
+    }
+
+    private final Long userId;
+    private final LocalDate intakeDate;
+    private final FoodIntake.MealType mealType; // The meal the food is in after the change (before, if removed)
+    private final Long foodId;
+    private final ChangeType changeType;
+
+    public FoodIntakeChangedEvent(Object source, Long userId, LocalDate intakeDate, FoodIntake.MealType mealType,
+                                  Long foodId, ChangeType changeType) {
+        super(source);
+        this.userId = userId;
+        this.intakeDate = intakeDate;
+        this.mealType = mealType;
+        this.foodId = foodId;
+        this.changeType = changeType;
+    }
+}
@@ -19,6 +19,9 @@ public interface FoodIntakeRepository extends JpaRepository<FoodIntake, Long> {
     // Find all intakes for a user on a specific date
     List<FoodIntake> findByUserAndIntakeDate(User user, LocalDate date);
     
+    // Find all intakes of a user
+    List<FoodIntake> findByUser(User user);
+    
     // Find all intakes for a user between dates
     List<FoodIntake> findByUserAndIntakeDateBetween(User user, LocalDate startDate, LocalDate endDate);
     
@@ -47,6 +50,14 @@ public interface FoodIntakeRepository extends JpaRepository<FoodIntake, Long> {
            "ORDER BY count DESC")
     List<Object[]> getMostConsumedFoods(@Param("user") User user);
     
+    // (user id, date, meal type, food id) of every intake, for rebuilding co-occurrence counts
+    @Query("SELECT f.user.id, f.intakeDate, f.mealType, f.food.id FROM FoodIntake f")
+    List<Object[]> findAllBasketEntries();
+    
+    // (meal type, food id) of every intake of a user's day, for refreshing its co-occurrence baskets
+    @Query("SELECT f.mealType, f.food.id FROM FoodIntake f WHERE f.user.id = :userId AND f.intakeDate = :date")
+    List<Object[]> findDayBasketEntries(@Param("userId") Long userId, @Param("date") LocalDate date);
+    
     // Delete all intakes for a user on a specific date
     void deleteByUserAndIntakeDate(User user, LocalDate date);
 }
\ No newline at end of file
@@ -19,6 +19,8 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
     
     List<Food> findByNameContainingIgnoreCase(String name);
     
+    List<Food> findByCategoryContainingIgnoreCase(String category);
+    
     @Query("SELECT f FROM Food f WHERE f.calories BETWEEN :minCal AND :maxCal ORDER BY f.calories")
     List<Food> findByCaloriesRange(@Param("minCal") Double minCal, @Param("maxCal") Double maxCal);
     
@@ -0,0 +1,14 @@
+package com.nutribattle.repository;
+
+import com.nutribattle.entity.FruitVegKeyword;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for FruitVegKeyword entity
+ */
+@Repository
+public interface FruitVegKeywordRepository extends JpaRepository<FruitVegKeyword, Long> {
+    
+    boolean existsByKeywordAndField(String keyword, FruitVegKeyword.Field field);
+}
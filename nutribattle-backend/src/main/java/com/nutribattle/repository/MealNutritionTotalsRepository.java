@@ -0,0 +1,36 @@
+package com.nutribattle.repository;
+
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.MealNutritionTotals;
+import com.nutribattle.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for MealNutritionTotals entity
+ */
+@Repository
+public interface MealNutritionTotalsRepository extends JpaRepository<MealNutritionTotals, Long> {
+    
+    Optional<MealNutritionTotals> findByUserAndIntakeDateAndMealType(User user, LocalDate intakeDate,
+                                                                     FoodIntake.MealType mealType);
+    
+    List<MealNutritionTotals> findByUserAndIntakeDate(User user, LocalDate intakeDate);
+    
+    /**
+     * The meal's row read with SELECT ... FOR UPDATE, which sees the latest committed
+     * totals rather than the transaction's snapshot
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM MealNutritionTotals t WHERE t.user = :user AND t.intakeDate = :intakeDate AND t.mealType = :mealType")
+    Optional<MealNutritionTotals> findForUpdate(@Param("user") User user, @Param("intakeDate") LocalDate intakeDate,
+                                                @Param("mealType") FoodIntake.MealType mealType);
+}
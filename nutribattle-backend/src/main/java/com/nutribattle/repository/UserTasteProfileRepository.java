@@ -0,0 +1,32 @@
+package com.nutribattle.repository;
+
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.User;
+import com.nutribattle.entity.UserTasteProfile;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for UserTasteProfile entity
+ */
+@Repository
+public interface UserTasteProfileRepository extends JpaRepository<UserTasteProfile, Long> {
+    
+    Optional<UserTasteProfile> findByUserAndMealType(User user, FoodIntake.MealType mealType);
+    
+    boolean existsByUser(User user);
+    
+    /**
+     * The profile read with SELECT ... FOR UPDATE, which sees the latest committed sums
+     * rather than the transaction's snapshot
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM UserTasteProfile p WHERE p.user = :user AND p.mealType = :mealType")
+    Optional<UserTasteProfile> findForUpdate(@Param("user") User user, @Param("mealType") FoodIntake.MealType mealType);
+}
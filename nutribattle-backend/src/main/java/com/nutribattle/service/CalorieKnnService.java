@@ -4,20 +4,90 @@ package com.nutribattle.service;
 import com.nutribattle.dto.CalorieKnnRecommendation;
 import com.nutribattle.entity.Food;
 import com.nutribattle.entity.User;
-import com.nutribattle.repository.FoodRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Calorie-goal recommendations. Each food is scaled towards the meal's calorie target
+ * within a realistic portion range (per food, else per category), so a food can hit the
+ * target exactly only if its calorie density lies in [target / maxGrams, target / minGrams].
+ *
+ * Per catalog snapshot, foods are grouped by portion range and each group is sorted by
+ * calorie density. A target is answered by binary-searching each group's window of exact
+ * matches and walking outward from it only while a food further away could still rank;
+ * the top matches for each meal target are cached on top of that.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CalorieKnnService {
     
-    private final FoodRepository foodRepository;
+    private static final int TOP_MATCHES = 5;
+    
+    // Upper bound of nutrientScore: protein 30 + fiber 20, no sugar penalty
+    private static final double MAX_NUTRIENT_SCORE = 50;
+    
+    private static final double[] DEFAULT_PORTION = {50, 300};
+    
+    private final FoodVectorIndex foodVectorIndex;
+    
+    // Rebuilt whenever the vector index swaps in a new snapshot (i.e. after any catalog change)
+    private volatile DensityIndex densityIndex;
+    
+    /**
+     * Foods grouped by portion range and sorted by calories per 100g,
+     * with the matches already built per target
+     */
+    private static final class DensityIndex {
+        private final FoodVectorIndex.Snapshot snapshot;
+        private final List<PortionGroup> groups;
+        private final Map<Double, List<CalorieKnnRecommendation.FoodMatch>> matchesByTarget = new ConcurrentHashMap<>();
+        
+        DensityIndex(FoodVectorIndex.Snapshot snapshot, List<PortionGroup> groups) {
+            this.snapshot = snapshot;
+            this.groups = groups;
+        }
+    }
+    
+    /**
+     * Foods sharing one portion range, in ascending calorie density (catalog order among equals)
+     */
+    private static final class PortionGroup {
+        private final double minGrams;
+        private final double maxGrams;
+        private final double[] densities;
+        private final double[] nutrientScores;
+        private final int[] slots;
+        
+        PortionGroup(double minGrams, double maxGrams, double[] densities, double[] nutrientScores, int[] slots) {
+            this.minGrams = minGrams;
+            this.maxGrams = maxGrams;
+            this.densities = densities;
+            this.nutrientScores = nutrientScores;
+            this.slots = slots;
+        }
+        
+        /**
+         * Match score of the food at position i for a target, quantity clamped to the portion range
+         */
+        double score(int i, double target) {
+            double actual = portionCalories(densities[i], target, minGrams, maxGrams);
+            return Math.max(0, Math.min(100, calorieScore(actual, target) * 0.5 + nutrientScores[i]));
+        }
+        
+        /**
+         * Highest score any food at position i could reach (best possible nutrient score)
+         */
+        double bound(int i, double target) {
+            double actual = portionCalories(densities[i], target, minGrams, maxGrams);
+            return Math.min(100, calorieScore(actual, target) * 0.5 + MAX_NUTRIENT_SCORE);
+        }
+    }
     
     /**
      * Get KNN recommendations based on user's calorie goal
@@ -30,33 +100,285 @@ public class CalorieKnnService {
         Double mealCalories = calculateMealCalories(dailyCalories, mealType);
         recommendation.setTargetCalories(mealCalories);
         
-        // Get all foods
-        List<Food> allFoods = foodRepository.findAll();
+        // Only (goal, age group) x meal type targets exist, each is built once per catalog version
+        DensityIndex index = currentDensityIndex();
+        List<CalorieKnnRecommendation.FoodMatch> matches = index.matchesByTarget.computeIfAbsent(mealCalories,
+                target -> Arrays.stream(topSlots(index, target, TOP_MATCHES))
+                        .mapToObj(slot -> createFoodMatch(index.snapshot.getFood(slot), target))
+                        .collect(Collectors.toUnmodifiableList()));
+        
+        recommendation.setRecommendedFoods(matches);
+        recommendation.setRecommendationReason(generateRecommendationReason(user, mealType));
         
-        // Calculate distance and create matches
-        List<CalorieKnnRecommendation.FoodMatch> matches = new ArrayList<>();
+        return recommendation;
+    }
+    
+    /**
+     * A matcher bound to the current catalog version, for callers that need many
+     * targets answered consistently (e.g. a whole meal plan)
+     */
+    public Matcher matcher() {
+        return new Matcher(currentDensityIndex());
+    }
+    
+    /**
+     * Ranked matches against one catalog snapshot; safe to use from several threads
+     */
+    public final class Matcher {
+        private final DensityIndex index;
         
-        for (Food food : allFoods) {
-            CalorieKnnRecommendation.FoodMatch match = createFoodMatch(food, mealCalories);
-            matches.add(match);
+        private Matcher(DensityIndex index) {
+            this.index = index;
         }
         
-        // Sort by match score (highest first) and take top 5
-        matches = matches.stream()
-                .sorted((a, b) -> Double.compare(b.getMatchScore(), a.getMatchScore()))
-                .limit(5)
-                .collect(Collectors.toList());
+        /**
+         * Up to limit matches for a calorie target, best first
+         */
+        public List<CalorieKnnRecommendation.FoodMatch> rank(double targetCalories, int limit) {
+            return Arrays.stream(topSlots(index, targetCalories, limit))
+                    .mapToObj(slot -> createFoodMatch(index.snapshot.getFood(slot), targetCalories))
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    private DensityIndex currentDensityIndex() {
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        DensityIndex index = densityIndex;
+        if (index == null || index.snapshot != snapshot) {
+            index = new DensityIndex(snapshot, buildGroups(snapshot));
+            densityIndex = index;
+        }
+        return index;
+    }
+    
+    /**
+     * Group the catalog by portion range and sort each group by calorie density.
+     * Foods without calories are left out: no quantity of them reaches a calorie target.
+     */
+    private List<PortionGroup> buildGroups(FoodVectorIndex.Snapshot snapshot) {
+        Map<List<Double>, List<Integer>> slotsByRange = new LinkedHashMap<>();
+        int skipped = 0;
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            Food food = snapshot.getFood(slot);
+            if (food.getCalories() == null || food.getCalories() <= 0) {
+                skipped++;
+                continue;
+            }
+            double[] portion = portionBounds(food);
+            slotsByRange.computeIfAbsent(List.of(portion[0], portion[1]), range -> new ArrayList<>()).add(slot);
+        }
         
-        recommendation.setRecommendedFoods(matches);
-        recommendation.setRecommendationReason(generateRecommendationReason(user, mealType));
+        List<PortionGroup> groups = new ArrayList<>(slotsByRange.size());
+        slotsByRange.forEach((range, slots) -> {
+            // Stable sort keeps catalog order among equal densities
+            slots.sort(Comparator.comparingDouble(slot -> snapshot.getFood(slot).getCalories()));
+            int n = slots.size();
+            double[] densities = new double[n];
+            double[] nutrientScores = new double[n];
+            int[] sorted = new int[n];
+            for (int i = 0; i < n; i++) {
+                Food food = snapshot.getFood(slots.get(i));
+                densities[i] = food.getCalories();
+                nutrientScores[i] = nutrientScore(food);
+                sorted[i] = slots.get(i);
+            }
+            groups.add(new PortionGroup(range.get(0), range.get(1), densities, nutrientScores, sorted));
+        });
         
-        return recommendation;
+        log.info("Calorie density index built for {} foods in {} portion groups ({} without calories skipped)",
+                snapshot.size() - skipped, groups.size(), skipped);
+        return groups;
+    }
+    
+    /**
+     * Slots of the best matches for a target, highest score first (catalog order among equal scores).
+     * Inside a group's window every food hits the target exactly; outside it the calorie score
+     * only drops with the distance from the window, so each side is walked until even a food
+     * with the best nutrient score could no longer enter the top matches.
+     */
+    private int[] topSlots(DensityIndex index, double target, int limit) {
+        TopMatches top = new TopMatches(limit);
+        for (PortionGroup group : index.groups) {
+            int from = lowerBound(group.densities, target * 100 / group.maxGrams);
+            int to = upperBound(group.densities, target * 100 / group.minGrams);
+            for (int i = from; i < to; i++) {
+                top.offer(group.slots[i], group.score(i, target));
+            }
+            for (int i = from - 1; i >= 0 && top.admits(group.bound(i, target)); i--) {
+                top.offer(group.slots[i], group.score(i, target));
+            }
+            for (int i = to; i < group.densities.length && top.admits(group.bound(i, target)); i++) {
+                top.offer(group.slots[i], group.score(i, target));
+            }
+        }
+        return top.slots();
+    }
+    
+    /**
+     * First index whose value is >= key
+     */
+    private static int lowerBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * First index whose value is > key
+     */
+    private static int upperBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * The k best (slot, score) pairs seen so far, ordered by score descending then slot
+     */
+    private static final class TopMatches {
+        private final int k;
+        private final List<double[]> entries = new ArrayList<>();
+        
+        TopMatches(int k) {
+            this.k = k;
+        }
+        
+        /**
+         * Whether a food scoring at most bound could still enter (ties may win on slot order)
+         */
+        boolean admits(double bound) {
+            return entries.size() < k || bound >= entries.get(entries.size() - 1)[1];
+        }
+        
+        void offer(int slot, double score) {
+            int position = entries.size();
+            while (position > 0 && ranksBefore(slot, score, entries.get(position - 1))) {
+                position--;
+            }
+            if (position < k) {
+                entries.add(position, new double[] {slot, score});
+                if (entries.size() > k) {
+                    entries.remove(k);
+                }
+            }
+        }
+        
+        private static boolean ranksBefore(int slot, double score, double[] entry) {
+            return score > entry[1] || (score == entry[1] && slot < entry[0]);
+        }
+        
+        int[] slots() {
+            return entries.stream().mapToInt(entry -> (int) entry[0]).toArray();
+        }
+    }
+    
+    /**
+     * Realistic serving range in grams: the food's own bounds, else its category's
+     */
+    static double[] portionBounds(Food food) {
+        double[] fallback = categoryPortion(food.getCategory());
+        double min = food.getMinPortionGrams() != null ? food.getMinPortionGrams() : fallback[0];
+        double max = food.getMaxPortionGrams() != null ? food.getMaxPortionGrams() : fallback[1];
+        return new double[] {min, Math.max(min, max)};
+    }
+    
+    /**
+     * Typical serving range of a category, in grams
+     */
+    private static double[] categoryPortion(String category) {
+        if (category == null) {
+            return DEFAULT_PORTION;
+        }
+        switch (category.trim().toLowerCase()) {
+            case "main course":
+            case "fast food":
+            case "sandwich":
+                return new double[] {150, 450};
+            case "soup":
+            case "stew":
+                return new double[] {200, 500};
+            case "drink":
+            case "drinks":
+                return new double[] {150, 500};
+            case "breakfast":
+            case "grain":
+            case "dumpling":
+                return new double[] {100, 350};
+            case "vegetable":
+            case "salad":
+                return new double[] {50, 300};
+            case "side dish":
+                return new double[] {50, 250};
+            case "dairy":
+                return new double[] {100, 300};
+            case "dessert":
+                return new double[] {50, 200};
+            case "snack":
+            case "snacks":
+            case "appetizer":
+                return new double[] {30, 200};
+            case "bread":
+                return new double[] {30, 150};
+            case "condiment":
+            case "spread":
+                return new double[] {5, 40};
+            default:
+                return DEFAULT_PORTION;
+        }
+    }
+    
+    private static double clampQuantity(double quantity, double minGrams, double maxGrams) {
+        return Math.max(minGrams, Math.min(maxGrams, quantity));
+    }
+    
+    /**
+     * Calories of the portion closest to the target; a quantity inside the range hits it exactly
+     */
+    private static double portionCalories(double density, double target, double minGrams, double maxGrams) {
+        double exact = (target / density) * 100;
+        double quantity = clampQuantity(exact, minGrams, maxGrams);
+        return quantity == exact ? target : (quantity / 100) * density;
+    }
+    
+    private static double calorieScore(double actualCalories, double targetCalories) {
+        return Math.max(0, 100 - (Math.abs(actualCalories - targetCalories) / targetCalories * 100));
+    }
+    
+    /**
+     * Score terms that do not depend on the calorie target:
+     * protein (max 30), fiber (max 20), sugar penalty (max 20)
+     */
+    private static double nutrientScore(Food food) {
+        double proteinScore = Math.min(30, safe(food.getProtein()) * 2); // Max 30 points
+        double fiberScore = Math.min(20, safe(food.getFiber()) * 4); // Max 20 points
+        double sugarPenalty = Math.min(20, safe(food.getSugar())); // Penalty for sugar
+        return proteinScore + fiberScore - sugarPenalty;
+    }
+    
+    private static double safe(Double value) {
+        return value != null ? value : 0.0;
     }
     
     /**
      * Calculate calories for specific meal type
      */
-    private Double calculateMealCalories(Double dailyCalories, String mealType) {
+    Double calculateMealCalories(Double dailyCalories, String mealType) {
         switch (mealType.toUpperCase()) {
             case "BREAKFAST":
                 return dailyCalories * 0.25; // 25% of daily calories
@@ -78,23 +400,19 @@ public class CalorieKnnService {
         CalorieKnnRecommendation.FoodMatch match = new CalorieKnnRecommendation.FoodMatch();
         match.setFood(food);
         
-        // Calculate optimal quantity (grams) to meet target calories
-        Double quantity = (targetCalories / food.getCalories()) * 100;
+        // Calculate optimal quantity (grams) to meet target calories, within a realistic portion
+        double[] portion = portionBounds(food);
+        Double quantity = clampQuantity((targetCalories / food.getCalories()) * 100, portion[0], portion[1]);
         match.setQuantity(Math.round(quantity * 10.0) / 10.0); // Round to 1 decimal
         
         // Calculate actual calories with this quantity
-        Double actualCalories = (quantity / 100) * food.getCalories();
+        Double actualCalories = portionCalories(food.getCalories(), targetCalories, portion[0], portion[1]);
         Double difference = Math.abs(actualCalories - targetCalories);
         match.setCaloriesDifference(difference);
         
         // Calculate match score (0-100)
         // Score based on: calorie match, protein content, fiber content, sugar (lower is better)
-        double calorieScore = Math.max(0, 100 - (difference / targetCalories * 100));
-        double proteinScore = Math.min(30, food.getProtein() * 2); // Max 30 points
-        double fiberScore = Math.min(20, food.getFiber() * 4); // Max 20 points
-        double sugarPenalty = Math.min(20, food.getSugar()); // Penalty for sugar
-        
-        double totalScore = calorieScore * 0.5 + proteinScore + fiberScore - sugarPenalty;
+        double totalScore = calorieScore(actualCalories, targetCalories) * 0.5 + nutrientScore(food);
         match.setMatchScore(Math.max(0, Math.min(100, totalScore)));
         
         // Generate reason
@@ -110,13 +428,13 @@ public class CalorieKnnService {
         StringBuilder reason = new StringBuilder();
         reason.append(String.format("%.0fg provides %.0f calories", quantity, actualCalories));
         
-        if (food.getProtein() > 10) {
+        if (safe(food.getProtein()) > 10) {
             reason.append(", high in protein");
         }
-        if (food.getFiber() > 5) {
+        if (safe(food.getFiber()) > 5) {
             reason.append(", good fiber content");
         }
-        if (food.getSugar() < 5) {
+        if (safe(food.getSugar()) < 5) {
             reason.append(", low sugar");
         }
         
@@ -0,0 +1,222 @@
+// File: src/main/java/com/nutribattle/service/CatalogResponseCache.java
+
+package com.nutribattle.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nutribattle.dto.FoodView;
+import com.nutribattle.entity.Food;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON bodies of the public catalog endpoints, serialized once per catalog version
+ * and kept both plain and gzipped, each with its own strong ETag derived from the content.
+ * An entry is rebuilt on the first request after the catalog snapshot changes.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogResponseCache {
+    
+    // Random homepages kept per catalog and image version, served in turn
+    private static final int HOMEPAGE_VARIANTS = 8;
+    
+    private final FoodCatalog foodCatalog;
+    private final FoodService foodService;
+    private final ImageManifest imageManifest;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    private final ConcurrentMap<String, CachedResponse> responses = new ConcurrentHashMap<>();
+    private final AtomicInteger homepageTurn = new AtomicInteger();
+    
+    /**
+     * One serialized response body
+     */
+    public static final class CachedResponse {
+        private final long version;
+        private final String etag;
+        private final String gzipEtag;
+        private final byte[] identity;
+        private final byte[] gzip;
+        
+        CachedResponse(long version, String etag, byte[] identity, byte[] gzip) {
+            this.version = version;
+            this.etag = etag;
+            // The gzip bytes are a different representation and need a tag of their own
+            this.gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        /**
+         * ETag of the plain body
+         */
+        public String getEtag() {
+            return etag;
+        }
+        
+        /**
+         * ETag of the body sent with or without gzip
+         */
+        public String getEtag(boolean gzipped) {
+            return gzipped ? gzipEtag : etag;
+        }
+        
+        public byte[] getIdentity() {
+            return identity;
+        }
+        
+        public byte[] getGzip() {
+            return gzip;
+        }
+        
+        /**
+         * Whether an If-None-Match header names the body about to be sent, plain or
+         * gzipped (weak comparison, as RFC 9110 asks)
+         */
+        public boolean matches(String ifNoneMatch, boolean gzipped) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            String current = getEtag(gzipped);
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed (or covered by *) with a
+     * q-value above zero. "gzip;q=0" refuses it even when * is accepted.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0; // Malformed: the plain body is always safe
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                any = Math.max(any, quality);
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : any > 0;
+    }
+    
+    /**
+     * GET /api/foods
+     */
+    public CachedResponse allFoods() {
+        return get("foods", snapshot -> views(snapshot.getFoods()));
+    }
+    
+    /**
+     * GET /api/foods/categories
+     */
+    public CachedResponse categories() {
+        return get("categories", FoodCatalog.Snapshot::getCategories);
+    }
+    
+    /**
+     * GET /api/foods/type/{type}; types not in the catalog share one empty entry
+     */
+    public CachedResponse foodsByType(String type) {
+        List<Food> foods = foodCatalog.getSnapshot().getFoodsByType(type);
+        String key = foods.isEmpty() ? "type:" : "type:" + type.toLowerCase(Locale.ROOT);
+        return get(key, snapshot -> views(snapshot.getFoodsByType(type)));
+    }
+    
+    /**
+     * GET /api/foods/homepage: one of a few pre-sampled random selections, rotated per request
+     */
+    public CachedResponse homepage(int limit) {
+        String prefix = "homepage:" + limit + ":" + imageManifest.getVersion() + ":";
+        int variant = Math.floorMod(homepageTurn.getAndIncrement(), HOMEPAGE_VARIANTS);
+        CachedResponse cached = responses.get(prefix + variant);
+        if (cached == null) {
+            // Selections from an older image list are never asked for again
+            responses.keySet().removeIf(key -> key.startsWith("homepage:" + limit + ":") && !key.startsWith(prefix));
+        }
+        return get(prefix + variant, snapshot -> views(foodService.getHomepageFoods(limit)));
+    }
+    
+    private CachedResponse get(String key, Function<FoodCatalog.Snapshot, Object> body) {
+        FoodCatalog.Snapshot snapshot = foodCatalog.getSnapshot();
+        CachedResponse cached = responses.get(key);
+        if (cached != null && cached.version == snapshot.getVersion()) {
+            meterRegistry.counter("nutribattle.catalog.response.cache", "result", "hit").increment();
+            return cached;
+        }
+        
+        meterRegistry.counter("nutribattle.catalog.response.cache", "result", "miss").increment();
+        CachedResponse built = serialize(snapshot.getVersion(), body.apply(snapshot));
+        // Never let a slow builder replace a newer version
+        return responses.merge(key, built, (old, fresh) -> fresh.version >= old.version ? fresh : old);
+    }
+    
+    private CachedResponse serialize(long version, Object body) {
+        try {
+            byte[] identity = objectMapper.writeValueAsBytes(body);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(identity);
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity);
+            String etag = "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            return new CachedResponse(version, etag, identity, compressed.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static List<FoodView> views(List<Food> foods) {
+        return foods.stream().map(FoodView::of).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,198 @@
+// File: src/main/java/com/nutribattle/service/CoOccurrenceMatrix.java
+
+package com.nutribattle.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Symmetric sparse count matrix over food ids: count(a, b) is the number of baskets
+ * (meals or days) holding both foods, and the diagonal count(a, a) the number of
+ * baskets holding a. Each row is an open-addressing long -> int table, so a row
+ * costs 12 bytes per co-consumed food and no boxing.
+ *
+ * Not thread-safe: CoOccurrenceService guards access.
+ */
+final class CoOccurrenceMatrix {
+
+    private final Map<Long, Row> rows = new HashMap<>();
+
+    /**
+     * Count a basket of distinct foods
+     */
+    void addBasket(long[] foods) {
+        for (int i = 0; i < foods.length; i++) {
+            for (int j = i; j < foods.length; j++) {
+                adjust(foods[i], foods[j], 1);
+            }
+        }
+    }
+
+    /**
+     * Change count(a, b) (and count(b, a)) by delta, dropping entries that reach zero
+     */
+    void adjust(long a, long b, int delta) {
+        row(a).add(b, delta);
+        if (a != b) {
+            row(b).add(a, delta);
+        }
+        dropIfEmpty(a);
+        dropIfEmpty(b);
+    }
+
+    int count(long a, long b) {
+        Row row = rows.get(a);
+        return row != null ? row.get(b) : 0;
+    }
+
+    /**
+     * Number of baskets holding the food
+     */
+    int baskets(long food) {
+        return count(food, food);
+    }
+
+    /**
+     * Row of a food, or null when it never appeared
+     */
+    Row rowOf(long food) {
+        return rows.get(food);
+    }
+
+    int rowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Add every count of other to this matrix (combines partial matrices of a parallel build)
+     */
+    void merge(CoOccurrenceMatrix other) {
+        other.rows.forEach((food, row) -> {
+            for (int i = 0; i < row.keys.length; i++) {
+                if (row.keys[i] != Row.EMPTY) {
+                    row(food).add(row.keys[i], row.values[i]);
+                }
+            }
+        });
+    }
+
+    private Row row(long food) {
+        return rows.computeIfAbsent(food, id -> new Row());
+    }
+
+    private void dropIfEmpty(long food) {
+        Row row = rows.get(food);
+        if (row != null && row.size() == 0) {
+            rows.remove(food);
+        }
+    }
+
+    /**
+     * Open-addressing long -> int table with linear probing; food ids are positive,
+     * so 0 marks a free cell
+     */
+    static final class Row {
+        private static final long EMPTY = 0L;
+        private static final int INITIAL_CAPACITY = 8;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        /**
+         * Key in a cell, or 0 when the cell is free
+         */
+        long keyAt(int cell) {
+            return keys[cell];
+        }
+
+        int valueAt(int cell) {
+            return values[cell];
+        }
+
+        int get(long key) {
+            int cell = find(key);
+            return keys[cell] == key ? values[cell] : 0;
+        }
+
+        void add(long key, int delta) {
+            int cell = find(key);
+            if (keys[cell] == key) {
+                values[cell] += delta;
+                if (values[cell] <= 0) {
+                    remove(cell);
+                }
+                return;
+            }
+            if (delta <= 0) {
+                return;
+            }
+            keys[cell] = key;
+            values[cell] = delta;
+            if (++size * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+        }
+
+        /**
+         * Cell holding key, or the free cell where it would go
+         */
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int cell = hash(key) & mask;
+            while (keys[cell] != EMPTY && keys[cell] != key) {
+                cell = (cell + 1) & mask;
+            }
+            return cell;
+        }
+
+        /**
+         * Backward-shift deletion: pull later entries of the probe run into the gap
+         */
+        private void remove(int cell) {
+            int mask = keys.length - 1;
+            int gap = cell;
+            int next = (gap + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = hash(keys[next]) & mask;
+                // Move the entry back unless its home lies cyclically in (gap, next]
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = EMPTY;
+            values[gap] = 0;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int cell = find(oldKeys[i]);
+                    keys[cell] = oldKeys[i];
+                    values[cell] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
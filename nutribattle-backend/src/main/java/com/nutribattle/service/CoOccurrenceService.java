@@ -0,0 +1,218 @@
+// File: src/main/java/com/nutribattle/service/CoOccurrenceService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.CoConsumedFood;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.event.FoodIntakeChangedEvent;
+import com.nutribattle.repository.FoodIntakeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * "People who eat this also eat": item-item co-occurrence of foods logged in the same
+ * meal (user, date, meal type) or on the same day (user, date).
+ *
+ * Both matrices are built in parallel from the intake table at startup (or on demand),
+ * together with the food set of every basket they count. After that, each intake event
+ * re-reads its day's intakes once the intake transaction has committed, and applies only
+ * the difference to the stored baskets, so events are idempotent and may run in any
+ * order: one whose intake a rebuild already counted changes nothing, and a REMOVED that
+ * overtakes its ADDED makes both read the day without the food. Rebuilds and events hold
+ * the write lock from reading the table until the matrices are updated, so the matrices
+ * always match the latest read. Keeping the baskets costs 8 bytes per distinct food of
+ * each meal and day, on top of the map entries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CoOccurrenceService {
+
+    /**
+     * What counts as eating two foods together
+     */
+    public enum Scope {
+        MEAL, DAY
+    }
+
+    private static final long[] EMPTY_BASKET = new long[0];
+
+    private final FoodIntakeRepository foodIntakeRepository;
+    private final FoodVectorIndex foodVectorIndex;
+    private final MeterRegistry meterRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CoOccurrenceMatrix mealMatrix = new CoOccurrenceMatrix();
+    private CoOccurrenceMatrix dayMatrix = new CoOccurrenceMatrix();
+
+    // Sorted distinct food ids of every non-empty basket, as counted in the matrices
+    private Map<List<Object>, long[]> mealBaskets = new HashMap<>();
+    private Map<List<Object>, long[]> dayBaskets = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Recount both matrices from every intake, in parallel. Lookups and intake events
+     * wait until it is done.
+     */
+    public void rebuild() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Object[]> entries;
+        lock.writeLock().lock();
+        try {
+            entries = foodIntakeRepository.findAllBasketEntries();
+
+            // (user, date, meal type) -> foods and (user, date) -> foods
+            mealBaskets = basketsOf(entries.parallelStream()
+                    .collect(Collectors.groupingByConcurrent(entry -> List.of(entry[0], entry[1], entry[2]),
+                            Collectors.mapping(entry -> (Long) entry[3], Collectors.toSet()))));
+            dayBaskets = basketsOf(entries.parallelStream()
+                    .collect(Collectors.groupingByConcurrent(entry -> List.of(entry[0], entry[1]),
+                            Collectors.mapping(entry -> (Long) entry[3], Collectors.toSet()))));
+
+            mealMatrix = count(mealBaskets.values());
+            dayMatrix = count(dayBaskets.values());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long nanos = sample.stop(meterRegistry.timer("nutribattle.cooccurrence.rebuild"));
+        log.info("Co-occurrence rebuilt from {} intakes ({} meals, {} days) in {} ms",
+                entries.size(), mealBaskets.size(), dayBaskets.size(), nanos / 1_000_000);
+    }
+
+    private static Map<List<Object>, long[]> basketsOf(Map<List<Object>, Set<Long>> foodSets) {
+        Map<List<Object>, long[]> baskets = new HashMap<>(foodSets.size() * 2);
+        foodSets.forEach((key, foods) -> baskets.put(key, sorted(foods)));
+        return baskets;
+    }
+
+    /**
+     * Partial matrices per fork-join worker, merged pairwise
+     */
+    private static CoOccurrenceMatrix count(Collection<long[]> baskets) {
+        return baskets.parallelStream()
+                .collect(CoOccurrenceMatrix::new, CoOccurrenceMatrix::addBasket, CoOccurrenceMatrix::merge);
+    }
+
+    /**
+     * Bring the changed day's meal and day baskets up to date with the intake table
+     * (runs after the intake transaction has committed)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIntakeChanged(FoodIntakeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Map<FoodIntake.MealType, Set<Long>> meals = new EnumMap<>(FoodIntake.MealType.class);
+            Set<Long> day = new HashSet<>();
+            for (Object[] entry : foodIntakeRepository.findDayBasketEntries(event.getUserId(), event.getIntakeDate())) {
+                meals.computeIfAbsent((FoodIntake.MealType) entry[0], mealType -> new HashSet<>()).add((Long) entry[1]);
+                day.add((Long) entry[1]);
+            }
+            for (FoodIntake.MealType mealType : FoodIntake.MealType.values()) {
+                refresh(mealMatrix, mealBaskets, List.of(event.getUserId(), event.getIntakeDate(), mealType),
+                        sorted(meals.getOrDefault(mealType, Set.of())));
+            }
+            refresh(dayMatrix, dayBaskets, List.of(event.getUserId(), event.getIntakeDate()), sorted(day));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace a basket's stored foods with its current ones, changing only the counts of
+     * pairs that involve a food that left or entered it
+     */
+    private static void refresh(CoOccurrenceMatrix matrix, Map<List<Object>, long[]> baskets, List<Object> key,
+                                long[] after) {
+        long[] before = baskets.getOrDefault(key, EMPTY_BASKET);
+        if (Arrays.equals(before, after)) {
+            return;
+        }
+        adjustPairsLeaving(matrix, before, after, -1);
+        adjustPairsLeaving(matrix, after, before, 1);
+        if (after.length == 0) {
+            baskets.remove(key);
+        } else {
+            baskets.put(key, after);
+        }
+    }
+
+    /**
+     * Change by delta every pair of the basket (diagonal included) with a food missing from other
+     */
+    private static void adjustPairsLeaving(CoOccurrenceMatrix matrix, long[] basket, long[] other, int delta) {
+        for (int i = 0; i < basket.length; i++) {
+            boolean missing = Arrays.binarySearch(other, basket[i]) < 0;
+            for (int j = i; j < basket.length; j++) {
+                if (missing || Arrays.binarySearch(other, basket[j]) < 0) {
+                    matrix.adjust(basket[i], basket[j], delta);
+                }
+            }
+        }
+    }
+
+    private static long[] sorted(Set<Long> foods) {
+        long[] ids = foods.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Foods most often eaten together with the given food, ranked by the cosine of their
+     * basket sets (count(a, b) / sqrt(baskets(a) * baskets(b))) so that foods in every
+     * meal do not top every list
+     */
+    public List<CoConsumedFood> alsoEaten(Long foodId, Scope scope, int k) {
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        if (snapshot.slotOf(foodId) < 0) {
+            throw new IllegalArgumentException("Food not found: " + foodId);
+        }
+        List<CoConsumedFood> result = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            CoOccurrenceMatrix matrix = scope == Scope.DAY ? dayMatrix : mealMatrix;
+            CoOccurrenceMatrix.Row row = matrix.rowOf(foodId);
+            if (row == null) {
+                return result;
+            }
+            double baskets = matrix.baskets(foodId);
+            for (int cell = 0; cell < row.capacity(); cell++) {
+                long other = row.keyAt(cell);
+                int slot = other != 0 && other != foodId ? snapshot.slotOf(other) : -1;
+                if (slot < 0) {
+                    continue;
+                }
+                int together = row.valueAt(cell);
+                CoConsumedFood food = new CoConsumedFood();
+                food.setFood(snapshot.getFood(slot));
+                food.setTogetherCount(together);
+                food.setConfidence(together / baskets);
+                food.setScore(together / Math.sqrt(baskets * matrix.baskets(other)));
+                result.add(food);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        result.sort(Comparator.comparingDouble((CoConsumedFood food) -> -food.getScore())
+                .thenComparing(food -> -food.getTogetherCount())
+                .thenComparing(food -> food.getFood().getId()));
+        return new ArrayList<>(result.subList(0, Math.min(k, result.size())));
+    }
+}
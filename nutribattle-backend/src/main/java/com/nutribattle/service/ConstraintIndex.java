@@ -0,0 +1,172 @@
+// File: src/main/java/com/nutribattle/service/ConstraintIndex.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.RecommendationConstraints;
+import com.nutribattle.entity.Food;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Function;
+
+/**
+ * Per-attribute indexes over the slots of a snapshot, used to turn recommendation
+ * constraints into a bitset of allowed slots without touching every food:
+ * each nutrient keeps its slots sorted by value (a bound selects a prefix or suffix),
+ * and each Nutri-Score grade keeps the set of foods graded that well or better.
+ */
+final class ConstraintIndex {
+
+    private static final String GRADES = "ABCDE";
+
+    private final int size;
+    private final NutrientColumn calories;
+    private final NutrientColumn fat;
+    private final NutrientColumn saturatedFat;
+    private final NutrientColumn carbs;
+    private final NutrientColumn sugar;
+    private final NutrientColumn sodium;
+    private final NutrientColumn protein;
+    private final NutrientColumn fiber;
+    private final BitSet[] gradeOrBetter;
+
+    ConstraintIndex(Food[] foods) {
+        this.size = foods.length;
+        this.calories = new NutrientColumn(foods, Food::getCalories);
+        this.fat = new NutrientColumn(foods, Food::getFat);
+        this.saturatedFat = new NutrientColumn(foods, Food::getSaturatedFat);
+        this.carbs = new NutrientColumn(foods, Food::getCarbs);
+        this.sugar = new NutrientColumn(foods, Food::getSugar);
+        this.sodium = new NutrientColumn(foods, Food::getSodium);
+        this.protein = new NutrientColumn(foods, Food::getProtein);
+        this.fiber = new NutrientColumn(foods, Food::getFiber);
+
+        this.gradeOrBetter = new BitSet[GRADES.length()];
+        for (int g = 0; g < gradeOrBetter.length; g++) {
+            gradeOrBetter[g] = new BitSet(size);
+        }
+        for (int slot = 0; slot < size; slot++) {
+            int grade = gradeCode(foods[slot].getNutriScore());
+            // Foods without a grade never pass a grade constraint
+            for (int g = grade; g >= 0 && g < gradeOrBetter.length; g++) {
+                gradeOrBetter[g].set(slot);
+            }
+        }
+    }
+
+    /**
+     * Slots satisfying every constraint, or null if there is no constraint
+     * @throws IllegalArgumentException if minGrade is not A-E
+     */
+    BitSet allowedSlots(RecommendationConstraints constraints) {
+        if (constraints == null || constraints.hasNone()) {
+            return null;
+        }
+        BitSet allowed = new BitSet(size);
+        allowed.set(0, size);
+
+        calories.atMost(constraints.getMaxCalories(), allowed);
+        fat.atMost(constraints.getMaxFat(), allowed);
+        saturatedFat.atMost(constraints.getMaxSaturatedFat(), allowed);
+        carbs.atMost(constraints.getMaxCarbs(), allowed);
+        sugar.atMost(constraints.getMaxSugar(), allowed);
+        sodium.atMost(constraints.getMaxSodium(), allowed);
+        protein.atLeast(constraints.getMinProtein(), allowed);
+        fiber.atLeast(constraints.getMinFiber(), allowed);
+
+        String minGrade = constraints.getMinGrade();
+        if (minGrade != null && !minGrade.isBlank()) {
+            int grade = gradeCode(minGrade.trim().toUpperCase());
+            if (grade < 0) {
+                throw new IllegalArgumentException("Invalid Nutri-Score grade: " + minGrade);
+            }
+            allowed.and(gradeOrBetter[grade]);
+        }
+        return allowed;
+    }
+
+    private static int gradeCode(String grade) {
+        return grade != null && grade.length() == 1 ? GRADES.indexOf(grade.charAt(0)) : -1;
+    }
+
+    /**
+     * Slots ordered by one nutrient (null counts as 0, like the vectors)
+     */
+    private static final class NutrientColumn {
+        private final double[] sortedValues;
+        private final int[] slotsByValue;
+
+        NutrientColumn(Food[] foods, Function<Food, Double> getter) {
+            int n = foods.length;
+            double[] values = new double[n];
+            Integer[] order = new Integer[n];
+            for (int slot = 0; slot < n; slot++) {
+                Double value = getter.apply(foods[slot]);
+                values[slot] = value != null ? value : 0.0;
+                order[slot] = slot;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+            this.sortedValues = new double[n];
+            this.slotsByValue = new int[n];
+            for (int i = 0; i < n; i++) {
+                slotsByValue[i] = order[i];
+                sortedValues[i] = values[order[i]];
+            }
+        }
+
+        /**
+         * Keep only slots with value <= bound in allowed (no-op for a null bound)
+         */
+        void atMost(Double bound, BitSet allowed) {
+            if (bound != null) {
+                restrict(0, firstAbove(bound), allowed);
+            }
+        }
+
+        /**
+         * Keep only slots with value >= bound in allowed (no-op for a null bound)
+         */
+        void atLeast(Double bound, BitSet allowed) {
+            if (bound != null) {
+                restrict(firstAtLeast(bound), sortedValues.length, allowed);
+            }
+        }
+
+        private void restrict(int from, int to, BitSet allowed) {
+            BitSet range = new BitSet(sortedValues.length);
+            for (int i = from; i < to; i++) {
+                range.set(slotsByValue[i]);
+            }
+            allowed.and(range);
+        }
+
+        private int firstAbove(double bound) {
+            int lo = 0;
+            int hi = sortedValues.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedValues[mid] <= bound) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int firstAtLeast(double bound) {
+            int lo = 0;
+            int hi = sortedValues.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sortedValues[mid] < bound) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+// File: src/main/java/com/nutribattle/service/DistanceKernel.java
+
+package com.nutribattle.service;
+
+/**
+ * Computes squared Euclidean distances from one query vector to a range of
+ * candidates stored column-wise (struct-of-arrays): the value of dimension d
+ * for candidate i is columns[d * stride + i]. This layout lets an implementation
+ * process several candidates per instruction.
+ *
+ * Implementations must accumulate dimensions in order (sum += diff * diff, no FMA)
+ * so every kernel returns bit-identical distances.
+ */
+public interface DistanceKernel {
+
+    /**
+     * Write the squared distances of candidates [from, to) into out[0 .. to - from)
+     */
+    void squaredDistances(double[] columns, int stride, int dimensions, int from, int to,
+                          double[] query, int queryOffset, double[] out);
+
+    /**
+     * Short name for logs and metrics
+     */
+    String name();
+}
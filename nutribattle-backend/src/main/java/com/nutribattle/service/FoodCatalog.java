@@ -0,0 +1,346 @@
+// File: src/main/java/com/nutribattle/service/FoodCatalog.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.event.FoodCatalogRebuiltEvent;
+import com.nutribattle.repository.FoodRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory copy of the food catalog that every public food read is served from.
+ * Foods are detached copies with their image URL and Nutri-Score already prepared, and must
+ * not be modified. Admin changes build a new snapshot (copy-on-write, one food reloaded)
+ * and swap it in atomically; readers keep whichever version they started with. Full
+ * reloads are announced with a FoodCatalogRebuiltEvent, published outside the catalog lock.
+ */
+@Service
+@Slf4j
+public class FoodCatalog implements ApplicationEventPublisherAware {
+    
+    private final FoodRepository foodRepository;
+    private final NutriScoreCalculator nutriScoreCalculator;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${server.url:http://localhost:8080}")
+    private String serverUrl = "http://localhost:8080";
+    
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private ApplicationEventPublisher eventPublisher; // Null outside a Spring context
+    
+    public FoodCatalog(FoodRepository foodRepository, NutriScoreCalculator nutriScoreCalculator,
+                       MeterRegistry meterRegistry) {
+        this.foodRepository = foodRepository;
+        this.nutriScoreCalculator = nutriScoreCalculator;
+        this.meterRegistry = meterRegistry;
+        
+        Gauge.builder("nutribattle.catalog.version", snapshot, ref -> ref.get() != null ? ref.get().getVersion() : 0)
+                .description("Version of the food catalog snapshot being served")
+                .register(meterRegistry);
+        Gauge.builder("nutribattle.catalog.foods", snapshot, ref -> ref.get() != null ? ref.get().size() : 0)
+                .register(meterRegistry);
+        Gauge.builder("nutribattle.catalog.built.timestamp", snapshot,
+                        ref -> ref.get() != null ? ref.get().getBuiltAt().toEpochMilli() / 1000.0 : 0)
+                .description("When the current snapshot was built (epoch seconds)")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Current snapshot, loaded from the database on first use
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            Snapshot built = null;
+            synchronized (this) {
+                // Callers that waited here find the snapshot the first one built
+                if (snapshot.get() == null) {
+                    built = build();
+                }
+            }
+            if (built != null) {
+                published(built);
+            }
+            current = snapshot.get();
+        }
+        return current;
+    }
+    
+    /**
+     * Reload every food and swap in a new snapshot
+     */
+    public void rebuild() {
+        published(build());
+    }
+    
+    private synchronized Snapshot build() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Food> entities = foodRepository.findAll();
+        List<Food> foods = new ArrayList<>(entities.size());
+        Map<Long, String> imageFiles = new HashMap<>();
+        for (Food entity : entities) {
+            foods.add(prepare(entity));
+            putImageFile(imageFiles, entity);
+        }
+        Snapshot built = install(foods, imageFiles);
+        long nanos = sample.stop(meterRegistry.timer("nutribattle.catalog.build", "kind", "full"));
+        log.info("Food catalog snapshot v{} built with {} foods in {} ms",
+                built.getVersion(), built.size(), nanos / 1_000_000);
+        return built;
+    }
+    
+    /**
+     * Announce a full reload; outside the catalog lock, since listeners read the catalog
+     */
+    private void published(Snapshot built) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new FoodCatalogRebuiltEvent(this, built.getVersion()));
+        }
+    }
+    
+    /**
+     * Apply an admin change: copy the current foods, reload only the changed one
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE) // Before the indexes that rebuild from the catalog
+    public void onCatalogChanged(FoodCatalogChangedEvent event) {
+        if (event.getFoodId() == null || snapshot.get() == null) {
+            rebuild();
+            return;
+        }
+        applyChange(event);
+    }
+    
+    private synchronized void applyChange(FoodCatalogChangedEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Long id = event.getFoodId();
+        Snapshot current = snapshot.get();
+        List<Food> foods = current.getFoods().stream()
+                .filter(food -> !food.getId().equals(id))
+                .collect(Collectors.toCollection(ArrayList::new));
+        Map<Long, String> imageFiles = new HashMap<>(current.imageFiles);
+        imageFiles.remove(id);
+        if (event.getChangeType() != FoodCatalogChangedEvent.ChangeType.DELETED) {
+            foodRepository.findById(id).ifPresent(entity -> {
+                foods.add(prepare(entity));
+                putImageFile(imageFiles, entity);
+            });
+        }
+        Snapshot built = install(foods, imageFiles);
+        sample.stop(meterRegistry.timer("nutribattle.catalog.build", "kind", "incremental"));
+        log.info("Food {} {}, catalog snapshot v{}", id, event.getChangeType(), built.getVersion());
+    }
+    
+    private Snapshot install(List<Food> foods, Map<Long, String> imageFiles) {
+        Snapshot previous = snapshot.get();
+        Snapshot built = new Snapshot(previous != null ? previous.getVersion() + 1 : 1, Instant.now(),
+                foods, imageFiles);
+        snapshot.set(built);
+        return built;
+    }
+    
+    /**
+     * Local image file name of a food (stored image URLs without a scheme are file names)
+     */
+    private static void putImageFile(Map<Long, String> imageFiles, Food entity) {
+        String imageUrl = entity.getImageUrl();
+        if (imageUrl != null && !imageUrl.isEmpty() && !imageUrl.startsWith("http")) {
+            imageFiles.put(entity.getId(), imageUrl);
+        }
+    }
+    
+    /**
+     * Detached copy of a food, ready to serve: stored Nutri-Score (scored here if the row
+     * has none yet) and image URL on this server
+     */
+    private Food prepare(Food entity) {
+        Food food = new Food(entity.getName(), entity.getCategory(), entity.getType(),
+                entity.getCalories(), entity.getProtein(), entity.getFat(), entity.getSaturatedFat(),
+                entity.getCarbs(), entity.getSugar(), entity.getFiber(), entity.getSodium(),
+                entity.getVitaminA(), entity.getVitaminC(), entity.getCalcium(), entity.getIron(),
+                entity.getImageUrl(), entity.getDescription());
+        food.setId(entity.getId());
+        food.setMinPortionGrams(entity.getMinPortionGrams());
+        food.setMaxPortionGrams(entity.getMaxPortionGrams());
+        food.setNutriScore(entity.getNutriScore());
+        food.setNutriScoreValue(entity.getNutriScoreValue());
+        if (food.getNutriScore() == null) {
+            nutriScoreCalculator.applyNutriScore(food);
+        }
+        
+        // If imageUrl is just filename, prepend server URL
+        if (food.getImageUrl() != null && !food.getImageUrl().isEmpty() && !food.getImageUrl().startsWith("http")) {
+            food.setImageUrl(serverUrl + "/images/foods/" + food.getImageUrl());
+        }
+        return food;
+    }
+    
+    /**
+     * One immutable version of the catalog with its lookup maps. The Food objects it returns
+     * are shared by every reader of the snapshot: callers must not modify them.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final Instant builtAt;
+        private final List<Food> foods;
+        private final Map<Long, Food> byId;
+        private final Map<String, List<Food>> byType;      // Keyed lowercase, like the database collation
+        private final Map<String, List<Food>> byCategory;  // Keyed lowercase
+        private final List<String> categories;
+        private final String[] lowercaseNames;
+        private final Map<Long, String> imageFiles;
+        
+        Snapshot(long version, Instant builtAt, List<Food> foods, Map<Long, String> imageFiles) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.imageFiles = Map.copyOf(imageFiles);
+            List<Food> sorted = new ArrayList<>(foods);
+            sorted.sort(Comparator.comparing(Food::getId));
+            this.foods = Collections.unmodifiableList(sorted);
+            
+            Map<Long, Food> ids = new HashMap<>();
+            Map<String, List<Food>> types = new HashMap<>();
+            Map<String, List<Food>> categoryMap = new HashMap<>();
+            TreeSet<String> categoryNames = new TreeSet<>();
+            lowercaseNames = new String[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                Food food = sorted.get(i);
+                ids.put(food.getId(), food);
+                types.computeIfAbsent(lower(food.getType()), key -> new ArrayList<>()).add(food);
+                categoryMap.computeIfAbsent(lower(food.getCategory()), key -> new ArrayList<>()).add(food);
+                if (food.getCategory() != null) {
+                    categoryNames.add(food.getCategory());
+                }
+                lowercaseNames[i] = lower(food.getName());
+            }
+            types.replaceAll((key, list) -> Collections.unmodifiableList(list));
+            categoryMap.replaceAll((key, list) -> Collections.unmodifiableList(list));
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byType = Collections.unmodifiableMap(types);
+            this.byCategory = Collections.unmodifiableMap(categoryMap);
+            this.categories = List.copyOf(categoryNames);
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public Instant getBuiltAt() {
+            return builtAt;
+        }
+        
+        public int size() {
+            return foods.size();
+        }
+        
+        /**
+         * All foods in id order (shared, read-only)
+         */
+        public List<Food> getFoods() {
+            return foods;
+        }
+        
+        /**
+         * Food with the id, or null (shared, read-only)
+         */
+        public Food getFood(Long id) {
+            return byId.get(id);
+        }
+        
+        /**
+         * Foods of a type in id order, ignoring case (shared, read-only)
+         */
+        public List<Food> getFoodsByType(String type) {
+            return byType.getOrDefault(lower(type), List.of());
+        }
+        
+        /**
+         * Foods of a category in id order, ignoring case (shared, read-only)
+         */
+        public List<Food> getFoodsByCategory(String category) {
+            return byCategory.getOrDefault(lower(category), List.of());
+        }
+        
+        /**
+         * File name of the food's image under the local images folder, or null
+         */
+        public String getImageFile(Long id) {
+            return imageFiles.get(id);
+        }
+        
+        /**
+         * Distinct categories, sorted
+         */
+        public List<String> getCategories() {
+            return categories;
+        }
+        
+        /**
+         * Foods whose name contains the text, ignoring case (shared, read-only)
+         */
+        public List<Food> searchByName(String text) {
+            String needle = lower(text);
+            List<Food> matches = new ArrayList<>();
+            for (int i = nextNameMatch(needle, 0); i >= 0; i = nextNameMatch(needle, i + 1)) {
+                matches.add(foods.get(i));
+            }
+            return matches;
+        }
+        
+        /**
+         * Position in getFoods() of the next food at or after 'from' whose lowercase name
+         * contains the (lowercase) needle, or -1
+         */
+        public int nextNameMatch(String needle, int from) {
+            for (int i = from; i < lowercaseNames.length; i++) {
+                if (lowercaseNames[i].contains(needle)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Position of the first food with an id above the given one in an id-ordered list
+         * (such as getFoods() or getFoodsByType()), by binary search
+         */
+        public static int indexAfter(List<Food> idOrdered, long id) {
+            int low = 0;
+            int high = idOrdered.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (idOrdered.get(middle).getId() <= id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        
+        private static String lower(String value) {
+            return value != null ? value.toLowerCase(Locale.ROOT) : "";
+        }
+    }
+}
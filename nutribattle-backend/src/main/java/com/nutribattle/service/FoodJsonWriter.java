@@ -0,0 +1,114 @@
+// File: src/main/java/com/nutribattle/service/FoodJsonWriter.java
+
+package com.nutribattle.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nutribattle.dto.FoodView;
+import com.nutribattle.entity.Food;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Writes food listings as a JSON array of FoodView, either streamed one element at a
+ * time or serialized into one buffer, and records for each response the time from the
+ * request reaching the controller to its first byte (nutribattle.foods.response.first-byte)
+ * and the bytes allocated while writing it (nutribattle.foods.response.allocated),
+ * both tagged with the endpoint and mode=stream|buffered.
+ */
+@Component
+public class FoodJsonWriter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ObjectWriter viewWriter;
+
+    public FoodJsonWriter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        // Flushing after every element would push each one to the socket on its own
+        this.viewWriter = objectMapper.writerFor(FoodView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Body that converts and writes one food at a time, so the response never exists in memory whole
+     * @param startNanos System.nanoTime() when the request reached the controller
+     */
+    public StreamingResponseBody stream(String endpoint, List<Food> foods, long startNanos) {
+        return output -> write(endpoint, foods, output, startNanos);
+    }
+
+    void write(String endpoint, List<Food> foods, OutputStream output, long startNanos) throws IOException {
+        long allocatedBefore = allocatedBytes();
+        try (JsonGenerator generator = viewWriter.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            for (int i = 0; i < foods.size(); i++) {
+                viewWriter.writeValue(generator, FoodView.of(foods.get(i)));
+                if (i == 0) {
+                    generator.flush();
+                    recordFirstByte(endpoint, "stream", startNanos);
+                }
+            }
+            generator.writeEndArray();
+        }
+        if (foods.isEmpty()) {
+            recordFirstByte(endpoint, "stream", startNanos);
+        }
+        recordAllocated(endpoint, "stream", allocatedBefore);
+    }
+
+    /**
+     * The whole array serialized at once, for small responses such as a page
+     */
+    public byte[] buffered(String endpoint, List<Food> foods, long startNanos) throws IOException {
+        long allocatedBefore = allocatedBytes();
+        List<FoodView> views = foods.stream().map(FoodView::of).collect(Collectors.toList());
+        byte[] body = objectMapper.writeValueAsBytes(views);
+        recordAllocated(endpoint, "buffered", allocatedBefore);
+        // The container sends the body right after the handler returns
+        recordFirstByte(endpoint, "buffered", startNanos);
+        return body;
+    }
+
+    private void recordFirstByte(String endpoint, String mode, long startNanos) {
+        meterRegistry.timer("nutribattle.foods.response.first-byte", "endpoint", endpoint, "mode", mode)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordAllocated(String endpoint, String mode, long allocatedBefore) {
+        if (allocatedBefore < 0) {
+            return;
+        }
+        DistributionSummary.builder("nutribattle.foods.response.allocated")
+                .baseUnit("bytes")
+                .tags("endpoint", endpoint, "mode", mode)
+                .register(meterRegistry)
+                .record(allocatedBytes() - allocatedBefore);
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or -1 where the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,244 @@
+// File: src/main/java/com/nutribattle/service/FoodNeighborStore.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.service.KnnRecommendationService.RecommendationMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Materialized food-neighbour graph: the top MAX_NEIGHBORS exact neighbours of
+ * every food under each RecommendationMode, so a recommendation request is a keyed lookup.
+ *
+ * The full graph is computed in parallel (fork-join) at startup. After an admin edit
+ * only the affected foods are recomputed: the edited food itself, foods whose list
+ * contained it, and foods it is now close enough to enter.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FoodNeighborStore {
+
+    public static final int MAX_NEIGHBORS = 10;
+
+    private static final RecommendationMode[] MODES = RecommendationMode.values();
+    private static final int BUILD_CHUNK = 64;
+
+    private final FoodVectorIndex foodVectorIndex;
+    private final MeterRegistry meterRegistry;
+
+    // Swapped wholesale on full rebuild, updated per food on incremental changes
+    private volatile Map<Long, Entry> entries;
+
+    /**
+     * Neighbours of one food for one mode: food ids and squared distances, closest first
+     */
+    public static final class NeighborList {
+        private final long[] foodIds;
+        private final double[] distances;
+
+        NeighborList(long[] foodIds, double[] distances) {
+            this.foodIds = foodIds;
+            this.distances = distances;
+        }
+
+        public int size() {
+            return foodIds.length;
+        }
+
+        public long foodIdAt(int i) {
+            return foodIds[i];
+        }
+
+        public double distanceAt(int i) {
+            return distances[i];
+        }
+
+        boolean contains(long foodId) {
+            for (long id : foodIds) {
+                if (id == foodId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * All mode lists of one food, indexed by RecommendationMode ordinal
+     */
+    private static final class Entry {
+        private final NeighborList[] lists;
+
+        Entry(NeighborList[] lists) {
+            this.lists = lists;
+        }
+    }
+
+    /**
+     * Look up the stored neighbours of a food, or null if the store has no entry for it
+     */
+    public NeighborList lookup(Long foodId, RecommendationMode mode) {
+        Map<Long, Entry> current = entries;
+        if (current == null || foodId == null) {
+            return null;
+        }
+        Entry entry = current.get(foodId);
+        return entry != null ? entry.lists[mode.ordinal()] : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Full rebuild of every food's neighbour lists, in parallel
+     */
+    public synchronized void rebuild() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+
+        Entry[] computed = new Entry[snapshot.size()];
+        ForkJoinPool.commonPool().invoke(new BuildTask(snapshot, computed, 0, snapshot.size()));
+
+        Map<Long, Entry> rebuilt = new ConcurrentHashMap<>(Math.max(16, snapshot.size() * 2));
+        for (int slot = 0; slot < computed.length; slot++) {
+            rebuilt.put(snapshot.idOf(slot), computed[slot]);
+        }
+        entries = rebuilt;
+
+        long nanos = sample.stop(meterRegistry.timer("nutribattle.knn.neighbors.rebuild"));
+        log.info("Food neighbour store built for {} foods x {} modes in {} ms",
+                snapshot.size(), MODES.length, nanos / 1_000_000);
+    }
+
+    /**
+     * Incrementally refresh the foods affected by an admin edit
+     * (runs after FoodVectorIndex has swapped in the new snapshot)
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onCatalogChanged(FoodCatalogChangedEvent event) {
+        Map<Long, Entry> current = entries;
+        if (current == null) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        long changedId = event.getFoodId();
+        int changedSlot = snapshot.slotOf(changedId);
+
+        if (changedSlot < 0) {
+            current.remove(changedId);
+        }
+
+        int[] affected = IntStream.range(0, snapshot.size())
+                .parallel()
+                .filter(slot -> slot == changedSlot || isAffected(snapshot, current, slot, changedId, changedSlot))
+                .toArray();
+
+        Entry[] computed = new Entry[affected.length];
+        IntStream.range(0, affected.length)
+                .parallel()
+                .forEach(i -> computed[i] = compute(snapshot, affected[i]));
+        for (int i = 0; i < affected.length; i++) {
+            current.put(snapshot.idOf(affected[i]), computed[i]);
+        }
+
+        long nanos = sample.stop(meterRegistry.timer("nutribattle.knn.neighbors.incremental"));
+        log.info("Food neighbour store updated {} foods after food {} {} in {} us",
+                affected.length, changedId, event.getChangeType(), nanos / 1_000);
+    }
+
+    /**
+     * Whether the lists of the food at slot may change because of the edited food
+     */
+    private static boolean isAffected(FoodVectorIndex.Snapshot snapshot, Map<Long, Entry> current,
+                                      int slot, long changedId, int changedSlot) {
+        Entry entry = current.get(snapshot.idOf(slot));
+        if (entry == null) {
+            return true;
+        }
+        double distance = changedSlot >= 0 ? snapshot.distance(slot, changedSlot) : 0;
+        for (RecommendationMode mode : MODES) {
+            NeighborList list = entry.lists[mode.ordinal()];
+            // It held the changed food: the food moved or is gone
+            if (list.contains(changedId)) {
+                return true;
+            }
+            if (changedSlot < 0) {
+                continue;
+            }
+            // The changed food may now belong in this list
+            int[] filters = snapshot.filtersFor(slot, mode);
+            if (filters != null && snapshot.matches(changedSlot, filters[0], filters[1])
+                    && (list.size() < MAX_NEIGHBORS || distance <= list.distanceAt(list.size() - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry compute(FoodVectorIndex.Snapshot snapshot, int slot) {
+        NeighborList[] lists = new NeighborList[MODES.length];
+        for (RecommendationMode mode : MODES) {
+            int[] filters = snapshot.filtersFor(slot, mode);
+            TopKNeighbors top = filters != null
+                    ? snapshot.nearest(slot, MAX_NEIGHBORS, filters[0], filters[1])
+                    : new TopKNeighbors(0);
+
+            long[] foodIds = new long[top.size()];
+            double[] distances = new double[top.size()];
+            for (int i = 0; i < top.size(); i++) {
+                foodIds[i] = snapshot.idOf(top.slotAt(i));
+                distances[i] = top.distanceAt(i);
+            }
+            lists[mode.ordinal()] = new NeighborList(foodIds, distances);
+        }
+        return new Entry(lists);
+    }
+
+    /**
+     * Fork-join task computing the entries of a slot range
+     */
+    private static final class BuildTask extends RecursiveAction {
+        private final FoodVectorIndex.Snapshot snapshot;
+        private final Entry[] target;
+        private final int from;
+        private final int to;
+
+        BuildTask(FoodVectorIndex.Snapshot snapshot, Entry[] target, int from, int to) {
+            this.snapshot = snapshot;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BUILD_CHUNK) {
+                for (int slot = from; slot < to; slot++) {
+                    target[slot] = FoodNeighborStore.compute(snapshot, slot);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BuildTask(snapshot, target, from, mid), new BuildTask(snapshot, target, mid, to));
+        }
+    }
+}
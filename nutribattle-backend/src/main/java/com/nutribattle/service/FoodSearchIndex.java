@@ -0,0 +1,564 @@
+// File: src/main/java/com/nutribattle/service/FoodSearchIndex.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.FoodSuggestion;
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.event.FoodCatalogRebuiltEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Ranked, typo-tolerant search over food names, categories and descriptions.
+ *
+ * Text is folded (lowercase, no accents, "mo:mo" -> "momo", common romanization variants
+ * such as sh/s and chh/ch merged) and split into terms. Terms go into a prefix trie for
+ * exact, prefix and fuzzy matches (a Levenshtein automaton walked over the trie), and
+ * their trigrams into postings for matches inside longer words and for names typed
+ * joined or split ("selroti" for "Sel Roti"). Admin edits re-index only the changed food;
+ * anything else that changes the catalog rebuilds the index from the event, never on a query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FoodSearchIndex {
+
+    // Fields a term occurs in, as bits of a mask
+    static final int NAME = 1;
+    static final int CATEGORY = 2;
+    static final int DESCRIPTION = 4;
+
+    private static final double[] FIELD_WEIGHTS = {3.0, 1.5, 0.5}; // name, category, description
+
+    // Score of each kind of match, as a share of the field weight
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.8;
+    private static final double SUBSTRING = 0.5;
+    private static final double PER_EDIT = 0.3; // Lost per typo
+    private static final double NAME_EQUALS_BONUS = 3.0;
+    private static final double NAME_PREFIX_BONUS = 1.5;
+    private static final double MIN_SIMILARITY = 0.45; // Dice coefficient of name trigrams
+
+    // Spellings romanized Nepali uses interchangeably, folded the same way in foods and queries
+    private static final String[][] ROMANIZATION_FOLDS = {
+            {"chh", "ch"}, {"sh", "s"}, {"ph", "f"}, {"w", "v"}, {"z", "j"}, {"ee", "i"}, {"oo", "u"}
+    };
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final FoodCatalog foodCatalog;
+    private final MeterRegistry meterRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final PrefixTrie trie = new PrefixTrie();
+    private final Map<Long, Map<Long, Integer>> trigrams = new HashMap<>(); // Trigram -> food id -> field mask
+    private long catalogVersion = -1; // Catalog version indexed, -1 before the first build
+
+    /**
+     * Folded text and terms of one food, kept to take it out of the index again
+     */
+    private static final class Document {
+        private final String[] fields = new String[3];
+        private final String compactName;
+        private final Map<String, Integer> terms = new HashMap<>();
+        private final Map<Long, Integer> grams = new HashMap<>();
+
+        Document(Food food) {
+            fields[0] = fold(food.getName());
+            fields[1] = fold(food.getCategory());
+            fields[2] = fold(food.getDescription());
+            compactName = fields[0].replace(" ", "");
+            for (int field = 0; field < fields.length; field++) {
+                int mask = 1 << field;
+                for (String term : split(fields[field])) {
+                    terms.merge(term, mask, (a, b) -> a | b);
+                    for (long gram : trigramsOf(term)) {
+                        grams.merge(gram, mask, (a, b) -> a | b);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A matching food while ranking
+     */
+    private static final class Hit {
+        private final long id;
+        private double score;
+        private int matchedWords;
+        private int edits;
+
+        Hit(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Best match of one query word in one food
+     */
+    private static final class Match {
+        private double score;
+        private int edits;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * The catalog was reloaded as a whole: catch up before the next query arrives
+     */
+    @EventListener
+    public void onCatalogRebuilt(FoodCatalogRebuiltEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Index every food of the current catalog snapshot, unless it already is
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        FoodCatalog.Snapshot snapshot;
+        int terms;
+        int grams;
+        lock.writeLock().lock();
+        try {
+            // Callers that queued on the lock find the work done
+            snapshot = foodCatalog.getSnapshot();
+            if (catalogVersion == snapshot.getVersion()) {
+                return;
+            }
+            documents.clear();
+            trie.clear();
+            trigrams.clear();
+            for (Food food : snapshot.getFoods()) {
+                add(food);
+            }
+            catalogVersion = snapshot.getVersion();
+            terms = trie.size();
+            grams = trigrams.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        meterRegistry.timer("nutribattle.search.build").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Search index built over {} foods ({} terms, {} trigrams) in {} ms",
+                snapshot.size(), terms, grams, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Re-index the changed food only
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 2) // After FoodCatalog has swapped in the change
+    public void onCatalogChanged(FoodCatalogChangedEvent event) {
+        FoodCatalog.Snapshot snapshot = foodCatalog.getSnapshot();
+        lock.writeLock().lock();
+        try {
+            if (catalogVersion < 0 || catalogVersion == snapshot.getVersion()) {
+                return; // Not built yet, or already caught up by a rebuild
+            }
+            if (event.getFoodId() != null && catalogVersion == snapshot.getVersion() - 1) {
+                remove(event.getFoodId());
+                Food food = snapshot.getFood(event.getFoodId());
+                if (food != null) {
+                    add(food);
+                }
+                catalogVersion = snapshot.getVersion();
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Not a single-food change on top of what is indexed
+        rebuild();
+    }
+
+    /**
+     * Suggestions while typing: the last word may be unfinished (or misspelt)
+     */
+    public List<FoodSuggestion> typeahead(String query, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        FoodCatalog.Snapshot snapshot = current();
+        List<FoodSuggestion> suggestions = new ArrayList<>();
+        for (Hit hit : rank(query, limit, true)) {
+            Food food = snapshot.getFood(hit.id);
+            if (food == null) {
+                continue;
+            }
+            FoodSuggestion suggestion = new FoodSuggestion();
+            suggestion.setId(food.getId());
+            suggestion.setName(food.getName());
+            suggestion.setCategory(food.getCategory());
+            suggestion.setType(food.getType());
+            suggestion.setImageUrl(food.getImageUrl());
+            suggestion.setNutriScore(food.getNutriScore());
+            suggestion.setScore(Math.round(hit.score * 100.0) / 100.0);
+            suggestion.setEdits(hit.edits);
+            suggestions.add(suggestion);
+        }
+        sample.stop(meterRegistry.timer("nutribattle.search.typeahead"));
+        return suggestions;
+    }
+
+    /**
+     * Foods matching every word (or as many as possible), best first, forgiving typos
+     */
+    public List<Food> search(String query, int limit) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        FoodCatalog.Snapshot snapshot = current();
+        List<Food> foods = new ArrayList<>();
+        for (Hit hit : rank(query, limit, false)) {
+            Food food = snapshot.getFood(hit.id);
+            if (food != null) {
+                foods.add(food);
+            }
+        }
+        sample.stop(meterRegistry.timer("nutribattle.search.fuzzy"));
+        return foods;
+    }
+
+    /**
+     * Current catalog snapshot. Events keep the index caught up with it; a query only
+     * builds the index if it arrives before the first build (startup runners still going).
+     */
+    private FoodCatalog.Snapshot current() {
+        FoodCatalog.Snapshot snapshot = foodCatalog.getSnapshot();
+        if (indexedVersion() < 0) {
+            rebuild();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Catalog version the index reflects, -1 before the first build
+     */
+    long indexedVersion() {
+        lock.readLock().lock();
+        try {
+            return catalogVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> rank(String query, int limit, boolean typeahead) {
+        String[] words = split(fold(query));
+        if (words.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Hit> hits = new HashMap<>();
+            for (int w = 0; w < words.length; w++) {
+                Map<Long, Match> matches = matchWord(words[w], typeahead && w == words.length - 1);
+                matches.forEach((id, match) -> {
+                    Hit hit = hits.computeIfAbsent(id, Hit::new);
+                    hit.score += match.score;
+                    hit.matchedWords++;
+                    hit.edits += match.edits;
+                });
+            }
+            String compact = String.join("", words);
+            if (hits.isEmpty()) {
+                similarNames(compact, words.length, hits);
+            }
+
+            List<Hit> ranked = new ArrayList<>(hits.values());
+            for (Hit hit : ranked) {
+                String name = documents.get(hit.id).compactName;
+                if (name.equals(compact)) {
+                    hit.score += NAME_EQUALS_BONUS;
+                } else if (name.startsWith(compact)) {
+                    hit.score += NAME_PREFIX_BONUS;
+                }
+            }
+            ranked.sort(Comparator.comparingInt((Hit hit) -> -hit.matchedWords)
+                    .thenComparingDouble(hit -> -hit.score)
+                    .thenComparingInt(hit -> documents.get(hit.id).compactName.length())
+                    .thenComparingLong(hit -> hit.id));
+            return ranked.subList(0, Math.min(limit, ranked.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every food the word matches, with its best match: exact term, term it begins
+     * (while typing), term within a few typos, or inside a longer word
+     */
+    private Map<Long, Match> matchWord(String word, boolean prefix) {
+        Map<Long, Match> matches = new HashMap<>();
+        PrefixTrie.Node node = trie.find(word);
+        if (node != null) {
+            if (node.postings() != null) {
+                node.postings().forEach((id, mask) -> offer(matches, id, weight(mask) * EXACT, 0));
+            }
+            if (prefix) {
+                for (int i = 0; i < node.childCount(); i++) {
+                    PrefixTrie.forEachPosting(node.childAt(i),
+                            (id, mask) -> offer(matches, id, weight(mask) * PREFIX, 0));
+                }
+            }
+        }
+
+        int maxEdits = maxEdits(word.length());
+        if (maxEdits > 0) {
+            LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+            walk(trie.root(), automaton, automaton.start(), prefix, -1, matches);
+        }
+
+        if (word.length() >= 3) {
+            substring(word, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Depth-first walk of the trie, following only the branches the automaton keeps alive.
+     * For a prefix, a node within the edit budget accepts every term below it.
+     */
+    private void walk(PrefixTrie.Node node, LevenshteinAutomaton automaton, long[] state, boolean prefix,
+                      int prefixEdits, Map<Long, Match> matches) {
+        int distance = automaton.distance(state);
+        if (prefix && distance >= 0 && (prefixEdits < 0 || distance < prefixEdits)) {
+            prefixEdits = distance;
+        }
+        int edits = prefix ? prefixEdits : distance;
+        // Matches without typos were found by the exact and prefix lookups
+        if (edits > 0 && node.postings() != null) {
+            double share = (prefix ? PREFIX : EXACT) * (1 - PER_EDIT * edits);
+            node.postings().forEach((id, mask) -> offer(matches, id, weight(mask) * share, edits));
+        }
+        for (int i = 0; i < node.childCount(); i++) {
+            long[] next = new long[state.length];
+            if (automaton.step(state, node.labelAt(i), next)) {
+                walk(node.childAt(i), automaton, next, prefix, prefixEdits, matches);
+            } else if (prefix && prefixEdits > 0) {
+                double share = PREFIX * (1 - PER_EDIT * prefixEdits);
+                int typos = prefixEdits;
+                PrefixTrie.forEachPosting(node.childAt(i),
+                        (id, mask) -> offer(matches, id, weight(mask) * share, typos));
+            }
+        }
+    }
+
+    /**
+     * Foods with the word inside a longer word: candidates from the rarest of its
+     * trigrams, checked against the folded text
+     */
+    private void substring(String word, Map<Long, Match> matches) {
+        Map<Long, Integer> rarest = null;
+        for (long gram : trigramsOf(word)) {
+            Map<Long, Integer> postings = trigrams.get(gram);
+            if (postings == null) {
+                return;
+            }
+            if (rarest == null || postings.size() < rarest.size()) {
+                rarest = postings;
+            }
+        }
+        for (Long id : rarest.keySet()) {
+            Document document = documents.get(id);
+            int fields = 0;
+            for (int field = 0; field < document.fields.length; field++) {
+                if (document.fields[field].contains(word)) {
+                    fields |= 1 << field;
+                }
+            }
+            if (fields != 0) {
+                offer(matches, id, weight(fields) * SUBSTRING, 0);
+            }
+        }
+    }
+
+    /**
+     * Nothing matched word by word: names whose trigrams resemble the query with spaces
+     * removed, which catches names typed joined, split or with several typos
+     */
+    private void similarNames(String compact, int words, Map<Long, Hit> hits) {
+        Set<Long> queryGrams = new HashSet<>();
+        for (long gram : trigramsOf(compact)) {
+            queryGrams.add(gram);
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (long gram : queryGrams) {
+            Map<Long, Integer> postings = trigrams.get(gram);
+            if (postings != null) {
+                postings.forEach((id, mask) -> {
+                    if ((mask & NAME) != 0) {
+                        candidates.add(id);
+                    }
+                });
+            }
+        }
+        for (Long id : candidates) {
+            String name = documents.get(id).compactName;
+            Set<Long> nameGrams = new HashSet<>();
+            for (long gram : trigramsOf(name)) {
+                nameGrams.add(gram);
+            }
+            int shared = 0;
+            for (long gram : queryGrams) {
+                shared += nameGrams.contains(gram) ? 1 : 0;
+            }
+            double similarity = 2.0 * shared / (queryGrams.size() + nameGrams.size());
+            if (similarity >= MIN_SIMILARITY) {
+                Hit hit = new Hit(id);
+                hit.score = weight(NAME) * similarity;
+                hit.matchedWords = words;
+                hit.edits = editDistance(compact, name);
+                hits.put(id, hit);
+            }
+        }
+    }
+
+    private static void offer(Map<Long, Match> matches, long id, double score, int edits) {
+        Match match = matches.computeIfAbsent(id, key -> new Match());
+        if (score > match.score) {
+            match.score = score;
+            match.edits = edits;
+        }
+    }
+
+    /**
+     * Weight of the best field in the mask
+     */
+    private static double weight(int fieldMask) {
+        for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+            if ((fieldMask & (1 << field)) != 0) {
+                return FIELD_WEIGHTS[field];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Typos forgiven for a word of this length
+     */
+    static int maxEdits(int length) {
+        if (length < 3 || length > LevenshteinAutomaton.MAX_LENGTH) {
+            return 0;
+        }
+        return length < 6 ? 1 : 2;
+    }
+
+    private void add(Food food) {
+        Document document = new Document(food);
+        long id = food.getId();
+        documents.put(id, document);
+        document.terms.forEach((term, mask) -> trie.add(term, id, mask));
+        document.grams.forEach((gram, mask) ->
+                trigrams.computeIfAbsent(gram, key -> new HashMap<>()).merge(id, mask, (a, b) -> a | b));
+    }
+
+    private void remove(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        document.terms.keySet().forEach(term -> trie.remove(term, id));
+        for (long gram : document.grams.keySet()) {
+            Map<Long, Integer> postings = trigrams.get(gram);
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                trigrams.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Lowercase words without accents or punctuation, romanization variants merged
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        StringBuilder words = new StringBuilder(plain.length());
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= plain.length(); i++) {
+            char c = i < plain.length() ? plain.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (c == ':' || c == '\'' || c == '’' || c == '.') {
+                // Length marks and apostrophes join the word: "mo:mo", "ma'am"
+            } else if (word.length() > 0) {
+                if (words.length() > 0) {
+                    words.append(' ');
+                }
+                words.append(romanize(word.toString()));
+                word.setLength(0);
+            }
+        }
+        return words.toString();
+    }
+
+    private static String romanize(String word) {
+        for (String[] fold : ROMANIZATION_FOLDS) {
+            word = word.replace(fold[0], fold[1]);
+        }
+        // Doubled letters: "aalu" and "alu", "achaar" and "achar"
+        StringBuilder single = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            if (i == 0 || word.charAt(i) != word.charAt(i - 1) || Character.isDigit(word.charAt(i))) {
+                single.append(word.charAt(i));
+            }
+        }
+        return single.toString();
+    }
+
+    private static String[] split(String folded) {
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+
+    /**
+     * Trigrams of a word, three chars packed into a long; none for words under three chars
+     */
+    private static long[] trigramsOf(String word) {
+        if (word.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[word.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) word.charAt(i) << 32) | ((long) word.charAt(i + 1) << 16) | word.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                row[j] = Math.min(substitution, Math.min(previous[j], row[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -3,221 +3,339 @@
 package com.nutribattle.service;
 
 import com.nutribattle.entity.Food;
-import com.nutribattle.repository.FoodRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
  * Service class for Food-related business logic
- * UPDATED: Check for actual file existence
+ * Homepage foods are drawn from Traditional and Modern pools of foods whose image is
+ * listed in the ImageManifest, rebuilt when the catalog or the image folder changes.
+ * Reads are served from the in-memory FoodCatalog snapshot, without SQL. Every Food
+ * returned here is a shared snapshot object: callers must not modify it (the lists
+ * themselves may be fresh copies, but their elements never are).
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FoodService {
     
-    private final FoodRepository foodRepository;
-    private final NutriScoreCalculator nutriScoreCalculator;
+    private final FoodCatalog foodCatalog;
+    private final ImageManifest imageManifest;
     
-    @Value("${server.url:http://localhost:8080}")
-    private String serverUrl;
+    // Largest page the keyset endpoints hand out
+    public static final int MAX_PAGE_SIZE = 500;
     
-    // Path to images folder
-    private static final String IMAGE_PATH = "src/main/resources/static/images/foods/";
+    private volatile HomepagePools homepagePools;
     
     /**
-     * Get random foods for display with image URL processing
+     * Get random foods for display with image URL processing (shared, read-only)
      */
     public List<Food> getRandomFoods(int limit) {
-        List<Food> allFoods = foodRepository.findAll();
-        
-        // Shuffle the list
-        Collections.shuffle(allFoods);
-        
-        // Return the first 'limit' items with Nutri-Score calculated and image URLs processed
-        return allFoods.stream()
-                .limit(limit)
-                .map(this::processFood)
-                .collect(Collectors.toList());
+        return shuffledRange(foodCatalog.getSnapshot().getFoods(), 0, limit, ThreadLocalRandom.current());
+    }
+    
+    /**
+     * One page of the catalog in a random order fixed by the seed: the same seed gives the
+     * same order on every request (while the catalog is unchanged), and pages never overlap
+     * (shared, read-only)
+     */
+    public List<Food> getRandomFoods(int limit, long seed, int page) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative: " + page);
+        }
+        List<Food> foods = foodCatalog.getSnapshot().getFoods();
+        long from = (long) page * limit;
+        if (from >= foods.size()) {
+            return new ArrayList<>();
+        }
+        return shuffledRange(foods, (int) from, (int) Math.min(from + limit, foods.size()), new Random(seed));
+    }
+    
+    /**
+     * Positions from..to of a random permutation of foods: a Fisher-Yates pass that stops
+     * at 'to', keeping only the swapped slots in a map instead of copying the whole list
+     */
+    private static List<Food> shuffledRange(List<Food> foods, int from, int to, Random random) {
+        int size = foods.size();
+        to = Math.min(to, size);
+        List<Food> result = new ArrayList<>(Math.max(to - from, 0));
+        Map<Integer, Integer> swapped = new HashMap<>();
+        for (int i = 0; i < to; i++) {
+            int j = i + random.nextInt(size - i);
+            int picked = swapped.getOrDefault(j, j);
+            // Slot i is never visited again, so only j needs to remember what moved there
+            swapped.put(j, swapped.getOrDefault(i, i));
+            if (i >= from) {
+                result.add(foods.get(picked));
+            }
+        }
+        return result;
     }
     
     /**
      * Get specific foods for homepage - ONLY foods with EXISTING image files
+     * Samples from the prebuilt Traditional and Modern pools in O(limit) (shared, read-only)
      */
     public List<Food> getHomepageFoods(int limit) {
-        List<Food> allFoods = foodRepository.findAll();
-        
-        // Filter only foods that have image URLs AND the file actually exists
-        List<Food> foodsWithExistingImages = allFoods.stream()
-                .filter(f -> f.getImageUrl() != null && !f.getImageUrl().isEmpty())
-                .filter(this::imageFileExists)
-                .collect(Collectors.toList());
-        
-        log.info("Total foods with existing image files: {}", foodsWithExistingImages.size());
-        
-        // Separate into traditional and modern
-        List<Food> traditionalFoods = foodsWithExistingImages.stream()
-                .filter(f -> "Traditional".equals(f.getType()))
-                .collect(Collectors.toList());
-        
-        List<Food> modernFoods = foodsWithExistingImages.stream()
-                .filter(f -> "Modern".equals(f.getType()))
-                .collect(Collectors.toList());
-        
-        log.info("Traditional foods with images: {}, Modern foods with images: {}", 
-                traditionalFoods.size(), modernFoods.size());
-        
-        // Shuffle both lists
-        Collections.shuffle(traditionalFoods);
-        Collections.shuffle(modernFoods);
+        HomepagePools current = homepagePools();
         
-        // Create balanced mix
-        List<Food> mixedFoods = new ArrayList<>();
-        int halfLimit = limit / 2;
+        // Create balanced mix: half traditional, then modern, then extras from whichever has them
+        int traditionalCount = Math.min(limit / 2, current.traditional.length);
+        int modernCount = Math.min(limit - traditionalCount, current.modern.length);
+        int needed = limit - traditionalCount - modernCount;
+        int additionalTraditional = Math.min(needed, current.traditional.length - traditionalCount);
+        traditionalCount += additionalTraditional;
+        modernCount += Math.min(needed - additionalTraditional, current.modern.length - modernCount);
         
-        // Add traditional foods (up to halfLimit or available count)
-        int traditionalCount = Math.min(halfLimit, traditionalFoods.size());
-        mixedFoods.addAll(traditionalFoods.stream()
-                .limit(traditionalCount)
-                .collect(Collectors.toList()));
+        List<Food> mixedFoods = new ArrayList<>(traditionalCount + modernCount);
+        Random random = ThreadLocalRandom.current();
+        sample(current.traditional, traditionalCount, random, mixedFoods);
+        sample(current.modern, modernCount, random, mixedFoods);
         
-        // Add modern foods (fill remaining slots)
-        int modernCount = Math.min(limit - traditionalCount, modernFoods.size());
-        mixedFoods.addAll(modernFoods.stream()
-                .limit(modernCount)
-                .collect(Collectors.toList()));
+        // Shuffle the mixed list so they're not grouped
+        Collections.shuffle(mixedFoods, random);
+        return mixedFoods;
+    }
+    
+    /**
+     * Foods with an existing image, by type; rebuilt when the catalog or the image files change
+     */
+    private static final class HomepagePools {
+        private final long catalogVersion;
+        private final long imagesVersion;
+        private final Food[] traditional;
+        private final Food[] modern;
         
-        // If we still don't have enough, add more from whichever has extras
-        if (mixedFoods.size() < limit) {
-            int needed = limit - mixedFoods.size();
-            
-            // Try to add more traditional
-            if (traditionalFoods.size() > traditionalCount) {
-                int additionalTraditional = Math.min(needed, traditionalFoods.size() - traditionalCount);
-                mixedFoods.addAll(traditionalFoods.stream()
-                        .skip(traditionalCount)
-                        .limit(additionalTraditional)
-                        .collect(Collectors.toList()));
-                needed -= additionalTraditional;
-            }
-            
-            // Try to add more modern
-            if (needed > 0 && modernFoods.size() > modernCount) {
-                int additionalModern = Math.min(needed, modernFoods.size() - modernCount);
-                mixedFoods.addAll(modernFoods.stream()
-                        .skip(modernCount)
-                        .limit(additionalModern)
-                        .collect(Collectors.toList()));
+        HomepagePools(FoodCatalog.Snapshot catalog, ImageManifest images, long imagesVersion) {
+            this.catalogVersion = catalog.getVersion();
+            this.imagesVersion = imagesVersion;
+            List<Food> traditionalFoods = new ArrayList<>();
+            List<Food> modernFoods = new ArrayList<>();
+            for (Food food : catalog.getFoods()) {
+                if (!images.contains(catalog.getImageFile(food.getId()))) {
+                    continue;
+                }
+                if ("Traditional".equals(food.getType())) {
+                    traditionalFoods.add(food);
+                } else if ("Modern".equals(food.getType())) {
+                    modernFoods.add(food);
+                }
             }
+            this.traditional = traditionalFoods.toArray(new Food[0]);
+            this.modern = modernFoods.toArray(new Food[0]);
         }
-        
-        // Shuffle the mixed list so they're not grouped
-        Collections.shuffle(mixedFoods);
-        
-        log.info("Returning {} foods for homepage", mixedFoods.size());
-        
-        // Process and return
-        return mixedFoods.stream()
-                .map(this::processFood)
-                .collect(Collectors.toList());
+    }
+    
+    private HomepagePools homepagePools() {
+        FoodCatalog.Snapshot catalog = foodCatalog.getSnapshot();
+        long imagesVersion = imageManifest.getVersion();
+        HomepagePools current = homepagePools;
+        if (current == null || current.catalogVersion != catalog.getVersion() || current.imagesVersion != imagesVersion) {
+            current = new HomepagePools(catalog, imageManifest, imagesVersion);
+            homepagePools = current;
+            log.info("Homepage pools built: {} traditional and {} modern foods with images",
+                    current.traditional.length, current.modern.length);
+        }
+        return current;
     }
     
     /**
-     * Check if image file actually exists
+     * Add count distinct random foods of the pool (Floyd's algorithm, O(count))
      */
-    private boolean imageFileExists(Food food) {
-        if (food.getImageUrl() == null || food.getImageUrl().isEmpty()) {
-            return false;
-        }
-        
-        // Check if file exists
-        Path imagePath = Paths.get(IMAGE_PATH + food.getImageUrl());
-        boolean exists = Files.exists(imagePath);
-        
-        if (!exists) {
-            log.debug("Image file not found: {}", food.getImageUrl());
+    private static void sample(Food[] pool, int count, Random random, List<Food> target) {
+        Set<Integer> chosen = new HashSet<>(count * 2);
+        for (int j = pool.length - count; j < pool.length; j++) {
+            int candidate = random.nextInt(j + 1);
+            int pick = chosen.add(candidate) ? candidate : j;
+            if (pick == j) {
+                chosen.add(j);
+            }
+            target.add(pool[pick]);
         }
-        
-        return exists;
     }
     
     /**
-     * Get all foods
+     * Get all foods (shared, read-only)
      */
     public List<Food> getAllFoods() {
-        return foodRepository.findAll().stream()
-                .map(this::processFood)
+        return foodCatalog.getSnapshot().getFoods();
+    }
+    
+    /**
+     * Get foods filtered by Nutri-Score grade and sorted
+     * @param grades Grades to keep (e.g. A, B); empty keeps every food
+     * @param sort "score" (best first), "name", "calories" or null for id order
+     * @return A new list of shared, read-only foods
+     */
+    public List<Food> getFoods(List<String> grades, String sort) {
+        Comparator<Food> order = sortFor(sort);
+        Set<String> normalized = normalizeGrades(grades);
+        return foodCatalog.getSnapshot().getFoods().stream()
+                .filter(food -> normalized.isEmpty() || normalized.contains(food.getNutriScore()))
+                .sorted(order)
                 .collect(Collectors.toList());
     }
     
+    private static Set<String> normalizeGrades(List<String> grades) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (grades != null) {
+            for (String grade : grades) {
+                String value = grade.trim().toUpperCase(Locale.ROOT);
+                if (!value.matches("[A-E]")) {
+                    throw new IllegalArgumentException("Invalid Nutri-Score grade: " + grade);
+                }
+                normalized.add(value);
+            }
+        }
+        return normalized;
+    }
+    
+    private Comparator<Food> sortFor(String sort) {
+        Comparator<Food> byId = Comparator.comparing(Food::getId);
+        if (sort == null || sort.isBlank()) {
+            return byId;
+        }
+        switch (sort.toLowerCase(Locale.ROOT)) {
+            case "score": return Comparator.comparing(Food::getNutriScoreValue,
+                    Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(byId);
+            case "name": return Comparator.comparing(Food::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+            case "calories": return Comparator.comparing(Food::getCalories).thenComparing(byId);
+            default: throw new IllegalArgumentException("Invalid sort: " + sort);
+        }
+    }
+    
     /**
-     * Get food by ID
+     * Get food by ID (shared, read-only)
      */
     public Food getFoodById(Long id) {
-        Food food = foodRepository.findById(id).orElse(null);
-        if (food != null) {
-            processFood(food);
-        }
-        return food;
+        return foodCatalog.getSnapshot().getFood(id);
     }
     
     /**
-     * Search foods by name
+     * Search foods by name (shared, read-only)
      */
     public List<Food> searchFoods(String name) {
-        return foodRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(this::processFood)
-                .collect(Collectors.toList());
+        return foodCatalog.getSnapshot().searchByName(name);
     }
     
     /**
-     * Get foods by type
+     * Get foods by type (shared, read-only)
      */
     public List<Food> getFoodsByType(String type) {
-        return foodRepository.findByType(type).stream()
-                .map(this::processFood)
-                .collect(Collectors.toList());
+        return foodCatalog.getSnapshot().getFoodsByType(type);
     }
     
     /**
      * Get all categories
      */
     public List<String> getAllCategories() {
-        return foodRepository.findAllCategories();
+        return foodCatalog.getSnapshot().getCategories();
     }
     
     /**
-     * Process food item - calculate Nutri-Score and format image URL
+     * One page of foods in id order, and the id to pass as 'after' for the next page
+     * (null on the last page)
      */
-    private Food processFood(Food food) {
-        // Calculate Nutri-Score
-        String nutriScore = nutriScoreCalculator.calculateNutriScore(food);
-        food.setNutriScore(nutriScore);
+    public static final class Page {
+        private final List<Food> foods;
+        private final Long nextAfter;
         
-        // Format image URL to use local server path
-        if (food.getImageUrl() != null && !food.getImageUrl().isEmpty()) {
-            // If imageUrl is just filename, prepend server URL
-            if (!food.getImageUrl().startsWith("http")) {
-                food.setImageUrl(serverUrl + "/images/foods/" + food.getImageUrl());
-            }
+        Page(List<Food> foods, Long nextAfter) {
+            this.foods = foods;
+            this.nextAfter = nextAfter;
         }
         
-        // Truncate description if too long for card display
-        if (food.getDescription() != null && food.getDescription().length() > 100) {
-            // Keep original description but frontend will truncate for display
+        /**
+         * The page's foods (shared, read-only)
+         */
+        public List<Food> getFoods() {
+            return foods;
         }
         
-        return food;
+        public Long getNextAfter() {
+            return nextAfter;
+        }
+    }
+    
+    /**
+     * Page of foods with an id above 'after' (null for the first page), optionally filtered by grade
+     */
+    public Page getFoodsPage(List<String> grades, Long after, int limit) {
+        Set<String> normalized = normalizeGrades(grades);
+        List<Food> foods = foodCatalog.getSnapshot().getFoods();
+        if (normalized.isEmpty()) {
+            return slice(foods, after, limit);
+        }
+        checkLimit(limit);
+        List<Food> page = new ArrayList<>(Math.min(limit, foods.size()));
+        int index = after != null ? FoodCatalog.Snapshot.indexAfter(foods, after) : 0;
+        for (; index < foods.size(); index++) {
+            if (normalized.contains(foods.get(index).getNutriScore())) {
+                if (page.size() == limit) {
+                    return new Page(page, page.get(limit - 1).getId());
+                }
+                page.add(foods.get(index));
+            }
+        }
+        return new Page(page, null);
+    }
+    
+    /**
+     * Page of foods of a type with an id above 'after'
+     */
+    public Page getFoodsByTypePage(String type, Long after, int limit) {
+        return slice(foodCatalog.getSnapshot().getFoodsByType(type), after, limit);
+    }
+    
+    /**
+     * Page of foods whose name contains the text, with an id above 'after'
+     */
+    public Page searchFoodsPage(String name, Long after, int limit) {
+        checkLimit(limit);
+        FoodCatalog.Snapshot snapshot = foodCatalog.getSnapshot();
+        List<Food> foods = snapshot.getFoods();
+        String needle = name.toLowerCase(Locale.ROOT);
+        List<Food> page = new ArrayList<>(Math.min(limit, foods.size()));
+        int from = after != null ? FoodCatalog.Snapshot.indexAfter(foods, after) : 0;
+        for (int index = snapshot.nextNameMatch(needle, from); index >= 0;
+             index = snapshot.nextNameMatch(needle, index + 1)) {
+            if (page.size() == limit) {
+                return new Page(page, page.get(limit - 1).getId());
+            }
+            page.add(foods.get(index));
+        }
+        return new Page(page, null);
+    }
+    
+    /**
+     * Unfiltered page: a view of the id-ordered list found by binary search, nothing is copied
+     */
+    private static Page slice(List<Food> idOrdered, Long after, int limit) {
+        checkLimit(limit);
+        int from = after != null ? FoodCatalog.Snapshot.indexAfter(idOrdered, after) : 0;
+        int to = (int) Math.min((long) from + limit, idOrdered.size());
+        List<Food> page = idOrdered.subList(from, to);
+        return new Page(page, to < idOrdered.size() ? page.get(page.size() - 1).getId() : null);
+    }
+    
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,589 @@
+// File: src/main/java/com/nutribattle/service/FoodVectorIndex.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.RecommendationConstraints;
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory index of normalized nutritional vectors used by the KNN engine.
+ * All vectors live in one flat double[] (DIMENSIONS values per food), so a
+ * query is pure CPU work without any database round trip.
+ * Exact KD-trees are built per partition (whole catalog, each category and
+ * each type) so every recommendation mode only searches its own subset.
+ * With app.knn.vector-precision=FLOAT32 or INT8 the double vectors and trees are
+ * replaced by a compact quantized copy: searches scan it coarsely and re-rank the
+ * best candidates exactly from the Food values, returning the same neighbours.
+ * The index is rebuilt and swapped atomically whenever the catalog changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FoodVectorIndex {
+
+    public static final int DIMENSIONS = 8;
+
+    /** Filter value meaning "no restriction" */
+    public static final int ANY = -1;
+
+    /** Candidates per block in batch scans (256 x 8 doubles = 16 KB of columns, fits in L1) */
+    private static final int BATCH_BLOCK = 256;
+
+    /** Coarse candidates re-ranked per requested neighbour in quantized mode (grown if the error bound needs it) */
+    private static final int RERANK_FACTOR = 4;
+    private static final int RERANK_MIN = 32;
+
+    /** A constraint mask this many times smaller than the partition is scanned directly instead of the tree */
+    private static final int MASK_SCAN_RATIO = 16;
+
+    /**
+     * Storage of the vectors: full doubles with KD-trees, or a compact quantized copy
+     */
+    public enum VectorPrecision {
+        DOUBLE, FLOAT32, INT8
+    }
+
+    private final FoodService foodService;
+
+    @Value("${app.knn.vector-precision:DOUBLE}")
+    private VectorPrecision precision = VectorPrecision.DOUBLE;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Get the current snapshot, building it on first use
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            rebuild();
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1) // Right after FoodCatalog has swapped in the change
+    public void onCatalogChanged(FoodCatalogChangedEvent event) {
+        log.info("Food {} {}, rebuilding vector index", event.getFoodId(), event.getChangeType());
+        rebuild();
+    }
+
+    /**
+     * Rebuild the index from the current catalog and swap it in
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        Snapshot built = Snapshot.of(foodService.getAllFoods(), precision);
+        snapshot.set(built);
+        log.info("Food vector index built with {} foods ({} vectors, {} KB) in {} ms",
+                built.size(), precision, built.vectorMemoryBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Write the normalized nutritional vector (0-1 scale) of a food into target at offset
+     * Null values are treated as 0
+     */
+    public static void writeVector(Food food, double[] target, int offset) {
+        target[offset]     = safeDouble(food.getCalories()) / 1000.0;    // Max ~1000 calories per 100g
+        target[offset + 1] = safeDouble(food.getProtein()) / 50.0;       // Max ~50g protein per 100g
+        target[offset + 2] = safeDouble(food.getFat()) / 100.0;          // Max ~100g fat per 100g
+        target[offset + 3] = safeDouble(food.getSaturatedFat()) / 50.0;  // Max ~50g saturated fat per 100g
+        target[offset + 4] = safeDouble(food.getCarbs()) / 100.0;        // Max ~100g carbs per 100g
+        target[offset + 5] = safeDouble(food.getSugar()) / 100.0;        // Max ~100g sugar per 100g
+        target[offset + 6] = safeDouble(food.getFiber()) / 50.0;         // Max ~50g fiber per 100g
+        target[offset + 7] = safeDouble(food.getSodium()) / 3000.0;      // Max ~3000mg sodium per 100g
+    }
+
+    private static double safeDouble(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    /**
+     * Immutable view of the catalog: foods sorted by id with their vectors,
+     * type and category stored as small integer codes.
+     * In DOUBLE mode vectors, columns and the trees are present and quantized is null;
+     * in the quantized modes it is the other way round.
+     */
+    public static final class Snapshot {
+
+        private final Food[] foods;
+        private final long[] ids;
+        private final double[] vectors;
+        private final double[] columns; // same values, dimension-major (struct-of-arrays) for distance kernels
+        private final int[] typeCodes;
+        private final int[] categoryCodes;
+        private final int[] typeCounts;
+        private final int[] categoryCounts;
+        private final QuantizedVectors quantized;
+        private final ConstraintIndex constraintIndex;
+        private final Map<String, Integer> typeCodeByName;
+        private final Map<String, Integer> categoryCodeByName;
+        private final KdTree globalTree;
+        private final KdTree[] typeTrees;
+        private final KdTree[] categoryTrees;
+
+        private Snapshot(Food[] foods, long[] ids, double[] vectors, int[] typeCodes, int[] categoryCodes,
+                         Map<String, Integer> typeCodeByName, Map<String, Integer> categoryCodeByName,
+                         VectorPrecision precision) {
+            this.foods = foods;
+            this.ids = ids;
+            this.typeCodes = typeCodes;
+            this.categoryCodes = categoryCodes;
+            this.typeCodeByName = typeCodeByName;
+            this.categoryCodeByName = categoryCodeByName;
+            this.typeCounts = countCodes(typeCodes, typeCodeByName.size());
+            this.categoryCounts = countCodes(categoryCodes, categoryCodeByName.size());
+            this.constraintIndex = new ConstraintIndex(foods);
+
+            if (precision != VectorPrecision.DOUBLE) {
+                // Only the compact copy is kept, exact values come from the foods themselves
+                this.quantized = QuantizedVectors.encode(vectors, DIMENSIONS, precision);
+                this.vectors = null;
+                this.columns = null;
+                this.globalTree = null;
+                this.typeTrees = null;
+                this.categoryTrees = null;
+                return;
+            }
+
+            this.quantized = null;
+            this.vectors = vectors;
+            int n = foods.length;
+            this.columns = new double[n * DIMENSIONS];
+            for (int slot = 0; slot < n; slot++) {
+                for (int d = 0; d < DIMENSIONS; d++) {
+                    columns[d * n + slot] = vectors[slot * DIMENSIONS + d];
+                }
+            }
+
+            int[] allSlots = new int[foods.length];
+            for (int slot = 0; slot < allSlots.length; slot++) {
+                allSlots[slot] = slot;
+            }
+            this.globalTree = KdTree.build(vectors, DIMENSIONS, allSlots);
+            this.typeTrees = buildPartitionTrees(typeCodes, typeCounts);
+            this.categoryTrees = buildPartitionTrees(categoryCodes, categoryCounts);
+        }
+
+        private static int[] countCodes(int[] codes, int partitions) {
+            int[] counts = new int[partitions];
+            for (int code : codes) {
+                counts[code]++;
+            }
+            return counts;
+        }
+
+        private KdTree[] buildPartitionTrees(int[] codes, int[] counts) {
+            int partitions = counts.length;
+            int[][] members = new int[partitions][];
+            int[] filled = new int[partitions];
+            for (int p = 0; p < partitions; p++) {
+                members[p] = new int[counts[p]];
+            }
+            for (int slot = 0; slot < codes.length; slot++) {
+                members[codes[slot]][filled[codes[slot]]++] = slot;
+            }
+
+            KdTree[] trees = new KdTree[partitions];
+            for (int p = 0; p < partitions; p++) {
+                trees[p] = KdTree.build(vectors, DIMENSIONS, members[p]);
+            }
+            return trees;
+        }
+
+        static Snapshot of(List<Food> catalog) {
+            return of(catalog, VectorPrecision.DOUBLE);
+        }
+
+        static Snapshot of(List<Food> catalog, VectorPrecision precision) {
+            Food[] foods = catalog.stream()
+                    .filter(f -> f.getId() != null)
+                    .sorted(Comparator.comparing(Food::getId))
+                    .toArray(Food[]::new);
+
+            int n = foods.length;
+            long[] ids = new long[n];
+            double[] vectors = new double[n * DIMENSIONS];
+            int[] typeCodes = new int[n];
+            int[] categoryCodes = new int[n];
+            Map<String, Integer> typeCodeByName = new HashMap<>();
+            Map<String, Integer> categoryCodeByName = new HashMap<>();
+
+            for (int slot = 0; slot < n; slot++) {
+                Food food = foods[slot];
+                ids[slot] = food.getId();
+                writeVector(food, vectors, slot * DIMENSIONS);
+                typeCodes[slot] = typeCodeByName.computeIfAbsent(food.getType(), t -> typeCodeByName.size());
+                categoryCodes[slot] = categoryCodeByName.computeIfAbsent(food.getCategory(), c -> categoryCodeByName.size());
+            }
+
+            return new Snapshot(foods, ids, vectors, typeCodes, categoryCodes,
+                    Collections.unmodifiableMap(typeCodeByName), Collections.unmodifiableMap(categoryCodeByName),
+                    precision);
+        }
+
+        public int size() {
+            return foods.length;
+        }
+
+        public VectorPrecision precision() {
+            return quantized != null ? quantized.precision() : VectorPrecision.DOUBLE;
+        }
+
+        /**
+         * Bytes held by the vector storage used for search (not counting the Food entities).
+         * DOUBLE holds two copies (row-major vectors and per-dimension columns), so compare
+         * the quantized sizes with half of its figure: FLOAT32 is 2x and INT8 about 8x smaller.
+         */
+        public long vectorMemoryBytes() {
+            if (quantized != null) {
+                return quantized.memoryBytes();
+            }
+            return (long) (vectors.length + columns.length) * Double.BYTES;
+        }
+
+        public Food getFood(int slot) {
+            return foods[slot];
+        }
+
+        /**
+         * Slot of a food id, or -1 if the food is not in the index
+         */
+        public int slotOf(Long foodId) {
+            if (foodId == null) {
+                return -1;
+            }
+            int slot = Arrays.binarySearch(ids, foodId);
+            return slot >= 0 ? slot : -1;
+        }
+
+        public int typeCodeOf(int slot) {
+            return typeCodes[slot];
+        }
+
+        public int categoryCodeOf(int slot) {
+            return categoryCodes[slot];
+        }
+
+        /**
+         * Code of a type name, or null if no food has that type
+         */
+        public Integer typeCode(String type) {
+            return typeCodeByName.get(type);
+        }
+
+        /**
+         * Category and type filters {category, type} that a recommendation mode implies
+         * for the food at slot, or null if no food can match (e.g. no opposite type exists)
+         */
+        public int[] filtersFor(int slot, KnnRecommendationService.RecommendationMode mode) {
+            switch (mode) {
+                case SAME_CATEGORY:
+                    return new int[] {categoryCodes[slot], ANY};
+                    
+                case OPPOSITE_CATEGORY:
+                    // Opposite TYPE (Traditional ↔ Modern)
+                    String oppositeType = "Traditional".equals(foods[slot].getType()) ? "Modern" : "Traditional";
+                    Integer oppositeTypeCode = typeCodeByName.get(oppositeType);
+                    return oppositeTypeCode != null ? new int[] {ANY, oppositeTypeCode} : null;
+                    
+                case MIXED:
+                default:
+                    return new int[] {ANY, ANY};
+            }
+        }
+
+        /**
+         * Whether the food at slot passes the category / type filters
+         */
+        public boolean matches(int slot, int requiredCategory, int requiredType) {
+            return (requiredCategory == ANY || categoryCodes[slot] == requiredCategory)
+                    && (requiredType == ANY || typeCodes[slot] == requiredType);
+        }
+
+        /**
+         * Slots of the foods satisfying the constraints, or null when there are none
+         * @throws IllegalArgumentException on an invalid grade
+         */
+        public BitSet allowedSlots(RecommendationConstraints constraints) {
+            return constraintIndex.allowedSlots(constraints);
+        }
+
+        /**
+         * Squared distance between the vectors of two slots
+         */
+        double distance(int slotA, int slotB) {
+            if (quantized != null) {
+                double[] query = new double[DIMENSIONS];
+                copyVector(slotA, query, 0);
+                return exactDistance(query, 0, slotB, new double[DIMENSIONS]);
+            }
+            int offsetA = slotA * DIMENSIONS;
+            int offsetB = slotB * DIMENSIONS;
+            double sum = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = vectors[offsetA + d] - vectors[offsetB + d];
+                sum += diff * diff;
+            }
+            return sum;
+        }
+
+        /**
+         * Exact squared distance from the query to a slot; in quantized mode the
+         * vector is recomputed from the Food values into scratch
+         */
+        private double exactDistance(double[] query, int queryOffset, int slot, double[] scratch) {
+            double[] source = vectors;
+            int offset = slot * DIMENSIONS;
+            if (quantized != null) {
+                writeVector(foods[slot], scratch, 0);
+                source = scratch;
+                offset = 0;
+            }
+            double sum = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = query[queryOffset + d] - source[offset + d];
+                sum += diff * diff;
+            }
+            return sum;
+        }
+
+        public long idOf(int slot) {
+            return ids[slot];
+        }
+
+        /**
+         * Copy the vector of a slot into target at offset
+         */
+        public void copyVector(int slot, double[] target, int offset) {
+            if (quantized != null) {
+                writeVector(foods[slot], target, offset);
+            } else {
+                System.arraycopy(vectors, slot * DIMENSIONS, target, offset, DIMENSIONS);
+            }
+        }
+
+        /**
+         * Number of foods in the partition selected by the filters (ANY = no restriction)
+         */
+        public int partitionSize(int requiredCategory, int requiredType) {
+            if (requiredCategory != ANY) {
+                return requiredCategory >= 0 && requiredCategory < categoryCounts.length
+                        ? categoryCounts[requiredCategory] : 0;
+            }
+            if (requiredType != ANY) {
+                return requiredType >= 0 && requiredType < typeCounts.length ? typeCounts[requiredType] : 0;
+            }
+            return foods.length;
+        }
+
+        /**
+         * Find the k nearest foods to the food at querySlot (which is excluded).
+         * Pass ANY for requiredCategory / requiredType to disable that filter.
+         * Returned distances are squared Euclidean distances, closest first.
+         */
+        TopKNeighbors nearest(int querySlot, int k, int requiredCategory, int requiredType) {
+            return nearest(querySlot, k, requiredCategory, requiredType, null);
+        }
+
+        /**
+         * Same as nearest, restricted to the slots set in allowed (null = no restriction).
+         * Always returns k results when k allowed foods exist in the partition.
+         */
+        TopKNeighbors nearest(int querySlot, int k, int requiredCategory, int requiredType, BitSet allowed) {
+            if (quantized != null) {
+                double[] query = new double[DIMENSIONS];
+                copyVector(querySlot, query, 0);
+                return nearest(query, 0, querySlot, k, requiredCategory, requiredType, allowed);
+            }
+            return nearest(vectors, querySlot * DIMENSIONS, querySlot, k, requiredCategory, requiredType, allowed);
+        }
+
+        /**
+         * Find the k nearest foods to an arbitrary query vector (DIMENSIONS values at queryOffset).
+         * The search runs on the smallest partition tree that covers the filters.
+         */
+        TopKNeighbors nearest(double[] query, int queryOffset, int excludeSlot,
+                              int k, int requiredCategory, int requiredType) {
+            return nearest(query, queryOffset, excludeSlot, k, requiredCategory, requiredType, null);
+        }
+
+        /**
+         * Arbitrary-query search restricted to the slots set in allowed (null = no restriction).
+         * The mask is checked inside the tree walk; a very selective mask is scanned directly.
+         */
+        TopKNeighbors nearest(double[] query, int queryOffset, int excludeSlot,
+                              int k, int requiredCategory, int requiredType, BitSet allowed) {
+            if (quantized != null) {
+                return nearestQuantized(query, queryOffset, excludeSlot, k, requiredCategory, requiredType, allowed);
+            }
+            if (allowed != null
+                    && (long) allowed.cardinality() * MASK_SCAN_RATIO <= partitionSize(requiredCategory, requiredType)) {
+                return nearestInMask(query, queryOffset, excludeSlot, k, requiredCategory, requiredType, allowed);
+            }
+            TopKNeighbors top = new TopKNeighbors(k);
+
+            if (requiredCategory != ANY) {
+                if (requiredCategory >= 0 && requiredCategory < categoryTrees.length) {
+                    // Category partitions are small, a type restriction is checked per candidate
+                    categoryTrees[requiredCategory].search(query, queryOffset, excludeSlot,
+                            requiredType != ANY ? typeCodes : null, requiredType, allowed, top);
+                }
+            } else if (requiredType != ANY) {
+                if (requiredType >= 0 && requiredType < typeTrees.length) {
+                    typeTrees[requiredType].search(query, queryOffset, excludeSlot, null, 0, allowed, top);
+                }
+            } else {
+                globalTree.search(query, queryOffset, excludeSlot, null, 0, allowed, top);
+            }
+
+            top.sortAscending();
+            return top;
+        }
+
+        /**
+         * Exact search over the set bits of a selective mask only
+         */
+        private TopKNeighbors nearestInMask(double[] query, int queryOffset, int excludeSlot,
+                                            int k, int requiredCategory, int requiredType, BitSet allowed) {
+            TopKNeighbors top = new TopKNeighbors(k);
+            double[] scratch = new double[DIMENSIONS];
+            for (int slot = allowed.nextSetBit(0); slot >= 0; slot = allowed.nextSetBit(slot + 1)) {
+                if (slot != excludeSlot && matches(slot, requiredCategory, requiredType)) {
+                    top.offer(slot, exactDistance(query, queryOffset, slot, scratch));
+                }
+            }
+            top.sortAscending();
+            return top;
+        }
+
+        /**
+         * Coarse scan over the quantized vectors, then exact re-rank of the best candidates.
+         * Every food left out has an approximate distance of at least the worst kept one, so
+         * its exact distance is at least (sqrt(worst coarse) - maxError)^2. When that bound
+         * does not clear the k-th exact distance the candidate pool grows and the search repeats,
+         * so the result is always identical to the exact search.
+         */
+        private TopKNeighbors nearestQuantized(double[] query, int queryOffset, int excludeSlot,
+                                               int k, int requiredCategory, int requiredType, BitSet allowed) {
+            double[] scratch = new double[DIMENSIONS];
+            int candidates = Math.max(k * RERANK_FACTOR, k + RERANK_MIN);
+            while (true) {
+                TopKNeighbors coarse = new TopKNeighbors(candidates);
+                for (int slot = 0; slot < foods.length; slot++) {
+                    if (slot != excludeSlot && matches(slot, requiredCategory, requiredType)
+                            && (allowed == null || allowed.get(slot))) {
+                        coarse.offer(slot, quantized.approximateDistance(query, queryOffset, slot));
+                    }
+                }
+
+                TopKNeighbors top = new TopKNeighbors(k);
+                for (int i = 0; i < coarse.size(); i++) {
+                    int slot = coarse.slotAt(i);
+                    top.offer(slot, exactDistance(query, queryOffset, slot, scratch));
+                }
+                top.sortAscending();
+
+                if (!coarse.isFull()) {
+                    return top; // every matching food was re-ranked
+                }
+                // Small slack covers rounding in the approximate distance itself
+                double bound = Math.sqrt(coarse.worstDistance()) - quantized.maxError() - 1e-9;
+                if (top.isFull() && bound > 0 && bound * bound > top.distanceAt(top.size() - 1)) {
+                    return top;
+                }
+                candidates *= RERANK_FACTOR;
+            }
+        }
+
+        /**
+         * Answer many queries with a single pass over the catalog.
+         * Candidates are processed in blocks that stay in cache while every query
+         * vector is scored against them by the distance kernel, instead of one full
+         * scan per query. filters[q] holds {category, type} for query q (ANY = no
+         * restriction); the query food itself is excluded. Results are sorted closest first.
+         */
+        TopKNeighbors[] nearestBatch(DistanceKernel kernel, int[] querySlots, int[] ks, int[][] filters) {
+            int n = foods.length;
+            int queries = querySlots.length;
+            TopKNeighbors[] tops = new TopKNeighbors[queries];
+            if (quantized != null) {
+                // No columns to stream over, each query runs its own coarse scan and re-rank
+                for (int q = 0; q < queries; q++) {
+                    tops[q] = nearest(querySlots[q], ks[q], filters[q][0], filters[q][1]);
+                }
+                return tops;
+            }
+            double[] queryVectors = new double[queries * DIMENSIONS];
+            for (int q = 0; q < queries; q++) {
+                tops[q] = new TopKNeighbors(ks[q]);
+                copyVector(querySlots[q], queryVectors, q * DIMENSIONS);
+            }
+
+            double[] blockDistances = new double[BATCH_BLOCK];
+            for (int blockStart = 0; blockStart < n; blockStart += BATCH_BLOCK) {
+                int blockEnd = Math.min(n, blockStart + BATCH_BLOCK);
+
+                for (int q = 0; q < queries; q++) {
+                    kernel.squaredDistances(columns, n, DIMENSIONS, blockStart, blockEnd,
+                            queryVectors, q * DIMENSIONS, blockDistances);
+
+                    int requiredCategory = filters[q][0];
+                    int requiredType = filters[q][1];
+                    int querySlot = querySlots[q];
+                    TopKNeighbors top = tops[q];
+                    for (int slot = blockStart; slot < blockEnd; slot++) {
+                        if (slot != querySlot && matches(slot, requiredCategory, requiredType)) {
+                            top.offer(slot, blockDistances[slot - blockStart]);
+                        }
+                    }
+                }
+            }
+
+            for (TopKNeighbors top : tops) {
+                top.sortAscending();
+            }
+            return tops;
+        }
+
+        /**
+         * Brute-force linear scan with the same contract as nearest, used as reference
+         */
+        TopKNeighbors nearestByScan(int querySlot, int k, int requiredCategory, int requiredType) {
+            TopKNeighbors top = new TopKNeighbors(k);
+            double[] query = new double[DIMENSIONS];
+            double[] scratch = new double[DIMENSIONS];
+            copyVector(querySlot, query, 0);
+
+            for (int slot = 0; slot < foods.length; slot++) {
+                if (slot == querySlot
+                        || (requiredCategory != ANY && categoryCodes[slot] != requiredCategory)
+                        || (requiredType != ANY && typeCodes[slot] != requiredType)) {
+                    continue;
+                }
+                top.offer(slot, exactDistance(query, 0, slot, scratch));
+            }
+
+            top.sortAscending();
+            return top;
+        }
+    }
+}
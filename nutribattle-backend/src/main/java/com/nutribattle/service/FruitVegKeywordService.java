@@ -0,0 +1,88 @@
+// File: src/main/java/com/nutribattle/service/FruitVegKeywordService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FruitVegKeyword;
+import com.nutribattle.repository.FoodRepository;
+import com.nutribattle.repository.FruitVegKeywordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Admin-managed keywords for the Nutri-Score fruit/vegetable/nut estimate.
+ * Adding one recompiles the calculator's keyword automata and re-scores
+ * only the foods whose category or name contains the new keyword.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FruitVegKeywordService {
+    
+    private final FruitVegKeywordRepository keywordRepository;
+    private final FoodRepository foodRepository;
+    private final NutriScoreCalculator nutriScoreCalculator;
+    private final FoodCatalog foodCatalog;
+    private final FoodVectorIndex foodVectorIndex;
+    
+    /**
+     * Load admin keywords before the startup runners import or re-score foods
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void loadKeywords() {
+        List<FruitVegKeyword> custom = keywordRepository.findAll();
+        nutriScoreCalculator.setCustomKeywords(custom);
+        log.info("Nutri-Score keywords loaded ({} added by admins)", custom.size());
+    }
+    
+    /**
+     * Built-in and admin keywords currently in use
+     */
+    public List<FruitVegKeyword> getKeywords() {
+        return nutriScoreCalculator.getKeywords();
+    }
+    
+    /**
+     * Add a keyword and re-score the foods it matches
+     * @return Number of foods whose stored Nutri-Score changed
+     */
+    public int addKeyword(String keyword, FruitVegKeyword.Field field, FruitVegKeyword.KeywordClass keywordClass) {
+        if (keyword == null || field == null || keywordClass == null) {
+            throw new IllegalArgumentException("Keyword, field and keywordClass are required");
+        }
+        String normalized = keyword.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.length() > 50) {
+            throw new IllegalArgumentException("Keyword must be 1-50 characters");
+        }
+        if (keywordRepository.existsByKeywordAndField(normalized, field)) {
+            throw new IllegalArgumentException("Keyword already exists: " + normalized);
+        }
+        
+        FruitVegKeyword saved = new FruitVegKeyword(normalized, field, keywordClass);
+        saved.setCreatedAt(LocalDateTime.now());
+        keywordRepository.save(saved);
+        nutriScoreCalculator.setCustomKeywords(keywordRepository.findAll());
+        
+        // Only foods containing the keyword can score differently now
+        List<Food> affected = field == FruitVegKeyword.Field.CATEGORY
+                ? foodRepository.findByCategoryContainingIgnoreCase(normalized)
+                : foodRepository.findByNameContainingIgnoreCase(normalized);
+        List<Food> changed = nutriScoreCalculator.applyNutriScores(affected);
+        if (!changed.isEmpty()) {
+            foodRepository.saveAll(changed);
+            // Grades changed but nutrients did not: fresh snapshots are enough
+            foodCatalog.rebuild();
+            foodVectorIndex.rebuild();
+        }
+        log.info("Nutri-Score keyword '{}' ({} {}) added: {} foods matched, {} re-scored",
+                normalized, field, keywordClass, affected.size(), changed.size());
+        return changed.size();
+    }
+}
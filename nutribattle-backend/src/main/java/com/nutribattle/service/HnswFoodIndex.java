@@ -0,0 +1,184 @@
+// File: src/main/java/com/nutribattle/service/HnswFoodIndex.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Approximate nearest-neighbour engine (HNSW) over the normalized food vectors.
+ * Opt-in: the graph is built at startup only when app.knn.engine=HNSW, otherwise
+ * on the first HNSW request. Admin edits are applied incrementally
+ * (insert, or tombstone + insert); the graph is rebuilt once too many tombstones pile up.
+ * Searches wait while the graph is (re)built.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HnswFoodIndex {
+
+    private static final long LEVEL_SEED = 42L;
+
+    private final FoodVectorIndex foodVectorIndex;
+
+    @Value("${app.knn.engine:EXACT}")
+    private String defaultEngine;
+
+    @Value("${app.knn.hnsw.m:16}")
+    private int m;
+
+    @Value("${app.knn.hnsw.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${app.knn.hnsw.ef-search:64}")
+    private int defaultEfSearch;
+
+    @Value("${app.knn.hnsw.max-deleted-fraction:0.2}")
+    private double maxDeletedFraction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private HnswGraph graph;
+
+    /**
+     * A neighbour returned by the graph: food id and squared distance
+     */
+    public static final class Neighbor {
+        private final long foodId;
+        private final double distance;
+
+        Neighbor(long foodId, double distance) {
+            this.foodId = foodId;
+            this.distance = distance;
+        }
+
+        public long getFoodId() {
+            return foodId;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+
+    public int getDefaultEfSearch() {
+        return defaultEfSearch;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onApplicationReady() {
+        if ("HNSW".equalsIgnoreCase(defaultEngine)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Apply an admin edit incrementally (runs after FoodVectorIndex has been rebuilt)
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogChanged(FoodCatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (graph == null) {
+                return;
+            }
+            long foodId = event.getFoodId();
+            if (event.getChangeType() == FoodCatalogChangedEvent.ChangeType.DELETED) {
+                graph.delete(foodId);
+            } else {
+                FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+                int slot = snapshot.slotOf(foodId);
+                if (slot >= 0) {
+                    double[] vector = new double[FoodVectorIndex.DIMENSIONS];
+                    FoodVectorIndex.writeVector(snapshot.getFood(slot), vector, 0);
+                    graph.insert(foodId, vector, 0);
+                }
+            }
+
+            if (graph.deletedCount() > maxDeletedFraction * Math.max(1, graph.liveCount())) {
+                log.info("HNSW graph has {} tombstones, rebuilding", graph.deletedCount());
+                graph = build(foodVectorIndex.getSnapshot());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the whole graph from the current vector index snapshot. The snapshot is
+     * taken and built under the write lock, so an admin edit either is in it or waits
+     * and is applied to the new graph; none is applied to a graph about to be replaced.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            graph = build(foodVectorIndex.getSnapshot());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate k nearest foods to the query vector, closest first.
+     * Only food ids accepted by filter are returned.
+     */
+    public List<Neighbor> search(double[] query, int queryOffset, int k, int efSearch, LongPredicate filter) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            TopKNeighbors top = graph.search(query, queryOffset, k, Math.max(efSearch, k), filter);
+            List<Neighbor> neighbors = new ArrayList<>(top.size());
+            for (int i = 0; i < top.size(); i++) {
+                neighbors.add(new Neighbor(graph.foodIdOf(top.slotAt(i)), top.distanceAt(i)));
+            }
+            return neighbors;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        lock.readLock().lock();
+        try {
+            if (graph != null) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        synchronized (this) {
+            if (graph == null) {
+                rebuild();
+            }
+        }
+    }
+
+    private HnswGraph build(FoodVectorIndex.Snapshot snapshot) {
+        long start = System.nanoTime();
+        HnswGraph built = new HnswGraph(FoodVectorIndex.DIMENSIONS, m, efConstruction, LEVEL_SEED);
+        double[] vector = new double[FoodVectorIndex.DIMENSIONS];
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            Food food = snapshot.getFood(slot);
+            FoodVectorIndex.writeVector(food, vector, 0);
+            built.insert(food.getId(), vector, 0);
+        }
+        log.info("HNSW graph built with {} foods (M={}, efConstruction={}) in {} ms",
+                built.liveCount(), m, efConstruction, (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+}
@@ -0,0 +1,416 @@
+// File: src/main/java/com/nutribattle/service/HnswGraph.java
+
+package com.nutribattle.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest-neighbour search
+ * (Malkov &amp; Yashunin). Nodes are keyed by food id and store a copy of their vector.
+ * Deleted foods are tombstoned: they keep routing queries but are never returned.
+ *
+ * Not thread-safe for writes; concurrent searches are fine as long as no insert or
+ * delete runs at the same time (the owner guards this with a read/write lock).
+ */
+final class HnswGraph {
+
+    private final int dimensions;
+    private final int maxLinks;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private double[] vectors;
+    private long[] foodIds;
+    private int[][][] links; // links[node][level] = {count, neighbour...}
+    private boolean[] deleted;
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private final Map<Long, Integer> nodeByFoodId = new HashMap<>();
+
+    private final ThreadLocal<VisitedMarks> visitedMarks = ThreadLocal.withInitial(VisitedMarks::new);
+
+    HnswGraph(int dimensions, int m, int efConstruction, long seed) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW M must be at least 2");
+        }
+        this.dimensions = dimensions;
+        this.maxLinks = m;
+        this.maxLinksLevel0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+
+        int initialCapacity = 64;
+        this.vectors = new double[initialCapacity * dimensions];
+        this.foodIds = new long[initialCapacity];
+        this.links = new int[initialCapacity][][];
+        this.deleted = new boolean[initialCapacity];
+    }
+
+    /**
+     * Number of live (not deleted) nodes
+     */
+    int liveCount() {
+        return size - deletedCount;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    boolean contains(long foodId) {
+        return nodeByFoodId.containsKey(foodId);
+    }
+
+    long foodIdOf(int node) {
+        return foodIds[node];
+    }
+
+    /**
+     * Insert a food vector (DIMENSIONS values at offset). An existing live node
+     * for the same food is tombstoned first, so this also serves as update.
+     */
+    void insert(long foodId, double[] vector, int offset) {
+        delete(foodId);
+        ensureCapacity(size + 1);
+
+        int node = size++;
+        System.arraycopy(vector, offset, vectors, node * dimensions, dimensions);
+        foodIds[node] = foodId;
+        nodeByFoodId.put(foodId, node);
+
+        int level = randomLevel();
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxLinksLevel0 : maxLinks) + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int queryOffset = node * dimensions;
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vectors, queryOffset, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            TopKNeighbors candidates = searchLayer(vectors, queryOffset, current, efConstruction, l, null, node);
+            candidates.sortAscending();
+            int[] selected = selectNeighbors(queryOffset, candidates, l == 0 ? maxLinksLevel0 : maxLinks);
+            for (int neighbour : selected) {
+                addLink(node, neighbour, l);
+                addLink(neighbour, node, l);
+            }
+            if (candidates.size() > 0) {
+                current = candidates.slotAt(0);
+            }
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * Tombstone the node of a food, returns false if it was not present
+     */
+    boolean delete(long foodId) {
+        Integer node = nodeByFoodId.remove(foodId);
+        if (node == null) {
+            return false;
+        }
+        deleted[node] = true;
+        deletedCount++;
+        return true;
+    }
+
+    /**
+     * Approximate k nearest live nodes to the query.
+     * Only foods accepted by the filter (if any) are returned; the search keeps
+     * exploring until ef accepted nodes are found or the graph is exhausted.
+     * Returned slots are node indices (see foodIdOf), distances are squared, closest first.
+     */
+    TopKNeighbors search(double[] query, int queryOffset, int k, int ef, LongPredicate filter) {
+        TopKNeighbors top = new TopKNeighbors(k);
+        if (entryPoint < 0 || k <= 0) {
+            return top;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, queryOffset, current, l);
+        }
+
+        TopKNeighbors found = searchLayer(query, queryOffset, current, Math.max(ef, k), 0, filter, -1);
+        for (int i = 0; i < found.size(); i++) {
+            top.offer(found.slotAt(i), found.distanceAt(i));
+        }
+        top.sortAscending();
+        return top;
+    }
+
+    private int greedyClosest(double[] query, int queryOffset, int start, int level) {
+        int current = start;
+        double currentDistance = distance(query, queryOffset, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int candidate = neighbours[i];
+                double d = distance(query, queryOffset, candidate);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one layer. Deleted nodes, the excluded node and nodes
+     * rejected by the filter are traversed but never admitted to the result.
+     */
+    private TopKNeighbors searchLayer(double[] query, int queryOffset, int entry, int ef, int level,
+                                      LongPredicate filter, int excludeNode) {
+        VisitedMarks visited = visitedMarks.get();
+        visited.reset(size);
+
+        TopKNeighbors results = new TopKNeighbors(ef);
+        CandidateQueue candidates = new CandidateQueue(ef * 2);
+
+        double entryDistance = distance(query, queryOffset, entry);
+        visited.mark(entry);
+        candidates.push(entry, entryDistance);
+        if (isAdmissible(entry, filter, excludeNode)) {
+            results.offer(entry, entryDistance);
+        }
+
+        while (!candidates.isEmpty()) {
+            double closest = candidates.peekDistance();
+            if (closest > results.worstDistance()) {
+                break;
+            }
+            int node = candidates.pop();
+
+            int[] neighbours = level < links[node].length ? links[node][level] : null;
+            if (neighbours == null) {
+                continue;
+            }
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (!visited.mark(neighbour)) {
+                    continue;
+                }
+                double d = distance(query, queryOffset, neighbour);
+                if (d <= results.worstDistance()) {
+                    candidates.push(neighbour, d);
+                    if (isAdmissible(neighbour, filter, excludeNode)) {
+                        results.offer(neighbour, d);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean isAdmissible(int node, LongPredicate filter, int excludeNode) {
+        return node != excludeNode && !deleted[node] && (filter == null || filter.test(foodIds[node]));
+    }
+
+    /**
+     * Neighbour selection heuristic: keep a candidate only if it is closer to the
+     * base than to any neighbour already selected, then top up with the closest rest.
+     * candidates must be sorted closest first.
+     */
+    private int[] selectNeighbors(int baseOffset, TopKNeighbors candidates, int limit) {
+        int[] selected = new int[Math.min(limit, candidates.size())];
+        boolean[] taken = new boolean[candidates.size()];
+        int count = 0;
+
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            int candidate = candidates.slotAt(i);
+            double toBase = candidates.distanceAt(i);
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (distance(vectors, candidate * dimensions, selected[j]) < toBase) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate;
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            if (!taken[i]) {
+                selected[count++] = candidates.slotAt(i);
+            }
+        }
+        return selected;
+    }
+
+    private void addLink(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        for (int i = 1; i <= count; i++) {
+            if (neighbours[i] == to) {
+                return;
+            }
+        }
+        if (count < neighbours.length - 1) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+
+        // Full: re-select among existing links plus the new one
+        int fromOffset = from * dimensions;
+        TopKNeighbors pool = new TopKNeighbors(count + 1);
+        for (int i = 1; i <= count; i++) {
+            pool.offer(neighbours[i], distance(vectors, fromOffset, neighbours[i]));
+        }
+        pool.offer(to, distance(vectors, fromOffset, to));
+        pool.sortAscending();
+
+        int[] selected = selectNeighbors(fromOffset, pool, count);
+        neighbours[0] = selected.length;
+        System.arraycopy(selected, 0, neighbours, 1, selected.length);
+    }
+
+    private double distance(double[] query, int queryOffset, int node) {
+        int offset = node * dimensions;
+        double sum = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double diff = query[queryOffset + d] - vectors[offset + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private int randomLevel() {
+        double u = 1.0 - random.nextDouble(); // (0, 1]
+        return (int) Math.floor(-Math.log(u) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= foodIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, foodIds.length * 2);
+        vectors = Arrays.copyOf(vectors, capacity * dimensions);
+        foodIds = Arrays.copyOf(foodIds, capacity);
+        links = Arrays.copyOf(links, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+    }
+
+    /**
+     * Min-heap of (node, distance) used as the best-first frontier
+     */
+    private static final class CandidateQueue {
+        private int[] nodes;
+        private double[] distances;
+        private int size;
+
+        CandidateQueue(int capacity) {
+            nodes = new int[Math.max(capacity, 16)];
+            distances = new double[nodes.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekDistance() {
+            return distances[0];
+        }
+
+        void push(int node, double distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (distances[parent] <= distance) {
+                    break;
+                }
+                nodes[index] = nodes[parent];
+                distances[index] = distances[parent];
+                index = parent;
+            }
+            nodes[index] = node;
+            distances[index] = distance;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            double lastDistance = distances[size];
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && distances[child + 1] < distances[child]) {
+                    child++;
+                }
+                if (distances[child] >= lastDistance) {
+                    break;
+                }
+                nodes[index] = nodes[child];
+                distances[index] = distances[child];
+                index = child;
+            }
+            nodes[index] = lastNode;
+            distances[index] = lastDistance;
+            return top;
+        }
+    }
+
+    /**
+     * Per-thread visited set using generation stamps, so no clearing or allocation per search
+     */
+    private static final class VisitedMarks {
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int size) {
+            if (marks.length < size) {
+                marks = new int[Math.max(size, marks.length * 2)];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * Mark a node, returns false if it was already visited
+         */
+        boolean mark(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
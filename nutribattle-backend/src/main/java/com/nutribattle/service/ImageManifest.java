@@ -0,0 +1,173 @@
+// File: src/main/java/com/nutribattle/service/ImageManifest.java
+
+package com.nutribattle.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Names of the food image files that can actually be served, listed once instead of
+ * checking the disk per food per request.
+ * With app.images.directory pointing at an existing folder, that folder is listed and
+ * watched for added or removed files; otherwise (e.g. running from the jar) the images
+ * packaged under classpath:static/images/foods/ are listed once.
+ */
+@Component
+@Slf4j
+public class ImageManifest {
+    
+    private static final String CLASSPATH_PATTERN = "classpath*:static/images/foods/*";
+    
+    private final String imageDirectory;
+    
+    private volatile Set<String> files = Set.of();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean loaded;
+    private WatchService watchService;
+    
+    public ImageManifest(@Value("${app.images.directory:}") String imageDirectory) {
+        this.imageDirectory = imageDirectory;
+    }
+    
+    /**
+     * Whether an image file with this name exists
+     */
+    public boolean contains(String fileName) {
+        ensureLoaded();
+        return fileName != null && files.contains(fileName);
+    }
+    
+    /**
+     * Bumped every time the set of files changes
+     */
+    public long getVersion() {
+        ensureLoaded();
+        return version.get();
+    }
+    
+    public int size() {
+        ensureLoaded();
+        return files.size();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+        Path directory = directory();
+        if (directory != null) {
+            watch(directory);
+        }
+    }
+    
+    /**
+     * List the images again; the version only moves if the set changed
+     */
+    public synchronized void refresh() {
+        Path directory = directory();
+        Set<String> listed = directory != null ? listDirectory(directory) : listClasspath();
+        if (!listed.equals(files) || !loaded) {
+            files = Set.copyOf(listed);
+            version.incrementAndGet();
+            log.info("Image manifest: {} food images in {}", listed.size(),
+                    directory != null ? directory.toAbsolutePath() : "classpath");
+        }
+        loaded = true;
+    }
+    
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+    
+    private Path directory() {
+        if (imageDirectory == null || imageDirectory.isBlank()) {
+            return null;
+        }
+        Path path = Paths.get(imageDirectory);
+        return Files.isDirectory(path) ? path : null;
+    }
+    
+    private static Set<String> listDirectory(Path directory) {
+        try (Stream<Path> entries = Files.list(directory)) {
+            Set<String> names = new HashSet<>();
+            entries.filter(Files::isRegularFile).forEach(path -> names.add(path.getFileName().toString()));
+            return names;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static Set<String> listClasspath() {
+        try {
+            Set<String> names = new HashSet<>();
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_PATTERN)) {
+                if (resource.isReadable() && resource.getFilename() != null) {
+                    names.add(resource.getFilename());
+                }
+            }
+            return names;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Re-list the folder on every batch of file events, from a daemon thread
+     */
+    private synchronized void watch(Path directory) {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.warn("Cannot watch image folder {}, new images need a restart", directory, e);
+            return;
+        }
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    key.pollEvents();
+                    refresh();
+                    if (!key.reset()) {
+                        log.warn("Image folder {} is no longer watched", directory);
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Shutting down
+            } catch (RuntimeException e) {
+                log.error("Image folder watcher stopped", e);
+            }
+        }, "image-manifest-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+// File: src/main/java/com/nutribattle/service/KdTree.java
+
+package com.nutribattle.service;
+
+import java.util.BitSet;
+
+/**
+ * Exact KD-tree over a subset of the slots of a flat vector array.
+ * The tree is implicit: slots are reordered so that every range [lo, hi)
+ * has its median (the split point) at the middle, and only the split
+ * dimension of each inner node is stored. Small ranges are scanned directly.
+ */
+final class KdTree {
+
+    private static final int LEAF_SIZE = 8;
+
+    private final double[] vectors;
+    private final int dimensions;
+    private final int[] slots;
+    private final byte[] splitDims;
+
+    private KdTree(double[] vectors, int dimensions, int[] slots) {
+        this.vectors = vectors;
+        this.dimensions = dimensions;
+        this.slots = slots;
+        this.splitDims = new byte[slots.length];
+    }
+
+    /**
+     * Build a tree over the given slots (the array is taken over and reordered)
+     */
+    static KdTree build(double[] vectors, int dimensions, int[] slots) {
+        KdTree tree = new KdTree(vectors, dimensions, slots);
+        tree.build(0, slots.length);
+        return tree;
+    }
+
+    int size() {
+        return slots.length;
+    }
+
+    /**
+     * Offer every slot of the tree closer than the current k-th best to top.
+     * excludeSlot is skipped (pass -1 to keep all); when filterCodes is not null
+     * only slots with filterCodes[slot] == requiredCode are considered, and when
+     * allowed is not null only slots set in it.
+     */
+    void search(double[] query, int queryOffset, int excludeSlot,
+                int[] filterCodes, int requiredCode, BitSet allowed, TopKNeighbors top) {
+        if (slots.length > 0 && top.capacity() > 0) {
+            search(0, slots.length, query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+        }
+    }
+
+    private void search(int lo, int hi, double[] query, int queryOffset, int excludeSlot,
+                        int[] filterCodes, int requiredCode, BitSet allowed, TopKNeighbors top) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                offer(slots[i], query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+            }
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int pivot = slots[mid];
+        int dim = splitDims[mid];
+        double diff = query[queryOffset + dim] - vectors[pivot * dimensions + dim];
+
+        if (diff < 0) {
+            search(lo, mid, query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+        } else {
+            search(mid + 1, hi, query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+        }
+
+        offer(pivot, query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+
+        // The far side can only help if the splitting plane is within the current k-th distance
+        // (<= keeps equal-distance candidates with a lower slot reachable)
+        if (diff * diff <= top.worstDistance()) {
+            if (diff < 0) {
+                search(mid + 1, hi, query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+            } else {
+                search(lo, mid, query, queryOffset, excludeSlot, filterCodes, requiredCode, allowed, top);
+            }
+        }
+    }
+
+    private void offer(int slot, double[] query, int queryOffset, int excludeSlot,
+                       int[] filterCodes, int requiredCode, BitSet allowed, TopKNeighbors top) {
+        if (slot == excludeSlot || (filterCodes != null && filterCodes[slot] != requiredCode)
+                || (allowed != null && !allowed.get(slot))) {
+            return;
+        }
+        int offset = slot * dimensions;
+        double sum = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double diff = query[queryOffset + d] - vectors[offset + d];
+            sum += diff * diff;
+        }
+        top.offer(slot, sum);
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        int dim = widestDimension(lo, hi);
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, dim);
+        splitDims[mid] = (byte) dim;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /**
+     * Dimension with the largest spread in the range, used as split axis
+     */
+    private int widestDimension(int lo, int hi) {
+        int best = 0;
+        double bestSpread = -1;
+        for (int d = 0; d < dimensions; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double value = vectors[slots[i] * dimensions + d];
+                if (value < min) min = value;
+                if (value > max) max = value;
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Quickselect: reorder slots[left..right] so that position k holds the
+     * median along dim, smaller-or-equal values before it and larger-or-equal after
+     */
+    private void select(int left, int right, int k, int dim) {
+        while (right > left) {
+            // Three-way partition so long runs of equal values (e.g. zero sugar) stay linear
+            double pivotValue = valueAt((left + right) >>> 1, dim);
+            int lt = left;
+            int gt = right;
+            int i = left;
+            while (i <= gt) {
+                double value = valueAt(i, dim);
+                if (value < pivotValue) {
+                    swap(lt++, i++);
+                } else if (value > pivotValue) {
+                    swap(i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            if (k < lt) {
+                right = lt - 1;
+            } else if (k > gt) {
+                left = gt + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double valueAt(int index, int dim) {
+        return vectors[slots[index] * dimensions + dim];
+    }
+
+    private void swap(int i, int j) {
+        int tmp = slots[i];
+        slots[i] = slots[j];
+        slots[j] = tmp;
+    }
+}
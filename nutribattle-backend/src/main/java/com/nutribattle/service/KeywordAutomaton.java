@@ -0,0 +1,144 @@
+// File: src/main/java/com/nutribattle/service/KeywordAutomaton.java
+
+package com.nutribattle.service;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick automaton over a fixed keyword set, compiled into a dense transition table.
+ * One pass over a text reports every keyword occurring in it (case-insensitively, as
+ * substrings) as the OR of the keywords' bit masks, without allocating.
+ * Immutable, so it can be shared between threads.
+ */
+final class KeywordAutomaton {
+
+    private final char[] alphabet;     // Sorted distinct keyword characters
+    private final int[] asciiSymbols;  // Character below 128 -> symbol + 1 (0: in no keyword)
+    private final int width;
+    private final int[] next;          // state * width + symbol -> next state
+    private final int[] output;        // Masks of the keywords ending at each state (incl. suffixes)
+
+    /**
+     * @param keywords Keyword -> bit mask; keywords are matched lowercase
+     */
+    KeywordAutomaton(Map<String, Integer> keywords) {
+        TreeSet<Character> characters = new TreeSet<>();
+        Map<String, Integer> lowercase = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : keywords.entrySet()) {
+            String keyword = lower(entry.getKey());
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            lowercase.merge(keyword, entry.getValue(), (a, b) -> a | b);
+            for (int i = 0; i < keyword.length(); i++) {
+                characters.add(keyword.charAt(i));
+            }
+        }
+
+        alphabet = new char[characters.size()];
+        asciiSymbols = new int[128];
+        int symbol = 0;
+        for (char c : characters) {
+            alphabet[symbol] = c;
+            if (c < 128) {
+                asciiSymbols[c] = symbol + 1;
+            }
+            symbol++;
+        }
+        width = Math.max(1, alphabet.length);
+
+        // Trie, with -1 for missing edges
+        List<int[]> edges = new ArrayList<>();
+        List<Integer> masks = new ArrayList<>();
+        edges.add(newRow());
+        masks.add(0);
+        for (Map.Entry<String, Integer> entry : lowercase.entrySet()) {
+            int state = 0;
+            String keyword = entry.getKey();
+            for (int i = 0; i < keyword.length(); i++) {
+                int s = symbolOf(keyword.charAt(i));
+                if (edges.get(state)[s] < 0) {
+                    edges.get(state)[s] = edges.size();
+                    edges.add(newRow());
+                    masks.add(0);
+                }
+                state = edges.get(state)[s];
+            }
+            masks.set(state, masks.get(state) | entry.getValue());
+        }
+
+        // Breadth-first: fill missing edges from the failure state and inherit its outputs
+        int states = edges.size();
+        next = new int[states * width];
+        output = new int[states];
+        int[] fail = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int s = 0; s < width; s++) {
+            int child = edges.get(0)[s];
+            if (child < 0) {
+                next[s] = 0;
+            } else {
+                next[s] = child;
+                fail[child] = 0;
+                queue.add(child);
+            }
+        }
+        for (int state = 0; state < states; state++) {
+            output[state] = masks.get(state);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output[state] |= output[fail[state]];
+            for (int s = 0; s < width; s++) {
+                int child = edges.get(state)[s];
+                int fallback = next[fail[state] * width + s];
+                if (child < 0) {
+                    next[state * width + s] = fallback;
+                } else {
+                    next[state * width + s] = child;
+                    fail[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * OR of the masks of every keyword occurring in text (0 for null)
+     */
+    int match(CharSequence text) {
+        if (text == null || alphabet.length == 0) {
+            return 0;
+        }
+        int state = 0;
+        int found = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int s = symbolOf(Character.toLowerCase(text.charAt(i)));
+            state = s < 0 ? 0 : next[state * width + s];
+            found |= output[state];
+        }
+        return found;
+    }
+
+    private int symbolOf(char c) {
+        if (c < 128) {
+            return asciiSymbols[c] - 1;
+        }
+        int index = Arrays.binarySearch(alphabet, c);
+        return index >= 0 ? index : -1;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static String lower(String keyword) {
+        StringBuilder lower = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            lower.append(Character.toLowerCase(keyword.charAt(i)));
+        }
+        return lower.toString();
+    }
+}
@@ -3,10 +3,15 @@
 
 package com.nutribattle.service;
 
+import com.nutribattle.dto.BatchRecommendationRequest;
+import com.nutribattle.dto.BatchRecommendationResult;
 import com.nutribattle.dto.FoodRecommendation;
+import com.nutribattle.dto.RecommendationConstraints;
 import com.nutribattle.entity.Food;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -22,9 +27,19 @@ import java.util.stream.Collectors;
 @Slf4j
 public class KnnRecommendationService {
     
-    private final FoodService foodService;
+    private final FoodVectorIndex foodVectorIndex;
+    private final HnswFoodIndex hnswFoodIndex;
+    private final FoodNeighborStore foodNeighborStore;
+    private final DistanceKernel distanceKernel;
     private final NutriScoreCalculator nutriScoreCalculator;
     
+    @Value("${app.knn.engine:EXACT}")
+    private String defaultEngine = "EXACT";
+    
+    // HNSW only pays off on large partitions; small ones are searched exactly
+    @Value("${app.knn.hnsw.min-partition-size:1000}")
+    private int hnswMinPartitionSize;
+    
     /**
      * Enum for recommendation modes
      */
@@ -35,134 +50,228 @@ public class KnnRecommendationService {
     }
     
     /**
-     * Get similar food alternatives using KNN
+     * Enum for nearest-neighbour search engines
+     */
+    public enum SearchEngine {
+        EXACT,  // Partitioned KD-trees, always returns the true nearest neighbours
+        HNSW    // Approximate graph search, for very large catalogs
+    }
+    
+    /**
+     * Refuse to start with a misspelt app.knn.engine rather than silently searching exactly
+     */
+    @PostConstruct
+    public void validateDefaultEngine() {
+        try {
+            parseEngine(defaultEngine);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid app.knn.engine: " + defaultEngine, e);
+        }
+    }
+    
+    /**
+     * Resolve an engine name, falling back to the configured default (app.knn.engine)
+     * @throws IllegalArgumentException if the name is not EXACT or HNSW
+     */
+    public SearchEngine resolveEngine(String engine) {
+        return parseEngine(engine != null && !engine.isBlank() ? engine : defaultEngine);
+    }
+    
+    private static SearchEngine parseEngine(String name) {
+        try {
+            return SearchEngine.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown KNN engine: " + name);
+        }
+    }
+    
+    /**
+     * Get similar food alternatives using KNN with the default engine
      * @param foodId The food to find alternatives for
      * @param k Number of recommendations (default 5)
      * @param mode The recommendation mode for category filtering
      * @return List of recommended foods
      */
     public List<FoodRecommendation> getHealthierAlternatives(Long foodId, int k, RecommendationMode mode) {
+        return getHealthierAlternatives(foodId, k, mode, resolveEngine(null), null);
+    }
+    
+    /**
+     * Get similar food alternatives using KNN
+     * Runs entirely against in-memory indexes (no database access)
+     * @param engine EXACT or HNSW
+     * @param efSearch HNSW candidate list size (null = configured default), ignored for EXACT
+     */
+    public List<FoodRecommendation> getHealthierAlternatives(Long foodId, int k, RecommendationMode mode,
+                                                             SearchEngine engine, Integer efSearch) {
+        return getHealthierAlternatives(foodId, k, mode, engine, efSearch, null);
+    }
+    
+    /**
+     * Get similar food alternatives that also satisfy nutrient / grade constraints.
+     * Constraints are resolved to a bitset of allowed foods and applied during the
+     * search, so k results are returned whenever k matching foods exist.
+     * @param constraints Hard limits on the recommended foods (null = none)
+     */
+    public List<FoodRecommendation> getHealthierAlternatives(Long foodId, int k, RecommendationMode mode,
+                                                             SearchEngine engine, Integer efSearch,
+                                                             RecommendationConstraints constraints) {
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        
         // Get the target food
-        Food targetFood = foodService.getFoodById(foodId);
-        if (targetFood == null) {
+        int targetSlot = snapshot.slotOf(foodId);
+        if (targetSlot < 0) {
             throw new IllegalArgumentException("Food not found");
         }
+        Food targetFood = snapshot.getFood(targetSlot);
         
-        log.info("Finding recommendations for: {} (Type: {}, Category: {})", 
+        log.debug("Finding recommendations for: {} (Type: {}, Category: {})", 
                 targetFood.getName(), targetFood.getType(), targetFood.getCategory());
         
-        // Get all foods
-        List<Food> allFoods = foodService.getAllFoods();
-        
-        // Remove the target food from the list
-        allFoods = allFoods.stream()
-                .filter(f -> !f.getId().equals(foodId))
-                .collect(Collectors.toList());
-        
-        // Filter foods based on mode
-        allFoods = filterFoodsByMode(allFoods, targetFood, mode);
-        
-        log.info("After filtering by mode {}: {} foods remaining", mode, allFoods.size());
+        // Translate the mode into index filters
+        int[] filters = snapshot.filtersFor(targetSlot, mode);
+        if (filters == null) {
+            return new ArrayList<>();
+        }
+        int requiredCategory = filters[0];
+        int requiredType = filters[1];
+        BitSet allowed = snapshot.allowedSlots(constraints);
         
-        // Calculate distances and create recommendations
-        List<FoodDistance> distances = new ArrayList<>();
+        List<FoodRecommendation> recommendations = new ArrayList<>(k);
+        FoodNeighborStore.NeighborList stored = engine == SearchEngine.EXACT && k <= FoodNeighborStore.MAX_NEIGHBORS
+            ? foodNeighborStore.lookup(foodId, mode) : null;
         
-        for (Food food : allFoods) {
-            double distance = calculateDistance(targetFood, food);
-            distances.add(new FoodDistance(food, distance));
+        if (engine == SearchEngine.HNSW 
+                && snapshot.partitionSize(requiredCategory, requiredType) >= hnswMinPartitionSize) {
+            // Approximate search, filtering by partition while walking the graph
+            final int category = requiredCategory;
+            final int type = requiredType;
+            double[] query = new double[FoodVectorIndex.DIMENSIONS];
+            snapshot.copyVector(targetSlot, query, 0);
+            
+            List<HnswFoodIndex.Neighbor> neighbors = hnswFoodIndex.search(query, 0, k,
+                efSearch != null ? efSearch : hnswFoodIndex.getDefaultEfSearch(),
+                id -> {
+                    int slot = snapshot.slotOf(id);
+                    return slot >= 0 && slot != targetSlot && snapshot.matches(slot, category, type)
+                        && (allowed == null || allowed.get(slot));
+                });
+            
+            for (HnswFoodIndex.Neighbor neighbor : neighbors) {
+                Food food = snapshot.getFood(snapshot.slotOf(neighbor.getFoodId()));
+                recommendations.add(createRecommendation(food, targetFood, Math.sqrt(neighbor.getDistance()), mode));
+            }
+            return recommendations;
         }
         
-        // Sort by distance (ascending) - closest first
-        distances.sort(Comparator.comparingDouble(FoodDistance::getDistance));
+        if (stored != null) {
+            // Exact neighbours precomputed by the neighbour store; the first k allowed ones
+            // are the constrained answer unless the stored list runs out first
+            for (int i = 0; i < stored.size() && recommendations.size() < k; i++) {
+                int slot = snapshot.slotOf(stored.foodIdAt(i));
+                if (slot >= 0 && (allowed == null || allowed.get(slot))) {
+                    Food food = snapshot.getFood(slot);
+                    recommendations.add(createRecommendation(food, targetFood, Math.sqrt(stored.distanceAt(i)), mode));
+                }
+            }
+            if (recommendations.size() == k || stored.size() < FoodNeighborStore.MAX_NEIGHBORS) {
+                return recommendations;
+            }
+            recommendations.clear();
+        }
         
-        // Get top K recommendations
-        List<FoodRecommendation> recommendations = new ArrayList<>();
+        // Exact search on the partition's KD-tree, skipping foods outside the constraints
+        TopKNeighbors nearest = snapshot.nearest(targetSlot, k, requiredCategory, requiredType, allowed);
         
-        for (int i = 0; i < Math.min(k, distances.size()); i++) {
-            FoodDistance fd = distances.get(i);
-            FoodRecommendation rec = createRecommendation(fd.getFood(), targetFood, fd.getDistance(), mode);
-            recommendations.add(rec);
+        for (int i = 0; i < nearest.size(); i++) {
+            Food food = snapshot.getFood(nearest.slotAt(i));
+            double distance = Math.sqrt(nearest.distanceAt(i));
+            recommendations.add(createRecommendation(food, targetFood, distance, mode));
             
-            log.debug("Added recommendation: {} (distance: {})", 
-                    fd.getFood().getName(), fd.getDistance());
+            log.debug("Added recommendation: {} (distance: {})", food.getName(), distance);
         }
         
-        log.info("Returning {} recommendations", recommendations.size());
+        log.debug("Returning {} recommendations", recommendations.size());
         return recommendations;
     }
     
     /**
-     * Overloaded method for backward compatibility (uses MIXED mode by default)
-     */
-    public List<FoodRecommendation> getHealthierAlternatives(Long foodId, int k) {
-        return getHealthierAlternatives(foodId, k, RecommendationMode.MIXED);
-    }
-    
-    /**
-     * Filter foods based on recommendation mode
+     * Get alternatives for many source foods at once (e.g. every food logged today).
+     * All entries are answered from one index snapshot with a single blocked scan
+     * that scores every query vector together. Results keep the request order;
+     * entries whose food does not exist get an error instead of failing the batch.
      */
-    private List<Food> filterFoodsByMode(List<Food> foods, Food targetFood, RecommendationMode mode) {
-        switch (mode) {
-            case SAME_CATEGORY:
-                // Return only foods from the same category as target
-                return foods.stream()
-                    .filter(f -> f.getCategory().equals(targetFood.getCategory()))
-                    .collect(Collectors.toList());
-                
-            case OPPOSITE_CATEGORY:
-                // Return foods from opposite TYPE (Traditional ↔ Modern)
-                String oppositeType = targetFood.getType().equals("Traditional") ? 
-                    "Modern" : "Traditional";
-                return foods.stream()
-                    .filter(f -> f.getType().equals(oppositeType))
-                    .collect(Collectors.toList());
-                
-            case MIXED:
-            default:
-                // Return all foods
-                return foods;
+    public List<BatchRecommendationResult> getBatchAlternatives(List<BatchRecommendationRequest> requests) {
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        
+        List<BatchRecommendationResult> results = new ArrayList<>(requests.size());
+        int[] querySlots = new int[requests.size()];
+        int[] ks = new int[requests.size()];
+        int[][] filters = new int[requests.size()][];
+        RecommendationMode[] modes = new RecommendationMode[requests.size()];
+        int[] resultIndexes = new int[requests.size()];
+        int queries = 0;
+        
+        for (BatchRecommendationRequest request : requests) {
+            RecommendationMode mode = parseMode(request.getMode());
+            BatchRecommendationResult result = new BatchRecommendationResult();
+            result.setFoodId(request.getFoodId());
+            result.setMode(mode.name());
+            results.add(result);
+            
+            int slot = snapshot.slotOf(request.getFoodId());
+            if (slot < 0) {
+                result.setError("Food not found");
+                continue;
+            }
+            int[] modeFilters = snapshot.filtersFor(slot, mode);
+            if (modeFilters == null) {
+                continue;
+            }
+            
+            querySlots[queries] = slot;
+            ks[queries] = request.getK() != null ? request.getK() : 5; // Null k: the default 5
+            filters[queries] = modeFilters;
+            modes[queries] = mode;
+            resultIndexes[queries] = results.size() - 1;
+            queries++;
         }
-    }
-    
-    /**
-     * Calculate Euclidean distance between two foods based on nutritional values
-     * Using normalized values (0-1) for each nutrient
-     */
-    private double calculateDistance(Food food1, Food food2) {
-        double[] vector1 = getNormalizedNutritionalVector(food1);
-        double[] vector2 = getNormalizedNutritionalVector(food2);
         
-        double sumSquaredDifferences = 0;
-        for (int i = 0; i < vector1.length; i++) {
-            double diff = vector1[i] - vector2[i];
-            sumSquaredDifferences += diff * diff;
+        TopKNeighbors[] nearest = snapshot.nearestBatch(distanceKernel, Arrays.copyOf(querySlots, queries),
+            Arrays.copyOf(ks, queries), Arrays.copyOf(filters, queries));
+        
+        for (int q = 0; q < queries; q++) {
+            Food targetFood = snapshot.getFood(querySlots[q]);
+            List<FoodRecommendation> recommendations = results.get(resultIndexes[q]).getRecommendations();
+            for (int i = 0; i < nearest[q].size(); i++) {
+                Food food = snapshot.getFood(nearest[q].slotAt(i));
+                recommendations.add(createRecommendation(food, targetFood, Math.sqrt(nearest[q].distanceAt(i)), modes[q]));
+            }
         }
         
-        return Math.sqrt(sumSquaredDifferences);
+        log.debug("Answered batch of {} recommendation queries in one pass", queries);
+        return results;
     }
     
     /**
-     * Get normalized nutritional vector for a food (0-1 scale)
-     * FIXED: Handle null values with proper defaults
+     * Parse a mode name, defaulting to MIXED when missing or invalid
      */
-    private double[] getNormalizedNutritionalVector(Food food) {
-        return new double[] {
-            safeDouble(food.getCalories(), 0.0) / 1000.0,       // Max ~1000 calories per 100g
-            safeDouble(food.getProtein(), 0.0) / 50.0,          // Max ~50g protein per 100g
-            safeDouble(food.getFat(), 0.0) / 100.0,             // Max ~100g fat per 100g
-            safeDouble(food.getSaturatedFat(), 0.0) / 50.0,     // Max ~50g saturated fat per 100g
-            safeDouble(food.getCarbs(), 0.0) / 100.0,           // Max ~100g carbs per 100g
-            safeDouble(food.getSugar(), 0.0) / 100.0,           // Max ~100g sugar per 100g
-            safeDouble(food.getFiber(), 0.0) / 50.0,            // Max ~50g fiber per 100g
-            safeDouble(food.getSodium(), 0.0) / 3000.0          // Max ~3000mg sodium per 100g
-        };
+    public RecommendationMode parseMode(String mode) {
+        if (mode == null) {
+            return RecommendationMode.MIXED;
+        }
+        try {
+            return RecommendationMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return RecommendationMode.MIXED;
+        }
     }
     
     /**
-     * Helper method to safely convert Double to double with default value
+     * Overloaded method for backward compatibility (uses MIXED mode by default)
      */
-    private double safeDouble(Double value, double defaultValue) {
-        return value != null ? value : defaultValue;
+    public List<FoodRecommendation> getHealthierAlternatives(Long foodId, int k) {
+        return getHealthierAlternatives(foodId, k, RecommendationMode.MIXED);
     }
     
     /**
@@ -291,25 +400,4 @@ public class KnnRecommendationService {
         
         return reason.toString().trim();
     }
-    
-    /**
-     * Inner class to hold food with distance
-     */
-    private static class FoodDistance {
-        private final Food food;
-        private final double distance;
-        
-        public FoodDistance(Food food, double distance) {
-            this.food = food;
-            this.distance = distance;
-        }
-        
-        public Food getFood() { 
-            return food; 
-        }
-        
-        public double getDistance() { 
-            return distance; 
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+// File: src/main/java/com/nutribattle/service/LevenshteinAutomaton.java
+
+package com.nutribattle.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Nondeterministic Levenshtein automaton for one word and a maximum number of edits,
+ * simulated bit-parallel (Wu-Manber): for every edit count e, bit i of the state is set
+ * when the first i characters of the word can be matched with e edits. Feeding it the
+ * characters of a trie path one at a time prunes every branch no term below can match.
+ * Immutable; the states are long[] arrays owned by the caller. Words up to 62 characters.
+ */
+final class LevenshteinAutomaton {
+
+    static final int MAX_LENGTH = 62;
+
+    private final int length;
+    private final int maxEdits;
+    private final long accept;          // Bit of the whole word matched
+    private final long valid;           // Bits 0..length
+    private final long[] asciiMasks;    // Character -> bits i + 1 where word[i] is that character
+    private final Map<Character, Long> otherMasks = new HashMap<>();
+
+    LevenshteinAutomaton(String word, int maxEdits) {
+        if (word.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Word too long for the automaton: " + word.length());
+        }
+        this.length = word.length();
+        this.maxEdits = maxEdits;
+        this.accept = 1L << length;
+        this.valid = (accept << 1) - 1;
+        this.asciiMasks = new long[128];
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (c < 128) {
+                asciiMasks[c] |= 1L << (i + 1);
+            } else {
+                otherMasks.merge(c, 1L << (i + 1), (a, b) -> a | b);
+            }
+        }
+    }
+
+    int maxEdits() {
+        return maxEdits;
+    }
+
+    /**
+     * State before any character: up to e leading characters of the word deleted
+     */
+    long[] start() {
+        long[] state = new long[maxEdits + 1];
+        for (int e = 0; e <= maxEdits; e++) {
+            state[e] = ((1L << (e + 1)) - 1) & valid;
+        }
+        return state;
+    }
+
+    /**
+     * Consume one character into 'next'; false once no continuation can match
+     */
+    boolean step(long[] state, char c, long[] next) {
+        long mask = c < 128 ? asciiMasks[c] : otherMasks.getOrDefault(c, 0L);
+        next[0] = (state[0] << 1) & mask;
+        long alive = next[0];
+        for (int e = 1; e <= maxEdits; e++) {
+            next[e] = (((state[e] << 1) & mask)   // match
+                    | state[e - 1]                // extra character in the text
+                    | (state[e - 1] << 1)         // substituted character
+                    | (next[e - 1] << 1))         // character of the word missing
+                    & valid;
+            alive |= next[e];
+        }
+        return alive != 0;
+    }
+
+    /**
+     * Fewest edits turning the consumed text into the whole word, or -1
+     */
+    int distance(long[] state) {
+        for (int e = 0; e <= maxEdits; e++) {
+            if ((state[e] & accept) != 0) {
+                return e;
+            }
+        }
+        return -1;
+    }
+}
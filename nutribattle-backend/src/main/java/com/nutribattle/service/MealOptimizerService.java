@@ -0,0 +1,510 @@
+// File: src/main/java/com/nutribattle/service/MealOptimizerService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.MealAlternative;
+import com.nutribattle.dto.MealOptimizationResult;
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Builds 2-4 food meals with gram quantities that hit the meal's calorie target
+ * (within CALORIE_TOLERANCE) while staying close to the user's protein/carb/fat split.
+ *
+ * Each candidate food is offered at a few discretized portions inside its realistic
+ * portion range. Combinations are searched depth-first with branch-and-bound: portions
+ * only ever add calories and macros, so a branch is cut once it overshoots the calorie
+ * window, can no longer reach it, or already exceeds a macro target by more than the
+ * worst kept solution deviates in total. Branches are split by first food over the
+ * fork-join pool and every branch stops at the time budget, returning the best so far.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MealOptimizerService {
+
+    public static final int MIN_FOODS = 2;
+    public static final int MAX_FOODS = 4;
+    public static final int MAX_SOLUTIONS = 10;
+
+    private static final double CALORIE_TOLERANCE = 0.05;
+
+    // Candidate pool: foods richest in each macro, plus foods whose own split is closest
+    private static final int FOODS_PER_MACRO = 12;
+    private static final int BALANCED_FOODS = 16;
+
+    private static final int PORTION_LEVELS = 8;
+    private static final double PORTION_ROUNDING = 5;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    // Split used when the user has no macro goals: 20% protein, 50% carbs, 30% fat
+    private static final double[] DEFAULT_SPLIT = {0.20, 0.50, 0.30};
+    private static final double[] CALORIES_PER_GRAM = {4, 4, 9};
+
+    private final CalorieKnnService calorieKnnService;
+    private final FoodVectorIndex foodVectorIndex;
+
+    @Value("${app.meal-optimizer.time-budget-ms:250}")
+    private long maxTimeBudgetMs = 250;
+
+    /**
+     * Best combinations for one of the user's meals.
+     * timeBudgetMs may shorten the configured budget, never extend it.
+     */
+    public MealOptimizationResult optimize(User user, String mealType, int minFoods, int maxFoods,
+                                           int solutions, Long timeBudgetMs) {
+        if (minFoods < MIN_FOODS || maxFoods > MAX_FOODS || minFoods > maxFoods) {
+            throw new IllegalArgumentException("Foods per meal must be between " + MIN_FOODS + " and " + MAX_FOODS);
+        }
+        if (solutions < 1 || solutions > MAX_SOLUTIONS) {
+            throw new IllegalArgumentException("Solutions must be between 1 and " + MAX_SOLUTIONS);
+        }
+        long budgetMs = timeBudgetMs != null ? Math.max(1, Math.min(maxTimeBudgetMs, timeBudgetMs)) : maxTimeBudgetMs;
+        long start = System.nanoTime();
+
+        double calories = calorieKnnService.calculateMealCalories(user.getRecommendedCalories(), mealType);
+        double[] split = macroSplit(user);
+        double[] macroTargets = new double[3];
+        for (int m = 0; m < 3; m++) {
+            macroTargets[m] = calories * split[m] / CALORIES_PER_GRAM[m];
+        }
+
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        Problem problem = new Problem(snapshot, candidatePool(snapshot, split), calories, macroTargets,
+                minFoods, maxFoods);
+        Solutions best = new Solutions(solutions);
+        Run run = new Run(problem, best, start + budgetMs * 1_000_000);
+        ForkJoinPool.commonPool().invoke(new RootTask(run));
+
+        MealOptimizationResult result = new MealOptimizationResult();
+        result.setTargetCalories(round(calories));
+        result.setTargetProtein(round(macroTargets[0]));
+        result.setTargetCarbs(round(macroTargets[1]));
+        result.setTargetFat(round(macroTargets[2]));
+        result.setSolutions(best.sorted().stream().map(solution -> toCombination(problem, solution))
+                .collect(Collectors.toList()));
+        result.setComplete(!run.timedOut);
+        result.setExploredNodes(run.nodes.sum());
+        result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+
+        log.debug("Meal optimizer explored {} nodes over {} foods in {} ms (complete: {})",
+                result.getExploredNodes(), problem.size(), result.getElapsedMs(), result.isComplete());
+        return result;
+    }
+
+    /**
+     * Share of calories from protein, carbs and fat, from the user's daily goals when all are set
+     */
+    static double[] macroSplit(User user) {
+        Double[] goals = {user.getDailyProteinGoal(), user.getDailyCarbGoal(), user.getDailyFatGoal()};
+        double[] split = new double[3];
+        double total = 0;
+        for (int m = 0; m < 3; m++) {
+            if (goals[m] == null || goals[m] <= 0) {
+                return DEFAULT_SPLIT;
+            }
+            split[m] = goals[m] * CALORIES_PER_GRAM[m];
+            total += split[m];
+        }
+        for (int m = 0; m < 3; m++) {
+            split[m] /= total;
+        }
+        return split;
+    }
+
+    /**
+     * Slots worth combining: the foods with the highest calorie share of each macro (to
+     * correct a combination in one direction) and those whose split is already closest.
+     * Balanced foods come first so good solutions are found early and prune the rest.
+     */
+    private static List<Integer> candidatePool(FoodVectorIndex.Snapshot snapshot, double[] split) {
+        List<Integer> slots = new ArrayList<>();
+        Map<Integer, double[]> shares = new HashMap<>();
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            Food food = snapshot.getFood(slot);
+            if (food.getCalories() == null || food.getCalories() <= 0) {
+                continue;
+            }
+            slots.add(slot);
+            shares.put(slot, macroShares(food));
+        }
+
+        Set<Integer> pool = new LinkedHashSet<>();
+        slots.stream()
+                .sorted(Comparator.comparingDouble(slot -> splitDistance(shares.get(slot), split)))
+                .limit(BALANCED_FOODS)
+                .forEach(pool::add);
+        for (int m = 0; m < 3; m++) {
+            int macro = m;
+            slots.stream()
+                    .sorted(Comparator.comparingDouble(slot -> -shares.get(slot)[macro]))
+                    .limit(FOODS_PER_MACRO)
+                    .forEach(pool::add);
+        }
+        return new ArrayList<>(pool);
+    }
+
+    private static double[] macroShares(Food food) {
+        double[] grams = {safe(food.getProtein()), safe(food.getCarbs()), safe(food.getFat())};
+        double total = 0;
+        for (int m = 0; m < 3; m++) {
+            total += grams[m] * CALORIES_PER_GRAM[m];
+        }
+        double[] shares = new double[3];
+        for (int m = 0; m < 3 && total > 0; m++) {
+            shares[m] = grams[m] * CALORIES_PER_GRAM[m] / total;
+        }
+        return shares;
+    }
+
+    private static double splitDistance(double[] shares, double[] split) {
+        double distance = 0;
+        for (int m = 0; m < 3; m++) {
+            distance += Math.abs(shares[m] - split[m]);
+        }
+        return distance;
+    }
+
+    /**
+     * Portions offered for a food: PORTION_LEVELS steps across its portion range,
+     * rounded to PORTION_ROUNDING grams, ascending and distinct
+     */
+    static double[] portionLevels(Food food) {
+        double[] bounds = CalorieKnnService.portionBounds(food);
+        TreeSet<Double> levels = new TreeSet<>();
+        for (int i = 0; i < PORTION_LEVELS; i++) {
+            double grams = bounds[0] + (bounds[1] - bounds[0]) * i / (PORTION_LEVELS - 1);
+            double rounded = Math.round(grams / PORTION_ROUNDING) * PORTION_ROUNDING;
+            levels.add(Math.max(bounds[0], Math.min(bounds[1], rounded)));
+        }
+        return levels.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Objective of a complete combination: mean relative macro deviation plus relative calorie deviation
+     */
+    static double objective(double calories, double[] macros, double targetCalories, double[] macroTargets) {
+        return macroDeviation(macros, macroTargets) + Math.abs(calories - targetCalories) / targetCalories;
+    }
+
+    /**
+     * Mean relative distance of protein, carbs and fat from their targets
+     */
+    static double macroDeviation(double[] macros, double[] macroTargets) {
+        double deviation = 0;
+        for (int m = 0; m < 3; m++) {
+            deviation += Math.abs(macros[m] - macroTargets[m]) / macroTargets[m];
+        }
+        return deviation / 3;
+    }
+
+    private static double safe(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+
+    private MealOptimizationResult.Combination toCombination(Problem problem, Solution solution) {
+        MealOptimizationResult.Combination combination = new MealOptimizationResult.Combination();
+        List<MealAlternative.Portion> portions = new ArrayList<>(solution.foods.length);
+        for (int i = 0; i < solution.foods.length; i++) {
+            portions.add(new MealAlternative.Portion(problem.foodAt(solution.foods[i]), solution.grams[i]));
+        }
+        combination.setPortions(portions);
+        combination.setCalories(round(solution.calories));
+        combination.setProtein(round(solution.macros[0]));
+        combination.setCarbs(round(solution.macros[1]));
+        combination.setFat(round(solution.macros[2]));
+        combination.setCaloriesDifference(round(Math.abs(solution.calories - problem.targetCalories)));
+        combination.setMacroDeviation(Math.round(macroDeviation(solution.macros, problem.macroTargets) * 1000.0) / 1000.0);
+        return combination;
+    }
+
+    /**
+     * The candidate foods as flat per-gram arrays, in pool order
+     */
+    private static final class Problem {
+        private final FoodVectorIndex.Snapshot snapshot;
+        private final int[] slots;
+        private final double[][] levels;
+        private final double[] caloriesPerGram;
+        private final double[][] macrosPerGram;
+        // Largest portion calories of any food from index i on (non-increasing in i)
+        private final double[] suffixMaxCalories;
+        private final double targetCalories;
+        private final double[] macroTargets;
+        private final double lowerCalories;
+        private final double upperCalories;
+        private final int minFoods;
+        private final int maxFoods;
+
+        Problem(FoodVectorIndex.Snapshot snapshot, List<Integer> pool, double targetCalories,
+                double[] macroTargets, int minFoods, int maxFoods) {
+            this.snapshot = snapshot;
+            this.targetCalories = targetCalories;
+            this.macroTargets = macroTargets;
+            this.lowerCalories = targetCalories * (1 - CALORIE_TOLERANCE);
+            this.upperCalories = targetCalories * (1 + CALORIE_TOLERANCE);
+            this.minFoods = minFoods;
+            this.maxFoods = maxFoods;
+
+            int n = pool.size();
+            slots = new int[n];
+            levels = new double[n][];
+            caloriesPerGram = new double[n];
+            macrosPerGram = new double[n][3];
+            for (int i = 0; i < n; i++) {
+                Food food = snapshot.getFood(pool.get(i));
+                slots[i] = pool.get(i);
+                levels[i] = portionLevels(food);
+                caloriesPerGram[i] = food.getCalories() / 100;
+                macrosPerGram[i][0] = safe(food.getProtein()) / 100;
+                macrosPerGram[i][1] = safe(food.getCarbs()) / 100;
+                macrosPerGram[i][2] = safe(food.getFat()) / 100;
+            }
+            suffixMaxCalories = new double[n + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                double largest = levels[i][levels[i].length - 1] * caloriesPerGram[i];
+                suffixMaxCalories[i] = Math.max(largest, suffixMaxCalories[i + 1]);
+            }
+        }
+
+        int size() {
+            return slots.length;
+        }
+
+        Food foodAt(int index) {
+            return snapshot.getFood(slots[index]);
+        }
+
+        /**
+         * Lowest objective any completion of a partial combination can reach:
+         * amounts only grow, so whatever already overshoots a target stays
+         */
+        double lowerBound(double calories, double[] macros) {
+            double excess = 0;
+            for (int m = 0; m < 3; m++) {
+                excess += Math.max(0, macros[m] - macroTargets[m]) / macroTargets[m];
+            }
+            return excess / 3 + Math.max(0, calories - targetCalories) / targetCalories;
+        }
+    }
+
+    /**
+     * A complete combination: pool indices (ascending) with their grams and totals
+     */
+    private static final class Solution {
+        private final int[] foods;
+        private final double[] grams;
+        private final double calories;
+        private final double[] macros;
+        private final double objective;
+
+        Solution(int[] foods, double[] grams, double calories, double[] macros, double objective) {
+            this.foods = foods;
+            this.grams = grams;
+            this.calories = calories;
+            this.macros = macros;
+            this.objective = objective;
+        }
+
+        boolean betterThan(Solution other) {
+            if (objective != other.objective) {
+                return objective < other.objective;
+            }
+            return Arrays.compare(foods, other.foods) < 0;
+        }
+    }
+
+    /**
+     * The best solutions found so far, at most one per food set, shared by all branches
+     */
+    private static final class Solutions {
+        private final int capacity;
+        private final Map<List<Integer>, Solution> byFoods = new HashMap<>();
+        private volatile double threshold = Double.POSITIVE_INFINITY;
+
+        Solutions(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Objective a branch must beat to still matter (infinite until the list is full)
+         */
+        double threshold() {
+            return threshold;
+        }
+
+        synchronized void offer(Solution solution) {
+            List<Integer> key = Arrays.stream(solution.foods).boxed().collect(Collectors.toList());
+            Solution existing = byFoods.get(key);
+            if (existing != null) {
+                if (solution.betterThan(existing)) {
+                    byFoods.put(key, solution);
+                }
+            } else if (byFoods.size() < capacity) {
+                byFoods.put(key, solution);
+            } else {
+                Solution worst = worst();
+                if (!solution.betterThan(worst)) {
+                    return;
+                }
+                byFoods.values().remove(worst);
+                byFoods.put(key, solution);
+            }
+            if (byFoods.size() == capacity) {
+                threshold = worst().objective;
+            }
+        }
+
+        private Solution worst() {
+            Solution worst = null;
+            for (Solution solution : byFoods.values()) {
+                if (worst == null || worst.betterThan(solution)) {
+                    worst = solution;
+                }
+            }
+            return worst;
+        }
+
+        synchronized List<Solution> sorted() {
+            List<Solution> sorted = new ArrayList<>(byFoods.values());
+            sorted.sort((a, b) -> a == b ? 0 : a.betterThan(b) ? -1 : 1);
+            return sorted;
+        }
+    }
+
+    /**
+     * State shared by all branches of one optimization
+     */
+    private static final class Run {
+        private final Problem problem;
+        private final Solutions best;
+        private final long deadline;
+        private final LongAdder nodes = new LongAdder();
+        private volatile boolean timedOut;
+
+        Run(Problem problem, Solutions best, long deadline) {
+            this.problem = problem;
+            this.best = best;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Forks one branch per first food
+     */
+    private static final class RootTask extends RecursiveAction {
+        private final Run run;
+
+        RootTask(Run run) {
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            List<BranchTask> branches = new ArrayList<>(run.problem.size());
+            for (int first = 0; first < run.problem.size(); first++) {
+                branches.add(new BranchTask(run, first));
+            }
+            invokeAll(branches);
+        }
+    }
+
+    /**
+     * Depth-first search over all combinations whose first (lowest pool index) food is fixed
+     */
+    private static final class BranchTask extends RecursiveAction {
+        private final Run run;
+        private final Problem problem;
+        private final int first;
+        private final int[] foods = new int[MAX_FOODS];
+        private final double[] grams = new double[MAX_FOODS];
+        private long nodes;
+
+        BranchTask(Run run, int first) {
+            this.run = run;
+            this.problem = run.problem;
+            this.first = first;
+        }
+
+        @Override
+        protected void compute() {
+            tryFood(first, 0, 0, new double[3]);
+            run.nodes.add(nodes);
+        }
+
+        private void extend(int next, int depth, double calories, double[] macros) {
+            if (depth >= problem.minFoods && calories >= problem.lowerCalories && calories <= problem.upperCalories) {
+                double objective = objective(calories, macros, problem.targetCalories, problem.macroTargets);
+                if (objective <= run.best.threshold()) {
+                    run.best.offer(new Solution(Arrays.copyOf(foods, depth), Arrays.copyOf(grams, depth),
+                            calories, macros.clone(), objective));
+                }
+            }
+            if (depth == problem.maxFoods) {
+                return;
+            }
+            for (int i = next; i < problem.size(); i++) {
+                // Even the largest remaining portions cannot lift the meal into the window
+                if (calories + (problem.maxFoods - depth) * problem.suffixMaxCalories[i] < problem.lowerCalories) {
+                    break;
+                }
+                if (!tryFood(i, depth, calories, macros)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Add food i at each of its portions; false once the time budget is spent
+         */
+        private boolean tryFood(int i, int depth, double calories, double[] macros) {
+            int remaining = problem.maxFoods - depth - 1;
+            double[] next = new double[3];
+            for (double portion : problem.levels[i]) {
+                if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > run.deadline) {
+                    run.timedOut = true;
+                }
+                if (run.timedOut) {
+                    return false;
+                }
+                double total = calories + portion * problem.caloriesPerGram[i];
+                // Portions ascend: larger ones overshoot too
+                if (total > problem.upperCalories) {
+                    break;
+                }
+                if (total + remaining * problem.suffixMaxCalories[i + 1] < problem.lowerCalories) {
+                    continue;
+                }
+                for (int m = 0; m < 3; m++) {
+                    next[m] = macros[m] + portion * problem.macrosPerGram[i][m];
+                }
+                // Larger portions only overshoot further
+                if (problem.lowerBound(total, next) > run.best.threshold()) {
+                    break;
+                }
+                foods[depth] = i;
+                grams[depth] = portion;
+                extend(i + 1, depth + 1, total, next);
+                if (run.timedOut) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
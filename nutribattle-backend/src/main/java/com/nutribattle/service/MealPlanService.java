@@ -0,0 +1,110 @@
+// File: src/main/java/com/nutribattle/service/MealPlanService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.CalorieKnnRecommendation;
+import com.nutribattle.dto.MealPlan;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Multi-day meal plans. Every meal type is ranked once, concurrently, against a single
+ * catalog snapshot; the days are then filled greedily from those rankings so that no
+ * food appears more than maxRepeats times in the plan or twice on the same day.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MealPlanService {
+
+    public static final int MAX_DAYS = 7;
+
+    private static final FoodIntake.MealType[] MEAL_TYPES = FoodIntake.MealType.values();
+
+    private final CalorieKnnService calorieKnnService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Plan days consecutive days starting at startDate
+     */
+    public MealPlan generatePlan(User user, LocalDate startDate, int days, int maxRepeats) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("Days must be between 1 and " + MAX_DAYS);
+        }
+        if (maxRepeats < 1) {
+            throw new IllegalArgumentException("Max repeats must be at least 1");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        // A candidate is only skipped when it already fills another slot of the plan,
+        // so days * (4 + 1) candidates per meal type are always enough
+        int candidatesPerMeal = days * (MEAL_TYPES.length + 1);
+        Double dailyCalories = user.getRecommendedCalories();
+        CalorieKnnService.Matcher matcher = calorieKnnService.matcher();
+
+        Map<FoodIntake.MealType, CompletableFuture<List<CalorieKnnRecommendation.FoodMatch>>> pending =
+                new EnumMap<>(FoodIntake.MealType.class);
+        for (FoodIntake.MealType mealType : MEAL_TYPES) {
+            double target = calorieKnnService.calculateMealCalories(dailyCalories, mealType.name());
+            pending.put(mealType, CompletableFuture.supplyAsync(
+                    () -> rankSlot(matcher, mealType, target, candidatesPerMeal)));
+        }
+        Map<FoodIntake.MealType, List<CalorieKnnRecommendation.FoodMatch>> ranked =
+                new EnumMap<>(FoodIntake.MealType.class);
+        pending.forEach((mealType, future) -> ranked.put(mealType, future.join()));
+
+        Map<Long, Integer> uses = new HashMap<>();
+        List<MealPlan.DayPlan> plan = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            Set<Long> usedToday = new HashSet<>();
+            List<MealPlan.PlannedMeal> meals = new ArrayList<>(MEAL_TYPES.length);
+            double totalCalories = 0;
+            for (FoodIntake.MealType mealType : MEAL_TYPES) {
+                MealPlan.PlannedMeal meal = new MealPlan.PlannedMeal();
+                meal.setMealType(mealType.name());
+                meal.setTargetCalories(calorieKnnService.calculateMealCalories(dailyCalories, mealType.name()));
+                for (CalorieKnnRecommendation.FoodMatch match : ranked.get(mealType)) {
+                    Long foodId = match.getFood().getId();
+                    if (uses.getOrDefault(foodId, 0) < maxRepeats && usedToday.add(foodId)) {
+                        uses.merge(foodId, 1, Integer::sum);
+                        meal.setMatch(match);
+                        totalCalories += match.getQuantity() / 100 * match.getFood().getCalories();
+                        break;
+                    }
+                }
+                meals.add(meal);
+            }
+            MealPlan.DayPlan dayPlan = new MealPlan.DayPlan();
+            dayPlan.setDate(startDate.plusDays(day));
+            dayPlan.setMeals(meals);
+            dayPlan.setTotalCalories(Math.round(totalCalories * 10.0) / 10.0);
+            plan.add(dayPlan);
+        }
+
+        MealPlan mealPlan = new MealPlan();
+        mealPlan.setStartDate(startDate);
+        mealPlan.setDays(days);
+        mealPlan.setMaxRepeats(maxRepeats);
+        mealPlan.setDailyTargetCalories(dailyCalories);
+        mealPlan.setPlan(plan);
+
+        long nanos = sample.stop(meterRegistry.timer("nutribattle.plan.generate", "days", String.valueOf(days)));
+        log.debug("Meal plan for {} days built in {} us", days, nanos / 1_000);
+        return mealPlan;
+    }
+
+    private List<CalorieKnnRecommendation.FoodMatch> rankSlot(CalorieKnnService.Matcher matcher,
+                                                             FoodIntake.MealType mealType, double target, int limit) {
+        return meterRegistry.timer("nutribattle.plan.slot", "mealType", mealType.name())
+                .record(() -> matcher.rank(target, limit));
+    }
+}
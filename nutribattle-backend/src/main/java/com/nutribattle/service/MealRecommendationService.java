@@ -0,0 +1,257 @@
+// File: src/main/java/com/nutribattle/service/MealRecommendationService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.MealAlternative;
+import com.nutribattle.dto.MealItem;
+import com.nutribattle.dto.MealRecommendationResult;
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.User;
+import com.nutribattle.repository.FoodIntakeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Whole-meal alternatives: the meal is reduced to its quantity-weighted nutrient
+ * profile per 100g (the centroid of its food vectors weighted by grams), and the
+ * KNN index is queried once with that vector. Besides single foods, two-food
+ * combinations are scored with the mixing ratio that brings them closest to the meal.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MealRecommendationService {
+
+    private static final int DIMENSIONS = FoodVectorIndex.DIMENSIONS;
+
+    // Pair search: combine foods near the meal with foods near its mirror point
+    private static final int POOL_SIZE = 32;
+    private static final int MIRRORED_FOODS = 16;
+    private static final int PARTNERS_PER_FOOD = 8;
+
+    // A combination where one food is below this share is really a single food
+    private static final double MIN_SHARE = 0.1;
+
+    private final FoodVectorIndex foodVectorIndex;
+    private final FoodIntakeRepository foodIntakeRepository;
+
+    /**
+     * Alternatives to a meal the user logged
+     */
+    public MealRecommendationResult getMealAlternatives(User user, LocalDate date, FoodIntake.MealType mealType,
+                                                        int k, boolean includeCombinations) {
+        List<MealItem> items = foodIntakeRepository.findByUserAndIntakeDateAndMealType(user, date, mealType).stream()
+                .map(intake -> new MealItem(intake.getFood().getId(), intake.getQuantity()))
+                .collect(Collectors.toList());
+        return getMealAlternatives(items, k, includeCombinations);
+    }
+
+    /**
+     * Alternatives to an arbitrary meal given as (foodId, grams) pairs.
+     * Foods of the meal itself are never suggested.
+     */
+    public MealRecommendationResult getMealAlternatives(List<MealItem> items, int k, boolean includeCombinations) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Meal has no items");
+        }
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+
+        // Quantity-weighted centroid of the meal's vectors (the vector is linear in the nutrients)
+        double[] centroid = new double[DIMENSIONS];
+        double[] vector = new double[DIMENSIONS];
+        List<Food> mealFoods = new ArrayList<>(items.size());
+        List<Double> mealGrams = new ArrayList<>(items.size());
+        BitSet allowed = new BitSet(snapshot.size());
+        allowed.set(0, snapshot.size());
+        double totalGrams = 0;
+
+        for (MealItem item : items) {
+            int slot = snapshot.slotOf(item.getFoodId());
+            if (slot < 0) {
+                throw new IllegalArgumentException("Food not found: " + item.getFoodId());
+            }
+            if (item.getGrams() == null || item.getGrams() <= 0) {
+                throw new IllegalArgumentException("Grams must be positive");
+            }
+            snapshot.copyVector(slot, vector, 0);
+            for (int d = 0; d < DIMENSIONS; d++) {
+                centroid[d] += vector[d] * item.getGrams();
+            }
+            totalGrams += item.getGrams();
+            allowed.clear(slot);
+            mealFoods.add(snapshot.getFood(slot));
+            mealGrams.add(item.getGrams());
+        }
+        for (int d = 0; d < DIMENSIONS; d++) {
+            centroid[d] /= totalGrams;
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        TopKNeighbors singles = snapshot.nearest(centroid, 0, -1, Math.max(k, POOL_SIZE),
+                FoodVectorIndex.ANY, FoodVectorIndex.ANY, allowed);
+        for (int i = 0; i < Math.min(k, singles.size()); i++) {
+            candidates.add(new Candidate(singles.slotAt(i), -1, 1.0, singles.distanceAt(i)));
+        }
+        if (includeCombinations) {
+            candidates.addAll(findPairs(snapshot, centroid, singles, allowed, k));
+        }
+        candidates.sort(Comparator.comparingDouble((Candidate c) -> c.distance));
+
+        List<MealAlternative> alternatives = new ArrayList<>(k);
+        for (Candidate candidate : candidates.subList(0, Math.min(k, candidates.size()))) {
+            alternatives.add(toAlternative(snapshot, candidate, totalGrams));
+        }
+
+        MealRecommendationResult result = new MealRecommendationResult();
+        result.setTotalGrams(totalGrams);
+        result.setMealProfile(mealProfile(mealFoods, mealGrams, totalGrams));
+        result.setAlternatives(alternatives);
+        return result;
+    }
+
+    /**
+     * Best two-food combinations. For foods a and b mixed as t*a + (1-t)*b, the distance to
+     * the centroid c is minimal at t = ((c - b) . (a - b)) / |a - b|^2. Partners are taken from
+     * the pool around c and from the neighbours of 2c - a, where a 50/50 partner of a would sit.
+     */
+    private List<Candidate> findPairs(FoodVectorIndex.Snapshot snapshot, double[] centroid,
+                                      TopKNeighbors pool, BitSet allowed, int k) {
+        Map<Long, int[]> pairs = new LinkedHashMap<>();
+        double[] mirror = new double[DIMENSIONS];
+        double[] vector = new double[DIMENSIONS];
+
+        for (int i = 0; i < pool.size(); i++) {
+            for (int j = i + 1; j < pool.size(); j++) {
+                addPair(pairs, pool.slotAt(i), pool.slotAt(j));
+            }
+        }
+        for (int i = 0; i < Math.min(MIRRORED_FOODS, pool.size()); i++) {
+            int a = pool.slotAt(i);
+            snapshot.copyVector(a, vector, 0);
+            for (int d = 0; d < DIMENSIONS; d++) {
+                mirror[d] = 2 * centroid[d] - vector[d];
+            }
+            TopKNeighbors partners = snapshot.nearest(mirror, 0, a, PARTNERS_PER_FOOD,
+                    FoodVectorIndex.ANY, FoodVectorIndex.ANY, allowed);
+            for (int j = 0; j < partners.size(); j++) {
+                addPair(pairs, a, partners.slotAt(j));
+            }
+        }
+
+        double[] a = new double[DIMENSIONS];
+        double[] b = new double[DIMENSIONS];
+        PriorityQueue<Candidate> best = new PriorityQueue<>(
+                Comparator.comparingDouble((Candidate c) -> c.distance).reversed());
+        for (int[] pair : pairs.values()) {
+            snapshot.copyVector(pair[0], a, 0);
+            snapshot.copyVector(pair[1], b, 0);
+
+            double dot = 0;
+            double norm = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double ab = a[d] - b[d];
+                dot += (centroid[d] - b[d]) * ab;
+                norm += ab * ab;
+            }
+            if (norm == 0) {
+                continue;
+            }
+            double t = dot / norm;
+            if (t < MIN_SHARE || t > 1 - MIN_SHARE) {
+                continue;
+            }
+
+            double distance = 0;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double diff = t * a[d] + (1 - t) * b[d] - centroid[d];
+                distance += diff * diff;
+            }
+            best.offer(new Candidate(pair[0], pair[1], t, distance));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        return new ArrayList<>(best);
+    }
+
+    private static void addPair(Map<Long, int[]> pairs, int first, int second) {
+        if (first == second) {
+            return;
+        }
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+        pairs.putIfAbsent(((long) low << 32) | high, new int[] {low, high});
+    }
+
+    private MealAlternative toAlternative(FoodVectorIndex.Snapshot snapshot, Candidate candidate, double totalGrams) {
+        MealAlternative alternative = new MealAlternative();
+        List<MealAlternative.Portion> portions = new ArrayList<>(2);
+        Food first = snapshot.getFood(candidate.first);
+        portions.add(new MealAlternative.Portion(first, roundGrams(totalGrams * candidate.share)));
+
+        if (candidate.second >= 0) {
+            Food second = snapshot.getFood(candidate.second);
+            portions.add(new MealAlternative.Portion(second, roundGrams(totalGrams * (1 - candidate.share))));
+            alternative.setReason(String.format("%.0fg %s with %.0fg %s matches the meal's nutrient balance",
+                    portions.get(0).getGrams(), first.getName(), portions.get(1).getGrams(), second.getName()));
+        } else {
+            alternative.setReason(String.format("%.0fg %s is closest to the meal's nutrient balance",
+                    portions.get(0).getGrams(), first.getName()));
+        }
+
+        alternative.setPortions(portions);
+        alternative.setSimilarityScore(1.0 / (1.0 + Math.sqrt(candidate.distance)));
+        return alternative;
+    }
+
+    private Map<String, Double> mealProfile(List<Food> foods, List<Double> grams, double totalGrams) {
+        Map<String, Double> profile = new LinkedHashMap<>();
+        profile.put("calories", weighted(foods, grams, totalGrams, Food::getCalories));
+        profile.put("protein", weighted(foods, grams, totalGrams, Food::getProtein));
+        profile.put("fat", weighted(foods, grams, totalGrams, Food::getFat));
+        profile.put("saturatedFat", weighted(foods, grams, totalGrams, Food::getSaturatedFat));
+        profile.put("carbs", weighted(foods, grams, totalGrams, Food::getCarbs));
+        profile.put("sugar", weighted(foods, grams, totalGrams, Food::getSugar));
+        profile.put("fiber", weighted(foods, grams, totalGrams, Food::getFiber));
+        profile.put("sodium", weighted(foods, grams, totalGrams, Food::getSodium));
+        return profile;
+    }
+
+    private static double weighted(List<Food> foods, List<Double> grams, double totalGrams,
+                                   Function<Food, Double> nutrient) {
+        double sum = 0;
+        for (int i = 0; i < foods.size(); i++) {
+            Double value = nutrient.apply(foods.get(i));
+            sum += (value != null ? value : 0.0) * grams.get(i);
+        }
+        return Math.round(sum / totalGrams * 10.0) / 10.0;
+    }
+
+    private static double roundGrams(double grams) {
+        return (double) Math.round(grams);
+    }
+
+    /**
+     * A single food (second = -1) or a pair mixed as share * first + (1 - share) * second
+     */
+    private static final class Candidate {
+        private final int first;
+        private final int second;
+        private final double share;
+        private final double distance;
+
+        Candidate(int first, int second, double share, double distance) {
+            this.first = first;
+            this.second = second;
+            this.share = share;
+            this.distance = distance;
+        }
+    }
+}
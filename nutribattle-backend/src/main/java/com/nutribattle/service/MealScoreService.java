@@ -0,0 +1,267 @@
+// File: src/main/java/com/nutribattle/service/MealScoreService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.MealNutritionTotals;
+import com.nutribattle.entity.User;
+import com.nutribattle.repository.FoodIntakeRepository;
+import com.nutribattle.repository.MealNutritionTotalsRepository;
+import com.nutribattle.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Nutri-Score of a whole meal or day: the summed nutrients of its intakes, scaled
+ * to 100g and scored like a single food (fruit/vegetable/nut points are the
+ * gram-weighted average of the foods' points).
+ *
+ * Totals are kept per meal in MealNutritionTotals and adjusted on every intake
+ * write; a day is the sum of its (at most four) meal rows. A meal without a row
+ * (logged before totals were kept, or just started) is built from its intakes
+ * the first time it is written, and summed on the fly when read before that.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MealScoreService {
+    
+    // Positions in a totals vector
+    private static final int GRAMS = 0;
+    private static final int CALORIES = 1;
+    private static final int PROTEIN = 2;
+    private static final int FAT = 3;
+    private static final int SATURATED_FAT = 4;
+    private static final int CARBS = 5;
+    private static final int FIBER = 6;
+    private static final int SUGAR = 7;
+    private static final int SODIUM = 8;
+    private static final int FRUIT_VEG_POINT_GRAMS = 9;
+    private static final int VALUES = 10;
+    
+    private final MealNutritionTotalsRepository totalsRepository;
+    private final FoodIntakeRepository foodIntakeRepository;
+    private final NutriScoreCalculator nutriScoreCalculator;
+    private final UserRepository userRepository;
+    
+    /**
+     * What one intake adds to its meal's totals, captured before the intake is edited
+     */
+    static final class Contribution {
+        private final User user;
+        private final LocalDate date;
+        private final FoodIntake.MealType mealType;
+        private final double[] values;
+        
+        private Contribution(User user, LocalDate date, FoodIntake.MealType mealType, double[] values) {
+            this.user = user;
+            this.date = date;
+            this.mealType = mealType;
+            this.values = values;
+        }
+    }
+    
+    /**
+     * Count a new intake in its meal (call after the intake is saved)
+     */
+    @Transactional
+    public void recordIntake(FoodIntake intake) {
+        adjust(contributionOf(intake), 1, 1);
+    }
+    
+    /**
+     * Take a deleted intake out of its meal (call after the intake is deleted)
+     */
+    @Transactional
+    public void removeIntake(FoodIntake intake) {
+        adjust(contributionOf(intake), -1, -1);
+    }
+    
+    /**
+     * Swap an edited intake's old contribution for its new one (the meal may have changed;
+     * call after the edit is saved)
+     */
+    @Transactional
+    public void replaceIntake(Contribution before, FoodIntake after) {
+        // Nutrients were just recalculated from the food, so refresh its points too
+        after.setFruitVegPoints(nutriScoreCalculator.estimateFruitVegPoints(after.getFood()));
+        Contribution updated = contributionOf(after);
+        if (before.mealType != updated.mealType || !before.date.equals(updated.date)) {
+            adjust(before, -1, -1);
+            adjust(updated, 1, 1);
+            return;
+        }
+        
+        // Same meal: apply the difference in one write
+        double[] difference = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            difference[i] = updated.values[i] - before.values[i];
+        }
+        adjust(new Contribution(updated.user, updated.date, updated.mealType, difference), 0, 1);
+    }
+    
+    /**
+     * The intake's share of its meal totals. Uses the nutrients stored on the intake, so
+     * later edits to the food cannot make removals subtract something else; values the
+     * intake does not have yet are taken from the food and pinned on it.
+     */
+    Contribution contributionOf(FoodIntake intake) {
+        Food food = intake.getFood();
+        double grams = intake.getQuantity();
+        if (intake.getSaturatedFat() == null) {
+            intake.setSaturatedFat(safe(food.getSaturatedFat()) * grams / 100.0);
+        }
+        if (intake.getFruitVegPoints() == null) {
+            intake.setFruitVegPoints(nutriScoreCalculator.estimateFruitVegPoints(food));
+        }
+        
+        double[] values = new double[VALUES];
+        values[GRAMS] = grams;
+        values[CALORIES] = intake.getCalories();
+        values[PROTEIN] = intake.getProtein();
+        values[FAT] = intake.getFat();
+        values[SATURATED_FAT] = intake.getSaturatedFat();
+        values[CARBS] = intake.getCarbs();
+        values[FIBER] = intake.getFiber();
+        values[SUGAR] = intake.getSugar();
+        values[SODIUM] = intake.getSodium();
+        values[FRUIT_VEG_POINT_GRAMS] = grams * intake.getFruitVegPoints();
+        return new Contribution(intake.getUser(), intake.getIntakeDate(), intake.getMealType(), values);
+    }
+    
+    /**
+     * Add sign x the contribution's values to its meal row and count more (or fewer) intakes.
+     * The user row is locked for the rest of the transaction so concurrent writes to the
+     * same meal cannot lose each other's contribution or both insert its first row. The
+     * totals row is a locking read, so it holds what the previous writer committed even
+     * though the transaction's snapshot may predate it; building a missing row from the
+     * intakes relies on the caller running at READ_COMMITTED for the same reason.
+     */
+    private void adjust(Contribution contribution, int count, int sign) {
+        userRepository.findByIdForUpdate(contribution.user.getId());
+        Optional<MealNutritionTotals> existing = totalsRepository
+                .findForUpdate(contribution.user, contribution.date, contribution.mealType);
+        if (existing.isEmpty()) {
+            // The intake table already reflects this change
+            List<FoodIntake> intakes = foodIntakeRepository.findByUserAndIntakeDateAndMealType(
+                    contribution.user, contribution.date, contribution.mealType);
+            if (!intakes.isEmpty()) {
+                totalsRepository.save(totalsOf(contribution.user, contribution.date, contribution.mealType, intakes));
+            }
+            return;
+        }
+        
+        MealNutritionTotals totals = existing.get();
+        totals.setIntakeCount(totals.getIntakeCount() + count);
+        if (totals.getIntakeCount() <= 0) {
+            // Empty meal: drop the row rather than keep rounding residue
+            if (totals.getId() != null) {
+                totalsRepository.delete(totals);
+            }
+            return;
+        }
+        add(totals, contribution.values, sign);
+        totals.setUpdatedAt(LocalDateTime.now());
+        totalsRepository.save(totals);
+    }
+    
+    /**
+     * Meal totals of a user's day, by meal type
+     * @param dayIntakes The day's intakes, to sum meals that have no row yet
+     */
+    public Map<FoodIntake.MealType, MealNutritionTotals> getMealTotals(User user, LocalDate date,
+                                                                      List<FoodIntake> dayIntakes) {
+        Map<FoodIntake.MealType, MealNutritionTotals> meals = new EnumMap<>(FoodIntake.MealType.class);
+        for (MealNutritionTotals totals : totalsRepository.findByUserAndIntakeDate(user, date)) {
+            meals.put(totals.getMealType(), totals);
+        }
+        Map<FoodIntake.MealType, List<FoodIntake>> missing = new EnumMap<>(FoodIntake.MealType.class);
+        for (FoodIntake intake : dayIntakes) {
+            if (!meals.containsKey(intake.getMealType())) {
+                missing.computeIfAbsent(intake.getMealType(), mealType -> new ArrayList<>()).add(intake);
+            }
+        }
+        // Not saved here: the meal's next write builds its row under the user lock
+        missing.forEach((mealType, intakes) -> meals.put(mealType, totalsOf(user, date, mealType, intakes)));
+        return meals;
+    }
+    
+    /**
+     * Raw Nutri-Score points of the combined meals, or null if they hold nothing
+     */
+    public Integer score(Collection<MealNutritionTotals> meals) {
+        double[] sum = new double[VALUES];
+        for (MealNutritionTotals totals : meals) {
+            double[] values = valuesOf(totals);
+            for (int i = 0; i < VALUES; i++) {
+                sum[i] += values[i];
+            }
+        }
+        double grams = sum[GRAMS];
+        if (grams <= 0) {
+            return null;
+        }
+        
+        double per100g = 100.0 / grams;
+        int[] scores = new int[1];
+        nutriScoreCalculator.calculateScores(1,
+                new double[] {sum[CALORIES] * per100g}, new double[] {sum[SUGAR] * per100g},
+                new double[] {sum[SATURATED_FAT] * per100g}, new double[] {sum[SODIUM] * per100g},
+                new double[] {sum[FIBER] * per100g}, new double[] {sum[PROTEIN] * per100g},
+                new int[] {(int) Math.floor(sum[FRUIT_VEG_POINT_GRAMS] / grams + 1e-9)}, scores);
+        return scores[0];
+    }
+    
+    /**
+     * Totals of one meal summed from its intakes
+     */
+    private MealNutritionTotals totalsOf(User user, LocalDate date, FoodIntake.MealType mealType,
+                                         List<FoodIntake> intakes) {
+        MealNutritionTotals totals = new MealNutritionTotals(user, date, mealType);
+        for (FoodIntake intake : intakes) {
+            totals.setIntakeCount(totals.getIntakeCount() + 1);
+            add(totals, contributionOf(intake).values, 1);
+        }
+        totals.setUpdatedAt(LocalDateTime.now());
+        return totals;
+    }
+    
+    private static void add(MealNutritionTotals totals, double[] values, int sign) {
+        totals.setGrams(totals.getGrams() + sign * values[GRAMS]);
+        totals.setCalories(totals.getCalories() + sign * values[CALORIES]);
+        totals.setProtein(totals.getProtein() + sign * values[PROTEIN]);
+        totals.setFat(totals.getFat() + sign * values[FAT]);
+        totals.setSaturatedFat(totals.getSaturatedFat() + sign * values[SATURATED_FAT]);
+        totals.setCarbs(totals.getCarbs() + sign * values[CARBS]);
+        totals.setFiber(totals.getFiber() + sign * values[FIBER]);
+        totals.setSugar(totals.getSugar() + sign * values[SUGAR]);
+        totals.setSodium(totals.getSodium() + sign * values[SODIUM]);
+        totals.setFruitVegPointGrams(totals.getFruitVegPointGrams() + sign * values[FRUIT_VEG_POINT_GRAMS]);
+    }
+    
+    private static double[] valuesOf(MealNutritionTotals totals) {
+        double[] values = new double[VALUES];
+        values[GRAMS] = totals.getGrams();
+        values[CALORIES] = totals.getCalories();
+        values[PROTEIN] = totals.getProtein();
+        values[FAT] = totals.getFat();
+        values[SATURATED_FAT] = totals.getSaturatedFat();
+        values[CARBS] = totals.getCarbs();
+        values[FIBER] = totals.getFiber();
+        values[SUGAR] = totals.getSugar();
+        values[SODIUM] = totals.getSodium();
+        values[FRUIT_VEG_POINT_GRAMS] = totals.getFruitVegPointGrams();
+        return values;
+    }
+    
+    private static double safe(Double value) {
+        return value != null ? value : 0.0;
+    }
+}
@@ -1,8 +1,15 @@
 package com.nutribattle.service;
 
 import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FruitVegKeyword;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Service to calculate Nutri-Score for food items.
  * 
@@ -15,21 +22,161 @@ import org.springframework.stereotype.Service;
 @Service
 public class NutriScoreCalculator {
     
+    // Upper bound of each points band used by the batch scorer: a value above
+    // bounds[i] earns at least i + 1 points (same thresholds as the ladders below)
+    private static final double[] ENERGY_KJ_BOUNDS = {335, 670, 1005, 1340, 1675, 2010, 2345, 2680, 3015, 3350};
+    private static final double[] SUGAR_BOUNDS = {4.5, 9, 13.5, 18, 22.5, 27, 31, 36, 40, 45};
+    private static final double[] SATURATED_FAT_BOUNDS = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+    private static final double[] SODIUM_BOUNDS = {90, 180, 270, 360, 450, 540, 630, 720, 810, 900};
+    private static final double[] FIBER_BOUNDS = {0.9, 1.9, 2.8, 3.7, 4.7};
+    private static final double[] PROTEIN_BOUNDS = {1.6, 3.2, 4.8, 6.4, 8.0};
+    
+    // Built-in keywords for the fruit/vegetable/nut estimate; admins can add more at runtime
+    private static final List<FruitVegKeyword> DEFAULT_KEYWORDS = List.of(
+            new FruitVegKeyword("fruit", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.FRUIT_VEGETABLE),
+            new FruitVegKeyword("vegetable", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.FRUIT_VEGETABLE),
+            new FruitVegKeyword("nut", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.NUT_SEED),
+            new FruitVegKeyword("seed", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.NUT_SEED),
+            new FruitVegKeyword("almond", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.NUT_SEED),
+            new FruitVegKeyword("cashew", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.NUT_SEED),
+            new FruitVegKeyword("walnut", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.NUT_SEED),
+            new FruitVegKeyword("pista", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.NUT_SEED),
+            new FruitVegKeyword("legume", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.LEGUME),
+            new FruitVegKeyword("lentil", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.LEGUME),
+            new FruitVegKeyword("dal", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.LEGUME),
+            new FruitVegKeyword("bean", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.LEGUME),
+            new FruitVegKeyword("soup", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.MIXED_DISH),
+            new FruitVegKeyword("curry", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.MIXED_DISH),
+            new FruitVegKeyword("vegetable", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.VEGETABLE_INGREDIENT),
+            new FruitVegKeyword("saag", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.VEGETABLE_INGREDIENT),
+            new FruitVegKeyword("tarkari", FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.VEGETABLE_INGREDIENT),
+            new FruitVegKeyword("pickle", FruitVegKeyword.Field.CATEGORY, FruitVegKeyword.KeywordClass.PICKLE));
+    
+    private volatile Keywords keywords = new Keywords(DEFAULT_KEYWORDS);
+    
     /**
      * Calculate Nutri-Score for a food item
      * @param food The food item to calculate score for
      * @return Nutri-Score grade (A-E)
      */
     public String calculateNutriScore(Food food) {
+        // Convert score to grade
+        return scoreToGrade(calculateScore(food));
+    }
+    
+    /**
+     * Calculate the raw Nutri-Score points (-15 to 40, lower is better)
+     * @param food The food item to calculate score for
+     * @return Negative points minus positive points
+     */
+    public int calculateScore(Food food) {
         // Calculate per 100g (our data is already per 100g)
         int negativePoints = calculateNegativePoints(food);
         int positivePoints = calculatePositivePoints(food, negativePoints);
         
         // Final score = negative - positive
-        int finalScore = negativePoints - positivePoints;
+        return negativePoints - positivePoints;
+    }
+    
+    /**
+     * Store the score and grade on the food (they are persisted with it)
+     * @param food The food item to score
+     * @return true if either value changed
+     */
+    public boolean applyNutriScore(Food food) {
+        int score = calculateScore(food);
+        String grade = scoreToGrade(score);
+        boolean changed = !Integer.valueOf(score).equals(food.getNutriScoreValue())
+                || !grade.equals(food.getNutriScore());
+        food.setNutriScoreValue(score);
+        food.setNutriScore(grade);
+        return changed;
+    }
+    
+    /**
+     * Score many foods at once from primitive nutrient columns (per 100g).
+     * Gives exactly the points of calculateScore for each food.
+     * @param count Number of foods; every column holds at least this many values
+     * @param fruitVegPoints Fruit/vegetable/nut points per food (see estimateFruitVegPoints)
+     * @param scores Output: raw Nutri-Score points per food
+     */
+    public void calculateScores(int count, double[] calories, double[] sugar, double[] saturatedFat,
+                                double[] sodium, double[] fiber, double[] protein,
+                                int[] fruitVegPoints, int[] scores) {
+        for (int i = 0; i < count; i++) {
+            int negativePoints = points(calories[i] * 4.184, ENERGY_KJ_BOUNDS)
+                    + points(sugar[i], SUGAR_BOUNDS)
+                    + points(saturatedFat[i], SATURATED_FAT_BOUNDS)
+                    + points(sodium[i], SODIUM_BOUNDS);
+            
+            // Protein only counts if negative points < 11 OR if fruit/veg points >= 5
+            int proteinCounts = negativePoints < 11 | fruitVegPoints[i] >= 5 ? 1 : 0;
+            int positivePoints = points(fiber[i], FIBER_BOUNDS)
+                    + proteinCounts * points(protein[i], PROTEIN_BOUNDS)
+                    + fruitVegPoints[i];
+            
+            scores[i] = negativePoints - positivePoints;
+        }
+    }
+    
+    /**
+     * Score a list of foods through the columnar batch API
+     * @return Raw Nutri-Score points, in list order
+     */
+    public int[] calculateScores(List<Food> foods) {
+        int count = foods.size();
+        double[] calories = new double[count];
+        double[] sugar = new double[count];
+        double[] saturatedFat = new double[count];
+        double[] sodium = new double[count];
+        double[] fiber = new double[count];
+        double[] protein = new double[count];
+        int[] fruitVeg = new int[count];
+        for (int i = 0; i < count; i++) {
+            Food food = foods.get(i);
+            calories[i] = food.getCalories();
+            sugar[i] = food.getSugar();
+            saturatedFat[i] = food.getSaturatedFat();
+            sodium[i] = food.getSodium();
+            fiber[i] = food.getFiber();
+            protein[i] = food.getProtein();
+            fruitVeg[i] = estimateFruitVegPoints(food);
+        }
         
-        // Convert score to grade
-        return scoreToGrade(finalScore);
+        int[] scores = new int[count];
+        calculateScores(count, calories, sugar, saturatedFat, sodium, fiber, protein, fruitVeg, scores);
+        return scores;
+    }
+    
+    /**
+     * Batch version of applyNutriScore
+     * @return The foods whose stored score or grade changed
+     */
+    public List<Food> applyNutriScores(List<Food> foods) {
+        int[] scores = calculateScores(foods);
+        List<Food> changed = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            Food food = foods.get(i);
+            String grade = scoreToGrade(scores[i]);
+            if (!Integer.valueOf(scores[i]).equals(food.getNutriScoreValue()) || !grade.equals(food.getNutriScore())) {
+                food.setNutriScoreValue(scores[i]);
+                food.setNutriScore(grade);
+                changed.add(food);
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Number of band bounds the value exceeds. The comparisons become flag-setting
+     * instructions rather than jumps, and NaN exceeds every bound like in the ladders.
+     */
+    private static int points(double value, double[] bounds) {
+        int points = 0;
+        for (double bound : bounds) {
+            points += value <= bound ? 0 : 1;
+        }
+        return points;
     }
     
     /**
@@ -136,51 +283,114 @@ public class NutriScoreCalculator {
     }
     
     /**
-     * Estimate fruit/vegetable/nut content based on food category
-     * This is a simplified approach for our dataset
+     * Estimate fruit/vegetable/nut content based on food category and name keywords.
+     * Cached per food id until the food is edited or the keywords change.
      */
-    private int estimateFruitVegPoints(Food food) {
-        String category = food.getCategory().toLowerCase();
-        String name = food.getName().toLowerCase();
-        
-        // Direct fruit/vegetable categories
-        if (category.contains("fruit") || category.contains("vegetable")) {
-            return 5; // Assume 80-100% content
+    public int estimateFruitVegPoints(Food food) {
+        Keywords current = keywords;
+        Long id = food.getId();
+        if (id == null) {
+            return current.points(food);
         }
-        
-        // Nuts and seeds
-        if (category.contains("nut") || category.contains("seed") || 
-            name.contains("almond") || name.contains("cashew") || 
-            name.contains("walnut") || name.contains("pista")) {
-            return 5;
+        Integer cached = current.pointsById.get(id);
+        if (cached == null) {
+            cached = current.points(food);
+            current.pointsById.put(id, cached);
         }
-        
-        // Legumes get partial points
-        if (category.contains("legume") || category.contains("lentil") ||
-            name.contains("dal") || name.contains("bean")) {
-            return 3;
+        return cached;
+    }
+    
+    /**
+     * Compile the built-in keywords plus the given admin keywords, replacing the current set
+     */
+    public void setCustomKeywords(List<FruitVegKeyword> customKeywords) {
+        List<FruitVegKeyword> all = new ArrayList<>(DEFAULT_KEYWORDS);
+        all.addAll(customKeywords);
+        keywords = new Keywords(all);
+    }
+    
+    /**
+     * Built-in and admin keywords currently in use
+     */
+    public List<FruitVegKeyword> getKeywords() {
+        return keywords.keywords;
+    }
+    
+    /**
+     * Forget the cached fruit/vegetable points of an edited or deleted food
+     */
+    public void invalidate(Long foodId) {
+        if (foodId != null) {
+            keywords.pointsById.remove(foodId);
         }
+    }
+    
+    @EventListener
+    public void onCatalogChanged(FoodCatalogChangedEvent event) {
+        invalidate(event.getFoodId());
+    }
+    
+    /**
+     * Keyword set compiled into one automaton per food field, with the points
+     * already worked out per food (dropped wholesale when the keywords change)
+     */
+    private static final class Keywords {
+        private final List<FruitVegKeyword> keywords;
+        private final KeywordAutomaton category;
+        private final KeywordAutomaton name;
+        private final ConcurrentMap<Long, Integer> pointsById = new ConcurrentHashMap<>();
         
-        // Soups and curries with vegetables
-        if ((category.contains("soup") || category.contains("curry")) && 
-            (name.contains("vegetable") || name.contains("saag") || 
-             name.contains("tarkari"))) {
-            return 2;
+        Keywords(List<FruitVegKeyword> keywords) {
+            this.keywords = Collections.unmodifiableList(keywords);
+            Map<String, Integer> categoryKeywords = new HashMap<>();
+            Map<String, Integer> nameKeywords = new HashMap<>();
+            for (FruitVegKeyword keyword : keywords) {
+                Map<String, Integer> target = keyword.getField() == FruitVegKeyword.Field.CATEGORY
+                        ? categoryKeywords : nameKeywords;
+                target.merge(keyword.getKeyword(), bit(keyword.getKeywordClass()), (a, b) -> a | b);
+            }
+            this.category = new KeywordAutomaton(categoryKeywords);
+            this.name = new KeywordAutomaton(nameKeywords);
         }
         
-        // Pickles made from vegetables
-        if (category.contains("pickle") && food.getType().equals("Traditional")) {
-            return 2;
+        int points(Food food) {
+            int found = category.match(food.getCategory()) | name.match(food.getName());
+            
+            // Fruits, vegetables, nuts and seeds: assume 80-100% content
+            if ((found & (bit(FruitVegKeyword.KeywordClass.FRUIT_VEGETABLE)
+                    | bit(FruitVegKeyword.KeywordClass.NUT_SEED))) != 0) {
+                return 5;
+            }
+            
+            // Legumes get partial points
+            if ((found & bit(FruitVegKeyword.KeywordClass.LEGUME)) != 0) {
+                return 3;
+            }
+            
+            // Soups and curries with vegetables
+            if ((found & bit(FruitVegKeyword.KeywordClass.MIXED_DISH)) != 0
+                    && (found & bit(FruitVegKeyword.KeywordClass.VEGETABLE_INGREDIENT)) != 0) {
+                return 2;
+            }
+            
+            // Pickles made from vegetables
+            if ((found & bit(FruitVegKeyword.KeywordClass.PICKLE)) != 0 && "Traditional".equals(food.getType())) {
+                return 2;
+            }
+            
+            // Default: no fruit/veg content
+            return 0;
         }
         
-        // Default: no fruit/veg content
-        return 0;
+        private static int bit(FruitVegKeyword.KeywordClass keywordClass) {
+            return 1 << keywordClass.ordinal();
+        }
     }
     
     /**
      * Convert final score to Nutri-Score grade
      */
-    private String scoreToGrade(int score) {
+    public String scoreToGrade(int score) {
         if (score <= -1) return "A";
         else if (score <= 2) return "B";
         else if (score <= 10) return "C";
@@ -5,13 +5,17 @@ package com.nutribattle.service;
 import com.nutribattle.dto.*;
 import com.nutribattle.entity.Food;
 import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.MealNutritionTotals;
 import com.nutribattle.entity.User;
+import com.nutribattle.event.FoodIntakeChangedEvent;
 import com.nutribattle.repository.FoodIntakeRepository;
 import com.nutribattle.repository.FoodRepository;
 import com.nutribattle.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
@@ -27,11 +31,16 @@ public class NutritionTrackingService {
     private final FoodRepository foodRepository;
     private final UserRepository userRepository;
     private final NutriScoreCalculator nutriScoreCalculator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TasteProfileService tasteProfileService;
+    private final MealScoreService mealScoreService;
     
     /**
-     * Add food intake for a user
+     * Add food intake for a user. Runs at READ_COMMITTED, like every intake write: meal
+     * totals and taste profiles are read after taking the user lock
+     * and must see what the previous writer committed, not this transaction's snapshot.
      */
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public FoodIntakeResponse addFoodIntake(User user, AddFoodIntakeRequest request) {
         // Get the food
         Food food = foodRepository.findById(request.getFoodId())
@@ -52,6 +61,9 @@ public class NutritionTrackingService {
         
         // Save
         FoodIntake saved = foodIntakeRepository.save(intake);
+        mealScoreService.recordIntake(saved);
+        tasteProfileService.recordIntake(saved);
+        publishIntakeChange(saved, FoodIntakeChangedEvent.ChangeType.ADDED);
         
         return mapToResponse(saved);
     }
@@ -117,6 +129,20 @@ public class NutritionTrackingService {
         summary.setFatPercentage(calculatePercentage(totalFat, user.getDailyFatGoal()));
         summary.setCarbPercentage(calculatePercentage(totalCarbs, user.getDailyCarbGoal()));
         
+        // Meal and day Nutri-Scores from the running meal totals
+        Map<FoodIntake.MealType, MealNutritionTotals> mealTotals = mealScoreService.getMealTotals(user, date, intakes);
+        for (MealSummary mealSummary : mealBreakdown.values()) {
+            MealNutritionTotals totals = mealTotals.get(mealSummary.getMealType());
+            if (totals != null) {
+                Integer score = mealScoreService.score(List.of(totals));
+                mealSummary.setNutriScoreValue(score);
+                mealSummary.setNutriScore(score != null ? nutriScoreCalculator.scoreToGrade(score) : null);
+            }
+        }
+        Integer dayScore = mealScoreService.score(mealTotals.values());
+        summary.setNutriScoreValue(dayScore);
+        summary.setNutriScore(dayScore != null ? nutriScoreCalculator.scoreToGrade(dayScore) : null);
+        
         // Set breakdown and items
         summary.setMealBreakdown(new ArrayList<>(mealBreakdown.values()));
         summary.setFoodItems(foodItems);
@@ -183,9 +209,9 @@ public class NutritionTrackingService {
     }
     
     /**
-     * Update food intake
+     * Update food intake (READ_COMMITTED, see addFoodIntake)
      */
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public FoodIntakeResponse updateFoodIntake(User user, Long intakeId, AddFoodIntakeRequest request) {
         FoodIntake intake = foodIntakeRepository.findById(intakeId)
                 .orElseThrow(() -> new IllegalArgumentException("Food intake not found"));
@@ -196,6 +222,10 @@ public class NutritionTrackingService {
         }
         
         // Update fields
+        MealScoreService.Contribution previousContribution = mealScoreService.contributionOf(intake);
+        FoodIntake.MealType previousMealType = intake.getMealType();
+        Double previousQuantity = intake.getQuantity();
+        Food previousNutrients = TasteProfileService.nutrientsOf(intake);
         if (request.getQuantity() != null) {
             intake.setQuantity(request.getQuantity());
         }
@@ -210,13 +240,22 @@ public class NutritionTrackingService {
         intake.calculateNutrition();
         
         FoodIntake updated = foodIntakeRepository.save(intake);
+        mealScoreService.replaceIntake(previousContribution, updated);
+        
+        // Nutrients were recalculated from the food even if only the notes changed
+        tasteProfileService.replaceIntake(previousNutrients, previousMealType, previousQuantity, updated);
+        
+        // Only moving the food to another meal changes what was eaten together
+        if (updated.getMealType() != previousMealType) {
+            publishIntakeChange(updated, FoodIntakeChangedEvent.ChangeType.MOVED);
+        }
         return mapToResponse(updated);
     }
     
     /**
-     * Delete food intake
+     * Delete food intake (READ_COMMITTED, see addFoodIntake)
      */
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void deleteFoodIntake(User user, Long intakeId) {
         FoodIntake intake = foodIntakeRepository.findById(intakeId)
                 .orElseThrow(() -> new IllegalArgumentException("Food intake not found"));
@@ -227,6 +266,17 @@ public class NutritionTrackingService {
         }
         
         foodIntakeRepository.delete(intake);
+        mealScoreService.removeIntake(intake);
+        tasteProfileService.removeIntake(intake);
+        publishIntakeChange(intake, FoodIntakeChangedEvent.ChangeType.REMOVED);
+    }
+    
+    /**
+     * Tell listeners (co-occurrence counts) which day changed; they read its intakes after commit
+     */
+    private void publishIntakeChange(FoodIntake intake, FoodIntakeChangedEvent.ChangeType changeType) {
+        eventPublisher.publishEvent(new FoodIntakeChangedEvent(this, intake.getUser().getId(),
+                intake.getIntakeDate(), intake.getMealType(), intake.getFood().getId(), changeType));
     }
     
     /**
@@ -289,7 +339,9 @@ public class NutritionTrackingService {
         response.setSugar(intake.getSugar());
         response.setSodium(intake.getSodium());
         response.setNotes(intake.getNotes());
-        response.setNutriScore(nutriScoreCalculator.calculateNutriScore(intake.getFood()));
+        String nutriScore = intake.getFood().getNutriScore();
+        response.setNutriScore(nutriScore != null ? nutriScore
+                : nutriScoreCalculator.calculateNutriScore(intake.getFood()));
         
         return response;
     }
@@ -0,0 +1,174 @@
+// File: src/main/java/com/nutribattle/service/PrefixTrie.java
+
+package com.nutribattle.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Character trie of search terms, each term holding the foods it occurs in with a bit
+ * mask of the fields it occurs in. Children are kept in sorted arrays, so a lookup is
+ * a binary search per character. Not thread-safe; FoodSearchIndex guards it.
+ */
+final class PrefixTrie {
+
+    /**
+     * One trie node; a term ends here when it has postings
+     */
+    static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Map<Long, Integer> postings; // Food id -> field mask
+        private int terms; // Terms ending at or below this node
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        int childCount() {
+            return labels.length;
+        }
+
+        char labelAt(int index) {
+            return labels[index];
+        }
+
+        Node childAt(int index) {
+            return children[index];
+        }
+
+        /**
+         * Foods whose term ends exactly here, or null
+         */
+        Map<Long, Integer> postings() {
+            return postings;
+        }
+
+        private Node addChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = c;
+            newChildren[insert] = new Node();
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insert];
+        }
+
+        private void removeChild(char c) {
+            int index = Arrays.binarySearch(labels, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+
+    private Node root = new Node();
+
+    Node root() {
+        return root;
+    }
+
+    void clear() {
+        root = new Node();
+    }
+
+    /**
+     * Record that a food has the term in the given fields
+     */
+    void add(String term, long foodId, int fieldMask) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].addChild(term.charAt(i));
+        }
+        Node end = path[term.length()];
+        if (end.postings == null) {
+            end.postings = new HashMap<>(4);
+            for (Node node : path) {
+                node.terms++;
+            }
+        }
+        end.postings.merge(foodId, fieldMask, (a, b) -> a | b);
+    }
+
+    /**
+     * Take a food off a term, dropping nodes that no longer lead to any term
+     */
+    void remove(String term, long foodId) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].child(term.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node end = path[term.length()];
+        if (end.postings == null || end.postings.remove(foodId) == null || !end.postings.isEmpty()) {
+            return;
+        }
+        end.postings = null;
+        for (Node node : path) {
+            node.terms--;
+        }
+        for (int i = term.length(); i > 0; i--) {
+            if (path[i].terms == 0) {
+                path[i - 1].removeChild(term.charAt(i - 1));
+            }
+        }
+    }
+
+    /**
+     * Node reached by the prefix, or null
+     */
+    Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Number of distinct terms
+     */
+    int size() {
+        return root.terms;
+    }
+
+    /**
+     * Call the visitor with the postings of every term at or below the node
+     */
+    static void forEachPosting(Node node, PostingVisitor visitor) {
+        if (node.postings != null) {
+            node.postings.forEach(visitor::visit);
+        }
+        for (Node child : node.children) {
+            forEachPosting(child, visitor);
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingVisitor {
+        void visit(Long foodId, Integer fieldMask);
+    }
+}
@@ -0,0 +1,146 @@
+// File: src/main/java/com/nutribattle/service/QuantizedVectors.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.service.FoodVectorIndex.VectorPrecision;
+
+/**
+ * Compact copy of the normalized food vectors used for coarse search.
+ * FLOAT32 stores every value as a float (4 bytes); INT8 stores one byte per value
+ * with a per-dimension scale and offset (value = offset + scale * (code + 128)).
+ *
+ * The largest reconstruction error over all vectors is measured at build time, so
+ * callers can bound how far an approximate distance is from the exact one and
+ * re-rank enough candidates to return exactly the same neighbours.
+ */
+final class QuantizedVectors {
+
+    private static final int INT8_LEVELS = 255;
+
+    private final VectorPrecision precision;
+    private final int dimensions;
+    private final int size;
+    private final float[] floats;
+    private final byte[] codes;
+    private final double[] scales;
+    private final double[] offsets;
+    private final double maxError;
+
+    private QuantizedVectors(VectorPrecision precision, int dimensions, double[] vectors, float[] floats,
+                             byte[] codes, double[] scales, double[] offsets) {
+        this.precision = precision;
+        this.dimensions = dimensions;
+        this.size = vectors.length / dimensions;
+        this.floats = floats;
+        this.codes = codes;
+        this.scales = scales;
+        this.offsets = offsets;
+
+        // Measure the actual error rather than trusting the theoretical one
+        double largest = 0;
+        for (int slot = 0; slot < size; slot++) {
+            double sum = 0;
+            for (int d = 0; d < dimensions; d++) {
+                double error = vectors[slot * dimensions + d] - value(slot, d);
+                sum += error * error;
+            }
+            largest = Math.max(largest, Math.sqrt(sum));
+        }
+        this.maxError = largest;
+    }
+
+    /**
+     * Encode size row-major vectors of the given dimensions
+     */
+    static QuantizedVectors encode(double[] vectors, int dimensions, VectorPrecision precision) {
+        int size = vectors.length / dimensions;
+        switch (precision) {
+            case FLOAT32:
+                float[] floats = new float[vectors.length];
+                for (int i = 0; i < vectors.length; i++) {
+                    floats[i] = (float) vectors[i];
+                }
+                return new QuantizedVectors(precision, dimensions, vectors, floats, null, null, null);
+
+            case INT8:
+                double[] scales = new double[dimensions];
+                double[] offsets = new double[dimensions];
+                for (int d = 0; d < dimensions; d++) {
+                    double min = Double.POSITIVE_INFINITY;
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int offset = d; offset < vectors.length; offset += dimensions) {
+                        min = Math.min(min, vectors[offset]);
+                        max = Math.max(max, vectors[offset]);
+                    }
+                    offsets[d] = size > 0 ? min : 0;
+                    scales[d] = size > 0 ? (max - min) / INT8_LEVELS : 0;
+                }
+                byte[] codes = new byte[vectors.length];
+                for (int i = 0; i < vectors.length; i++) {
+                    int d = i % dimensions;
+                    long level = scales[d] > 0 ? Math.round((vectors[i] - offsets[d]) / scales[d]) : 0;
+                    codes[i] = (byte) (Math.max(0, Math.min(INT8_LEVELS, level)) - 128);
+                }
+                return new QuantizedVectors(precision, dimensions, vectors, null, codes, scales, offsets);
+
+            default:
+                throw new IllegalArgumentException("Not a quantized precision: " + precision);
+        }
+    }
+
+    VectorPrecision precision() {
+        return precision;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Decoded value of one dimension of a vector
+     */
+    double value(int slot, int dim) {
+        int index = slot * dimensions + dim;
+        if (floats != null) {
+            return floats[index];
+        }
+        return offsets[dim] + scales[dim] * (codes[index] + 128);
+    }
+
+    /**
+     * Squared distance from the query to the decoded vector of a slot
+     */
+    double approximateDistance(double[] query, int queryOffset, int slot) {
+        int offset = slot * dimensions;
+        double sum = 0;
+        if (floats != null) {
+            for (int d = 0; d < dimensions; d++) {
+                double diff = query[queryOffset + d] - floats[offset + d];
+                sum += diff * diff;
+            }
+        } else {
+            for (int d = 0; d < dimensions; d++) {
+                double diff = query[queryOffset + d] - (offsets[d] + scales[d] * (codes[offset + d] + 128));
+                sum += diff * diff;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Largest Euclidean distance between a vector and its decoded copy
+     */
+    double maxError() {
+        return maxError;
+    }
+
+    /**
+     * Bytes held by the encoded vectors and their per-dimension parameters
+     */
+    long memoryBytes() {
+        if (floats != null) {
+            return (long) floats.length * Float.BYTES;
+        }
+        return codes.length + 2L * dimensions * Double.BYTES;
+    }
+}
@@ -0,0 +1,28 @@
+// File: src/main/java/com/nutribattle/service/ScalarDistanceKernel.java
+
+package com.nutribattle.service;
+
+/**
+ * Portable distance kernel, one candidate at a time.
+ * Used when the Vector API is disabled or not available.
+ */
+public class ScalarDistanceKernel implements DistanceKernel {
+
+    @Override
+    public void squaredDistances(double[] columns, int stride, int dimensions, int from, int to,
+                                 double[] query, int queryOffset, double[] out) {
+        for (int i = from; i < to; i++) {
+            double sum = 0;
+            for (int d = 0; d < dimensions; d++) {
+                double diff = columns[d * stride + i] - query[queryOffset + d];
+                sum += diff * diff;
+            }
+            out[i - from] = sum;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,283 @@
+// File: src/main/java/com/nutribattle/service/TasteProfileService.java
+
+package com.nutribattle.service;
+
+import com.nutribattle.dto.FoodRecommendation;
+import com.nutribattle.dto.PersonalRecommendationResult;
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.User;
+import com.nutribattle.entity.UserTasteProfile;
+import com.nutribattle.repository.FoodIntakeRepository;
+import com.nutribattle.repository.UserRepository;
+import com.nutribattle.repository.UserTasteProfileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Per-user taste profiles: for every meal type, the gram-weighted average nutrients of
+ * what the user logs, with each intake's weight halving every half-life days.
+ * Every intake write adjusts one small row, so a personalised recommendation is a
+ * single KNN query with the profile (plus an offset towards the user's goal).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TasteProfileService {
+
+    private static final int DIMENSIONS = FoodVectorIndex.DIMENSIONS;
+
+    // A profile whose weight decays or is deleted below this is empty
+    private static final double MIN_GRAMS = 1e-6;
+
+    // Shift of the query per goal, in normalized vector units (0.1 = 100 kcal, 5g protein,
+    // 10g fat, 5g saturated fat, 10g carbs, 10g sugar, 5g fiber, 300mg sodium per 100g)
+    private static final Map<User.NutritionGoal, double[]> GOAL_OFFSETS = new EnumMap<>(Map.of(
+            User.NutritionGoal.WEIGHT_LOSS, new double[] {-0.08, 0.06, -0.05, -0.04, -0.05, -0.05, 0.06, -0.05},
+            User.NutritionGoal.WEIGHT_GAIN, new double[] {0.08, 0.08, 0.02, 0.0, 0.05, 0.0, 0.02, 0.0},
+            User.NutritionGoal.MAINTAIN, new double[] {0.0, 0.02, 0.0, -0.02, 0.0, -0.03, 0.02, -0.03}));
+
+    private final UserTasteProfileRepository tasteProfileRepository;
+    private final FoodIntakeRepository foodIntakeRepository;
+    private final FoodVectorIndex foodVectorIndex;
+    private final UserRepository userRepository;
+
+    @Value("${app.taste-profile.half-life-days:14}")
+    private double halfLifeDays = 14;
+
+    /**
+     * Count a logged intake in the user's profile for that meal type
+     */
+    @Transactional
+    public void recordIntake(FoodIntake intake) {
+        if (!prepare(intake.getUser())) {
+            update(intake.getUser(), nutrientsOf(intake), intake.getMealType(), intake.getIntakeDate(),
+                    intake.getQuantity());
+        }
+    }
+
+    /**
+     * Take a deleted intake back out of the profile (call after the intake is deleted)
+     */
+    @Transactional
+    public void removeIntake(FoodIntake intake) {
+        if (!prepare(intake.getUser())) {
+            update(intake.getUser(), nutrientsOf(intake), intake.getMealType(), intake.getIntakeDate(),
+                    -intake.getQuantity());
+        }
+    }
+
+    /**
+     * Swap an edited intake's old values for its new ones (call after the edit is saved)
+     * @param before Nutrients per 100g of the intake before the edit, from nutrientsOf
+     */
+    @Transactional
+    public void replaceIntake(Food before, FoodIntake.MealType mealTypeBefore, double gramsBefore, FoodIntake after) {
+        if (!prepare(after.getUser())) {
+            update(after.getUser(), before, mealTypeBefore, after.getIntakeDate(), -gramsBefore);
+            update(after.getUser(), nutrientsOf(after), after.getMealType(), after.getIntakeDate(), after.getQuantity());
+        }
+    }
+
+    /**
+     * Lock the user against concurrent intake writes and, if the user has no profiles yet,
+     * build them from the intake table, which already reflects the change being recorded.
+     * The existence check and the backfill only see a concurrent first write that committed
+     * while we waited for the lock if the transaction runs at READ_COMMITTED, as the intake
+     * writes and recommend do.
+     * @return Whether the profiles were just built (the change must not be applied again)
+     */
+    private boolean prepare(User user) {
+        userRepository.findByIdForUpdate(user.getId());
+        if (tasteProfileRepository.existsByUser(user)) {
+            return false;
+        }
+        backfill(user);
+        return true;
+    }
+
+    private void update(User user, Food nutrients, FoodIntake.MealType mealType, LocalDate date, double grams) {
+        UserTasteProfile profile = tasteProfileRepository.findForUpdate(user, mealType)
+                .orElseGet(() -> new UserTasteProfile(user, mealType, date));
+        apply(profile, nutrients, date, grams, halfLifeDays);
+        if (profile.getTotalGrams() < MIN_GRAMS) {
+            if (profile.getId() != null) {
+                tasteProfileRepository.delete(profile);
+            }
+            return;
+        }
+        profile.setUpdatedAt(LocalDateTime.now());
+        tasteProfileRepository.save(profile);
+    }
+
+    /**
+     * Nutrients per 100g as logged on the intake, so that removing it subtracts exactly
+     * what was added even if an admin has since edited the food. Saturated fat is missing
+     * on intakes logged before it was tracked and comes from the food.
+     */
+    public static Food nutrientsOf(FoodIntake intake) {
+        double per100g = intake.getQuantity() > 0 ? 100.0 / intake.getQuantity() : 0.0;
+        Food nutrients = new Food();
+        nutrients.setCalories(safe(intake.getCalories()) * per100g);
+        nutrients.setProtein(safe(intake.getProtein()) * per100g);
+        nutrients.setFat(safe(intake.getFat()) * per100g);
+        nutrients.setSaturatedFat(intake.getSaturatedFat() != null
+                ? intake.getSaturatedFat() * per100g : safe(intake.getFood().getSaturatedFat()));
+        nutrients.setCarbs(safe(intake.getCarbs()) * per100g);
+        nutrients.setSugar(safe(intake.getSugar()) * per100g);
+        nutrients.setFiber(safe(intake.getFiber()) * per100g);
+        nutrients.setSodium(safe(intake.getSodium()) * per100g);
+        return nutrients;
+    }
+
+    /**
+     * Add grams (negative to remove) of a food, or of an intake's nutrientsOf, eaten on
+     * date. A newer date moves the reference forward and decays everything recorded so
+     * far; an older one is simply weighted down. The average is unaffected by the common decay factor.
+     */
+    static void apply(UserTasteProfile profile, Food food, LocalDate date, double grams, double halfLifeDays) {
+        long days = ChronoUnit.DAYS.between(profile.getReferenceDate(), date);
+        double weight = grams;
+        if (days > 0) {
+            double decay = Math.pow(0.5, days / halfLifeDays);
+            profile.setTotalGrams(profile.getTotalGrams() * decay);
+            profile.setCalories(profile.getCalories() * decay);
+            profile.setProtein(profile.getProtein() * decay);
+            profile.setFat(profile.getFat() * decay);
+            profile.setSaturatedFat(profile.getSaturatedFat() * decay);
+            profile.setCarbs(profile.getCarbs() * decay);
+            profile.setSugar(profile.getSugar() * decay);
+            profile.setFiber(profile.getFiber() * decay);
+            profile.setSodium(profile.getSodium() * decay);
+            profile.setReferenceDate(date);
+        } else if (days < 0) {
+            weight *= Math.pow(0.5, -days / halfLifeDays);
+        }
+
+        profile.setTotalGrams(profile.getTotalGrams() + weight);
+        profile.setCalories(profile.getCalories() + weight * safe(food.getCalories()));
+        profile.setProtein(profile.getProtein() + weight * safe(food.getProtein()));
+        profile.setFat(profile.getFat() + weight * safe(food.getFat()));
+        profile.setSaturatedFat(profile.getSaturatedFat() + weight * safe(food.getSaturatedFat()));
+        profile.setCarbs(profile.getCarbs() + weight * safe(food.getCarbs()));
+        profile.setSugar(profile.getSugar() + weight * safe(food.getSugar()));
+        profile.setFiber(profile.getFiber() + weight * safe(food.getFiber()));
+        profile.setSodium(profile.getSodium() + weight * safe(food.getSodium()));
+    }
+
+    /**
+     * Foods nearest to the user's profile for a meal type, shifted towards their goal.
+     * Users whose history predates profiles get theirs built on first use.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public PersonalRecommendationResult recommend(User user, FoodIntake.MealType mealType, int k) {
+        if (!tasteProfileRepository.existsByUser(user)) {
+            // Same lock and re-check as a first intake write, which may be building them too
+            prepare(user);
+        }
+        User.NutritionGoal goal = user.getNutritionGoal() != null ? user.getNutritionGoal() : User.NutritionGoal.MAINTAIN;
+
+        PersonalRecommendationResult result = new PersonalRecommendationResult();
+        result.setMealType(mealType.name());
+        result.setNutritionGoal(goal.name());
+        result.setRecommendations(new ArrayList<>());
+
+        Optional<UserTasteProfile> stored = tasteProfileRepository.findByUserAndMealType(user, mealType);
+        if (stored.isEmpty()) {
+            return result;
+        }
+        Food average = averageFood(stored.get());
+        result.setTasteProfile(profileMap(average));
+        result.setProfileGrams(Math.round(stored.get().getTotalGrams() * 10.0) / 10.0);
+
+        double[] query = queryVector(average, goal);
+        FoodVectorIndex.Snapshot snapshot = foodVectorIndex.getSnapshot();
+        TopKNeighbors top = snapshot.nearest(query, 0, -1, k, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+        String mealName = mealType.name().toLowerCase();
+        String goalName = goal.name().toLowerCase().replace("_", " ");
+        for (int i = 0; i < top.size(); i++) {
+            FoodRecommendation recommendation = new FoodRecommendation();
+            recommendation.setFood(snapshot.getFood(top.slotAt(i)));
+            recommendation.setSimilarityScore(1.0 / (1.0 + Math.sqrt(top.distanceAt(i))));
+            recommendation.setReason(String.format("Close to what you usually eat for %s, leaning towards your %s goal",
+                    mealName, goalName));
+            result.getRecommendations().add(recommendation);
+        }
+        return result;
+    }
+
+    /**
+     * Profile vector plus the goal offset, kept inside the non-negative vector space
+     */
+    static double[] queryVector(Food average, User.NutritionGoal goal) {
+        double[] query = new double[DIMENSIONS];
+        FoodVectorIndex.writeVector(average, query, 0);
+        double[] offset = GOAL_OFFSETS.get(goal);
+        for (int d = 0; d < DIMENSIONS; d++) {
+            query[d] = Math.max(0, query[d] + offset[d]);
+        }
+        return query;
+    }
+
+    /**
+     * The profile's average nutrients per 100g as a (transient) food
+     */
+    static Food averageFood(UserTasteProfile profile) {
+        double grams = profile.getTotalGrams();
+        Food average = new Food();
+        average.setCalories(profile.getCalories() / grams);
+        average.setProtein(profile.getProtein() / grams);
+        average.setFat(profile.getFat() / grams);
+        average.setSaturatedFat(profile.getSaturatedFat() / grams);
+        average.setCarbs(profile.getCarbs() / grams);
+        average.setSugar(profile.getSugar() / grams);
+        average.setFiber(profile.getFiber() / grams);
+        average.setSodium(profile.getSodium() / grams);
+        return average;
+    }
+
+    private void backfill(User user) {
+        List<FoodIntake> intakes = foodIntakeRepository.findByUser(user);
+        if (intakes.isEmpty()) {
+            return;
+        }
+        Map<FoodIntake.MealType, UserTasteProfile> profiles = new EnumMap<>(FoodIntake.MealType.class);
+        for (FoodIntake intake : intakes) {
+            UserTasteProfile profile = profiles.computeIfAbsent(intake.getMealType(),
+                    mealType -> new UserTasteProfile(user, mealType, intake.getIntakeDate()));
+            apply(profile, nutrientsOf(intake), intake.getIntakeDate(), intake.getQuantity(), halfLifeDays);
+        }
+        tasteProfileRepository.saveAll(profiles.values());
+        log.info("Taste profiles built for user {} from {} intakes", user.getId(), intakes.size());
+    }
+
+    private static Map<String, Double> profileMap(Food average) {
+        Map<String, Double> profile = new LinkedHashMap<>();
+        profile.put("calories", round(average.getCalories()));
+        profile.put("protein", round(average.getProtein()));
+        profile.put("fat", round(average.getFat()));
+        profile.put("saturatedFat", round(average.getSaturatedFat()));
+        profile.put("carbs", round(average.getCarbs()));
+        profile.put("sugar", round(average.getSugar()));
+        profile.put("fiber", round(average.getFiber()));
+        profile.put("sodium", round(average.getSodium()));
+        return profile;
+    }
+
+    private static double safe(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,117 @@
+// File: src/main/java/com/nutribattle/service/TopKNeighbors.java
+
+package com.nutribattle.service;
+
+/**
+ * Fixed-size max-heap that keeps the k closest candidates seen so far.
+ * Candidates are index slots with a (squared) distance; ties are broken by
+ * the lower slot so results match a stable sort over the catalog order.
+ * No allocation happens per offered candidate.
+ */
+final class TopKNeighbors {
+
+    private final int[] slots;
+    private final double[] distances;
+    private int size;
+
+    TopKNeighbors(int k) {
+        this.slots = new int[Math.max(0, k)];
+        this.distances = new double[Math.max(0, k)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    boolean isFull() {
+        return size == slots.length;
+    }
+
+    /**
+     * Distance a candidate has to beat to enter the heap
+     */
+    double worstDistance() {
+        return isFull() && size > 0 ? distances[0] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Offer a candidate, returns true if it was kept
+     */
+    boolean offer(int slot, double distance) {
+        if (slots.length == 0) {
+            return false;
+        }
+        if (size < slots.length) {
+            siftUp(size++, slot, distance);
+            return true;
+        }
+        if (!isCloser(distance, slot, distances[0], slots[0])) {
+            return false;
+        }
+        siftDown(0, size, slot, distance);
+        return true;
+    }
+
+    /**
+     * Sort the kept candidates closest first (in place).
+     * The heap must not be offered new candidates afterwards.
+     */
+    void sortAscending() {
+        for (int end = size - 1; end > 0; end--) {
+            int rootSlot = slots[0];
+            double rootDistance = distances[0];
+            siftDown(0, end, slots[end], distances[end]);
+            slots[end] = rootSlot;
+            distances[end] = rootDistance;
+        }
+    }
+
+    int slotAt(int i) {
+        return slots[i];
+    }
+
+    double distanceAt(int i) {
+        return distances[i];
+    }
+
+    private void siftUp(int index, int slot, double distance) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isCloser(distances[parent], slots[parent], distance, slot)) {
+                break;
+            }
+            slots[index] = slots[parent];
+            distances[index] = distances[parent];
+            index = parent;
+        }
+        slots[index] = slot;
+        distances[index] = distance;
+    }
+
+    private void siftDown(int index, int heapSize, int slot, double distance) {
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < heapSize && isCloser(distances[child], slots[child], distances[right], slots[right])) {
+                child = right;
+            }
+            if (!isCloser(distance, slot, distances[child], slots[child])) {
+                break;
+            }
+            slots[index] = slots[child];
+            distances[index] = distances[child];
+            index = child;
+        }
+        slots[index] = slot;
+        distances[index] = distance;
+    }
+
+    private static boolean isCloser(double distance, int slot, double otherDistance, int otherSlot) {
+        return distance < otherDistance || (distance == otherDistance && slot < otherSlot);
+    }
+}
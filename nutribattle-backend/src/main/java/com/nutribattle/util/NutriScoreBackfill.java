@@ -0,0 +1,42 @@
+// File: src/main/java/com/nutribattle/util/NutriScoreBackfill.java
+
+package com.nutribattle.util;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.repository.FoodRepository;
+import com.nutribattle.service.NutriScoreCalculator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fill in the stored Nutri-Score of foods saved before it was persisted,
+ * and refresh any that no longer match the current scoring rules
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE) // Run after the CSV data loader
+@RequiredArgsConstructor
+@Slf4j
+public class NutriScoreBackfill implements CommandLineRunner {
+    
+    private final FoodRepository foodRepository;
+    private final NutriScoreCalculator nutriScoreCalculator;
+    
+    @Override
+    public void run(String... args) throws Exception {
+        List<Food> stale = nutriScoreCalculator.applyNutriScores(foodRepository.findAll());
+        
+        if (stale.isEmpty()) {
+            log.info("Stored Nutri-Scores are up to date");
+            return;
+        }
+        
+        foodRepository.saveAll(stale);
+        log.info("Nutri-Score stored for {} foods", stale.size());
+    }
+}
@@ -0,0 +1,51 @@
+package com.nutribattle.entity;
+
+import com.nutribattle.service.NutriScoreCalculator;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every insert and update stores the grade and points of the food's current nutrients
+ */
+class NutriScoreListenerTest {
+
+    private final NutriScoreCalculator calculator = new NutriScoreCalculator();
+    private final NutriScoreListener listener = new NutriScoreListener(calculator);
+
+    @Test
+    void runsBeforeInsertAndUpdate() throws NoSuchMethodException {
+        Method method = NutriScoreListener.class.getMethod("updateNutriScore", Food.class);
+        assertNotNull(method.getAnnotation(PrePersist.class));
+        assertNotNull(method.getAnnotation(PreUpdate.class));
+        assertArrayEquals(new Class<?>[] {NutriScoreListener.class},
+                Food.class.getAnnotation(jakarta.persistence.EntityListeners.class).value());
+    }
+
+    @Test
+    void scoresNewFoodsAndRescoresEditedOnes() {
+        Food food = new Food("Lentil Soup", "Soup", "Traditional", 90.0, 6.0, 1.5, 0.2, 14.0, 1.0, 5.0, 300.0,
+                10.0, 2.0, 20.0, 1.5, null, "");
+        assertNull(food.getNutriScore());
+
+        listener.updateNutriScore(food);
+        assertEquals(calculator.calculateScore(food), food.getNutriScoreValue());
+        assertEquals(calculator.calculateNutriScore(food), food.getNutriScore());
+        String before = food.getNutriScore();
+
+        // An admin turns it into a sugary fried snack: the stored score follows
+        food.setId(7L);
+        food.setCalories(520.0);
+        food.setSugar(35.0);
+        food.setSaturatedFat(14.0);
+        food.setFiber(0.5);
+        listener.updateNutriScore(food);
+        assertEquals(calculator.calculateScore(food), food.getNutriScoreValue());
+        assertEquals(calculator.calculateNutriScore(food), food.getNutriScore());
+        assertNotEquals(before, food.getNutriScore());
+    }
+}
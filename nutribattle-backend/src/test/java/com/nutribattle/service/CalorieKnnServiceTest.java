@@ -0,0 +1,144 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.CalorieKnnRecommendation;
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The density index must give what scoring and sorting the whole catalog gives
+ */
+class CalorieKnnServiceTest {
+
+    private final List<Food> catalog = new ArrayList<>(TestCatalog.shippedFoods());
+    private final FoodService foodService = mock(FoodService.class);
+    private final CalorieKnnService service = new CalorieKnnService(new FoodVectorIndex(foodService));
+
+    @Test
+    void rankingMatchesFullScoring() {
+        when(foodService.getAllFoods()).thenReturn(catalog);
+
+        for (User.NutritionGoal goal : User.NutritionGoal.values()) {
+            for (User.AgeGroup ageGroup : User.AgeGroup.values()) {
+                User user = user(goal, ageGroup);
+                for (String mealType : new String[] {"BREAKFAST", "LUNCH", "DINNER", "SNACK"}) {
+                    CalorieKnnRecommendation recommendation = service.getCalorieBasedRecommendations(user, mealType);
+                    assertEquals(expectedIds(recommendation.getTargetCalories()), ids(recommendation),
+                            goal + " " + ageGroup + " " + mealType);
+                }
+            }
+        }
+    }
+
+    @Test
+    void quantitiesStayWithinPortionBounds() {
+        Food ghee = new Food("Ghee", "Condiment", "Traditional", 900.0, 0.0, 100.0, 60.0, 0.0, 0.0, 0.0, 2.0,
+                0.0, 0.0, 0.0, 0.0, null, "");
+        ghee.setId(30_000L);
+        Food soup = new Food("Clear Soup", "Soup", "Modern", 20.0, 15.0, 0.5, 0.1, 2.0, 0.0, 6.0, 300.0,
+                0.0, 0.0, 0.0, 0.0, null, "");
+        soup.setId(30_001L);
+        soup.setMaxPortionGrams(600.0);
+        catalog.add(ghee);
+        catalog.add(soup);
+        when(foodService.getAllFoods()).thenReturn(catalog);
+
+        CalorieKnnRecommendation recommendation = service.getCalorieBasedRecommendations(
+                user(User.NutritionGoal.WEIGHT_GAIN, User.AgeGroup.MIDDLE_AGE), "LUNCH");
+
+        assertEquals(expectedIds(recommendation.getTargetCalories()), ids(recommendation));
+        for (CalorieKnnRecommendation.FoodMatch match : recommendation.getRecommendedFoods()) {
+            double[] portion = CalorieKnnService.portionBounds(match.getFood());
+            assertTrue(match.getQuantity() >= portion[0] && match.getQuantity() <= portion[1],
+                    match.getFood().getName() + " " + match.getQuantity());
+        }
+        assertArrayEquals(new double[] {5, 40}, CalorieKnnService.portionBounds(ghee));
+        assertArrayEquals(new double[] {200, 600}, CalorieKnnService.portionBounds(soup));
+    }
+
+    @Test
+    void zeroCalorieFoodsAreSkipped() {
+        Food water = new Food("Water", "Drinks", "Modern", 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 25.0, 0.0,
+                0.0, 0.0, 0.0, 0.0, null, "");
+        water.setId(10_000L);
+        catalog.add(water);
+        when(foodService.getAllFoods()).thenReturn(catalog);
+
+        CalorieKnnRecommendation recommendation = service.getCalorieBasedRecommendations(
+                user(User.NutritionGoal.MAINTAIN, User.AgeGroup.CHILD), "SNACK");
+
+        assertFalse(ids(recommendation).contains(10_000L));
+        recommendation.getRecommendedFoods().forEach(match -> assertFalse(match.getMatchScore().isNaN()));
+    }
+
+    @Test
+    void cachedMatchesAreDroppedWhenTheCatalogChanges() {
+        when(foodService.getAllFoods()).thenReturn(catalog);
+        FoodVectorIndex index = new FoodVectorIndex(foodService);
+        CalorieKnnService cached = new CalorieKnnService(index);
+        User user = user(User.NutritionGoal.WEIGHT_GAIN, User.AgeGroup.OLD_AGE);
+
+        List<CalorieKnnRecommendation.FoodMatch> first = cached.getCalorieBasedRecommendations(user, "LUNCH").getRecommendedFoods();
+        assertSame(first, cached.getCalorieBasedRecommendations(user, "LUNCH").getRecommendedFoods());
+
+        Food superFood = new Food("Super Food", "Main Course", "Modern", 250.0, 40.0, 1.0, 0.1, 5.0, 0.0, 10.0, 5.0,
+                0.0, 0.0, 0.0, 0.0, null, "");
+        superFood.setId(20_000L);
+        catalog.add(superFood);
+        index.rebuild();
+
+        CalorieKnnRecommendation after = cached.getCalorieBasedRecommendations(user, "LUNCH");
+        assertNotSame(first, after.getRecommendedFoods());
+        assertEquals(20_000L, after.getRecommendedFoods().get(0).getFood().getId());
+    }
+
+    /**
+     * Brute force: score every food with calories at its clamped portion and sort
+     */
+    private List<Long> expectedIds(double target) {
+        return catalog.stream()
+                .filter(food -> food.getCalories() > 0)
+                .sorted(Comparator.comparingDouble((Food food) -> -score(food, target)))
+                .limit(5)
+                .map(Food::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static double score(Food food, double target) {
+        double[] portion = CalorieKnnService.portionBounds(food);
+        double exact = (target / food.getCalories()) * 100;
+        double quantity = Math.max(portion[0], Math.min(portion[1], exact));
+        double actual = quantity == exact ? target : (quantity / 100) * food.getCalories();
+        double calorieScore = Math.max(0, 100 - (Math.abs(actual - target) / target * 100));
+        double nutrientScore = Math.min(30, food.getProtein() * 2) + Math.min(20, food.getFiber() * 4)
+                - Math.min(20, food.getSugar());
+        return Math.max(0, Math.min(100, calorieScore * 0.5 + nutrientScore));
+    }
+
+    private static List<Long> ids(CalorieKnnRecommendation recommendation) {
+        return recommendation.getRecommendedFoods().stream()
+                .map(match -> match.getFood().getId())
+                .collect(Collectors.toList());
+    }
+
+    private static User user(User.NutritionGoal goal, User.AgeGroup ageGroup) {
+        User user = new User();
+        user.setNutritionGoal(goal);
+        user.setAgeGroup(ageGroup);
+        return user;
+    }
+}
@@ -0,0 +1,110 @@
+package com.nutribattle.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nutribattle.dto.FoodView;
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.repository.FoodRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cached bodies equal a fresh serialization, and their ETag only changes with the content
+ */
+class CatalogResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FoodRepository repository = mock(FoodRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FoodCatalog catalog = new FoodCatalog(repository, new NutriScoreCalculator(), registry);
+    private final ImageManifest images = new ImageManifest("src/main/resources/static/images/foods");
+    private final CatalogResponseCache cache = new CatalogResponseCache(catalog, new FoodService(catalog, images),
+            images, objectMapper, registry);
+
+    @Test
+    void bodiesMatchFreshSerialization() throws IOException {
+        when(repository.findAll()).thenReturn(TestCatalog.shippedFoods());
+        CatalogResponseCache.CachedResponse foods = cache.allFoods();
+
+        List<FoodView> expected = catalog.getSnapshot().getFoods().stream().map(FoodView::of).collect(Collectors.toList());
+        assertArrayEquals(objectMapper.writeValueAsBytes(expected), foods.getIdentity());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(foods.getGzip()))) {
+            assertArrayEquals(foods.getIdentity(), gzip.readAllBytes());
+        }
+        assertTrue(foods.getGzip().length < foods.getIdentity().length / 3);
+        assertSame(foods, cache.allFoods());
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(catalog.getSnapshot().getCategories()),
+                cache.categories().getIdentity());
+        assertSame(cache.foodsByType("no such type"), cache.foodsByType("another"));
+        assertEquals(cache.foodsByType("Traditional").getEtag(), cache.foodsByType("traditional").getEtag());
+    }
+
+    @Test
+    void etagFollowsContentAcrossVersions() {
+        when(repository.findAll()).thenReturn(TestCatalog.shippedFoods());
+        CatalogResponseCache.CachedResponse foods = cache.allFoods();
+        CatalogResponseCache.CachedResponse categories = cache.categories();
+        assertTrue(foods.matches(foods.getEtag(), false));
+        assertTrue(foods.matches("\"other\", W/" + foods.getEtag(), false));
+        assertTrue(foods.matches("*", true));
+        assertFalse(foods.matches("\"other\"", false));
+        assertFalse(foods.matches(null, false));
+
+        // The gzip body is its own representation
+        assertNotEquals(foods.getEtag(false), foods.getEtag(true));
+        assertTrue(foods.getEtag(true).startsWith("\"") && foods.getEtag(true).endsWith("-gzip\""));
+        assertTrue(foods.matches(foods.getEtag(true), true));
+        assertFalse(foods.matches(foods.getEtag(true), false));
+        assertFalse(foods.matches(foods.getEtag(false), true));
+
+        Food edited = TestCatalog.shippedFoods().get(2);
+        edited.setCalories(edited.getCalories() + 1);
+        when(repository.findById(3L)).thenReturn(Optional.of(edited));
+        catalog.onCatalogChanged(new FoodCatalogChangedEvent(this, 3L, FoodCatalogChangedEvent.ChangeType.UPDATED));
+
+        // New version: the food list changed, the category list did not
+        assertNotEquals(foods.getEtag(), cache.allFoods().getEtag());
+        assertNotSame(categories, cache.categories());
+        assertEquals(categories.getEtag(), cache.categories().getEtag());
+    }
+
+    @Test
+    void gzipIsAcceptedOnlyWithAPositiveQuality() {
+        assertTrue(CatalogResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CatalogResponseCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(CatalogResponseCache.acceptsGzip("*"));
+        assertTrue(CatalogResponseCache.acceptsGzip("x-gzip"));
+        assertFalse(CatalogResponseCache.acceptsGzip(null));
+        assertFalse(CatalogResponseCache.acceptsGzip("identity"));
+        assertFalse(CatalogResponseCache.acceptsGzip("gzip;q=0"));
+        assertFalse(CatalogResponseCache.acceptsGzip("gzip; q=0.000, deflate"));
+        assertFalse(CatalogResponseCache.acceptsGzip("*;q=1, gzip;q=0"));
+        assertFalse(CatalogResponseCache.acceptsGzip("*;q=0"));
+    }
+
+    @Test
+    void homepageRotatesThroughAFewSelections() {
+        when(repository.findAll()).thenReturn(TestCatalog.shippedFoods());
+        Set<CatalogResponseCache.CachedResponse> served = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 40; i++) {
+            served.add(cache.homepage(60));
+        }
+        assertEquals(8, served.size());
+        assertTrue(registry.get("nutribattle.catalog.response.cache").tag("result", "hit").counter().count() >= 32);
+    }
+}
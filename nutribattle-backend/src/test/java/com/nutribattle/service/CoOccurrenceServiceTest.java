@@ -0,0 +1,183 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.CoConsumedFood;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.event.FoodIntakeChangedEvent;
+import com.nutribattle.repository.FoodIntakeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts kept up to date from intake events must equal a rebuild from the final intake table
+ */
+class CoOccurrenceServiceTest {
+
+    private static final int FOODS = 40;
+    private static final FoodIntake.MealType[] MEAL_TYPES = FoodIntake.MealType.values();
+
+    private final FoodVectorIndex index = indexOver();
+    private final FoodIntakeRepository repository = mock(FoodIntakeRepository.class);
+    private final List<Object[]> intakes = new ArrayList<>(); // The intake table, as committed
+
+    @BeforeEach
+    void answerDayReadsFromTheTable() {
+        when(repository.findDayBasketEntries(any(), any())).thenAnswer(call -> intakes.stream()
+                .filter(intake -> intake[0].equals(call.getArgument(0)) && intake[1].equals(call.getArgument(1)))
+                .map(intake -> new Object[] {intake[2], intake[3]})
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void incrementalUpdatesMatchRebuild() {
+        CoOccurrenceService incremental = new CoOccurrenceService(repository, index, new SimpleMeterRegistry());
+        Random random = new Random(7);
+
+        for (int step = 0; step < 3000; step++) {
+            int action = random.nextInt(10);
+            if (action < 6 || intakes.isEmpty()) {
+                Object[] intake = {(long) random.nextInt(3), LocalDate.of(2024, 1, 1 + random.nextInt(4)),
+                        MEAL_TYPES[random.nextInt(MEAL_TYPES.length)], 1L + random.nextInt(FOODS)};
+                intakes.add(intake);
+                incremental.onIntakeChanged(event(intake, FoodIntakeChangedEvent.ChangeType.ADDED));
+            } else if (action < 9) {
+                Object[] intake = intakes.remove(random.nextInt(intakes.size()));
+                incremental.onIntakeChanged(event(intake, FoodIntakeChangedEvent.ChangeType.REMOVED));
+            } else {
+                // Move an intake to another meal of the same day
+                Object[] intake = intakes.get(random.nextInt(intakes.size()));
+                intake[2] = MEAL_TYPES[(((FoodIntake.MealType) intake[2]).ordinal() + 1 + random.nextInt(3)) % 4];
+                incremental.onIntakeChanged(event(intake, FoodIntakeChangedEvent.ChangeType.MOVED));
+            }
+        }
+
+        when(repository.findAllBasketEntries()).thenReturn(new ArrayList<>(intakes));
+        CoOccurrenceService rebuilt = new CoOccurrenceService(repository, index, new SimpleMeterRegistry());
+        rebuilt.rebuild();
+
+        for (CoOccurrenceService.Scope scope : CoOccurrenceService.Scope.values()) {
+            for (long food = 1; food <= FOODS; food++) {
+                assertEquals(counts(rebuilt.alsoEaten(food, scope, FOODS)),
+                        counts(incremental.alsoEaten(food, scope, FOODS)), scope + " " + food);
+            }
+        }
+    }
+
+    @Test
+    void foodsSharingEveryMealRankFirst() {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        for (long user = 0; user < 5; user++) {
+            intakes.add(new Object[] {user, date, FoodIntake.MealType.LUNCH, 1L});
+            intakes.add(new Object[] {user, date, FoodIntake.MealType.LUNCH, 2L});
+            intakes.add(new Object[] {user, date, FoodIntake.MealType.LUNCH, 2L});
+            if (user < 2) {
+                intakes.add(new Object[] {user, date, FoodIntake.MealType.LUNCH, 3L});
+            }
+            intakes.add(new Object[] {user, date, FoodIntake.MealType.DINNER, 4L});
+        }
+        when(repository.findAllBasketEntries()).thenReturn(intakes);
+        CoOccurrenceService service = new CoOccurrenceService(repository, index, new SimpleMeterRegistry());
+        service.rebuild();
+
+        List<CoConsumedFood> meal = service.alsoEaten(1L, CoOccurrenceService.Scope.MEAL, 5);
+        assertEquals(List.of(2L, 3L), meal.stream().map(food -> food.getFood().getId()).collect(Collectors.toList()));
+        // Logged twice in the same meal still counts once
+        assertEquals(5, meal.get(0).getTogetherCount());
+        assertEquals(1.0, meal.get(0).getConfidence());
+
+        List<CoConsumedFood> day = service.alsoEaten(1L, CoOccurrenceService.Scope.DAY, 5);
+        assertTrue(day.stream().anyMatch(food -> food.getFood().getId() == 4L && food.getTogetherCount() == 5));
+    }
+
+    @Test
+    void intakesLoggedDuringARebuildAreKept() throws InterruptedException {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        intakes.add(new Object[] {1L, date, FoodIntake.MealType.LUNCH, 1L});
+        List<Object[]> read = new ArrayList<>(intakes);
+        Object[] logged = {1L, date, FoodIntake.MealType.LUNCH, 2L};
+        intakes.add(logged);
+        CoOccurrenceService service = new CoOccurrenceService(repository, index, new SimpleMeterRegistry());
+
+        // The intake commits after the rebuild has read the table
+        Thread user = new Thread(() -> service.onIntakeChanged(event(logged, FoodIntakeChangedEvent.ChangeType.ADDED)));
+        when(repository.findAllBasketEntries()).thenAnswer(call -> {
+            user.start();
+            while (user.getState() != Thread.State.WAITING && user.getState() != Thread.State.TERMINATED) {
+                Thread.sleep(1);
+            }
+            return read;
+        });
+        service.rebuild();
+        user.join(10_000);
+
+        List<CoConsumedFood> meal = service.alsoEaten(1L, CoOccurrenceService.Scope.MEAL, 5);
+        assertEquals(List.of("2:1"), counts(meal));
+    }
+
+    @Test
+    void intakeCommittedBeforeARebuildIsCountedOnce() {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        intakes.add(new Object[] {1L, date, FoodIntake.MealType.LUNCH, 1L});
+        Object[] logged = {1L, date, FoodIntake.MealType.LUNCH, 2L};
+        intakes.add(logged);
+        CoOccurrenceService service = new CoOccurrenceService(repository, index, new SimpleMeterRegistry());
+
+        // The rebuild reads the committed intake before its listener gets the lock
+        when(repository.findAllBasketEntries()).thenReturn(new ArrayList<>(intakes));
+        service.rebuild();
+        service.onIntakeChanged(event(logged, FoodIntakeChangedEvent.ChangeType.ADDED));
+
+        assertEquals(List.of("2:1"), counts(service.alsoEaten(1L, CoOccurrenceService.Scope.MEAL, 5)));
+        assertEquals(List.of("2:1"), counts(service.alsoEaten(1L, CoOccurrenceService.Scope.DAY, 5)));
+    }
+
+    @Test
+    void removalAppliedBeforeItsAdditionLeavesNoCount() {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        intakes.add(new Object[] {1L, date, FoodIntake.MealType.LUNCH, 1L});
+        when(repository.findAllBasketEntries()).thenReturn(new ArrayList<>(intakes));
+        CoOccurrenceService service = new CoOccurrenceService(repository, index, new SimpleMeterRegistry());
+        service.rebuild();
+
+        // Food 2 is logged and deleted again; the deletion's listener runs first
+        Object[] logged = {1L, date, FoodIntake.MealType.LUNCH, 2L};
+        service.onIntakeChanged(event(logged, FoodIntakeChangedEvent.ChangeType.REMOVED));
+        service.onIntakeChanged(event(logged, FoodIntakeChangedEvent.ChangeType.ADDED));
+
+        assertEquals(List.of(), counts(service.alsoEaten(1L, CoOccurrenceService.Scope.MEAL, 5)));
+        assertEquals(List.of(), counts(service.alsoEaten(2L, CoOccurrenceService.Scope.DAY, 5)));
+    }
+
+    /**
+     * The event the tracking service publishes: which day changed
+     */
+    private static FoodIntakeChangedEvent event(Object[] intake, FoodIntakeChangedEvent.ChangeType changeType) {
+        return new FoodIntakeChangedEvent(CoOccurrenceServiceTest.class, (Long) intake[0], (LocalDate) intake[1],
+                (FoodIntake.MealType) intake[2], (Long) intake[3], changeType);
+    }
+
+    private static List<String> counts(List<CoConsumedFood> foods) {
+        return foods.stream()
+                .map(food -> food.getFood().getId() + ":" + food.getTogetherCount())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static FoodVectorIndex indexOver() {
+        FoodService foodService = mock(FoodService.class);
+        when(foodService.getAllFoods()).thenReturn(TestCatalog.shippedFoods());
+        return new FoodVectorIndex(foodService);
+    }
+}
@@ -0,0 +1,72 @@
+package com.nutribattle.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the scalar and Vector API distance kernels over one batch
+ * block, for the current 8-feature vector and a 12-feature vector (plus
+ * vitamin A, vitamin C, calcium and iron). Not part of the test suite; run with:
+ *   mvn test-compile
+ *   java --add-modules jdk.incubator.vector -cp target/test-classes:target/classes:&lt;test classpath&gt;
+ *        org.openjdk.jmh.Main DistanceKernelBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DistanceKernelBenchmark {
+
+    @Param({"8", "12"})
+    private int dimensions;
+
+    @Param({"256", "4096"})
+    private int candidates;
+
+    private double[] columns;
+    private double[] query;
+    private double[] out;
+
+    private final DistanceKernel scalar = new ScalarDistanceKernel();
+    private final DistanceKernel vector = new VectorApiDistanceKernel();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        columns = new double[dimensions * candidates];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = random.nextDouble();
+        }
+        query = new double[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            query[d] = random.nextDouble();
+        }
+        out = new double[candidates];
+    }
+
+    @Benchmark
+    public double[] scalar() {
+        scalar.squaredDistances(columns, candidates, dimensions, 0, candidates, query, 0, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorApi() {
+        vector.squaredDistances(columns, candidates, dimensions, 0, candidates, query, 0, out);
+        return out;
+    }
+}
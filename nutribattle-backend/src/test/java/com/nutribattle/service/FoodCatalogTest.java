@@ -0,0 +1,127 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.repository.FoodRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reads come from the snapshot only, and admin changes swap in a new version
+ * without touching the one readers already hold
+ */
+class FoodCatalogTest {
+
+    private final List<Food> shipped = TestCatalog.shippedFoods();
+    private final FoodRepository repository = mock(FoodRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FoodCatalog catalog = new FoodCatalog(repository, new NutriScoreCalculator(), registry);
+
+    @Test
+    void readsAreServedWithoutQueries() {
+        when(repository.findAll()).thenReturn(shipped);
+        FoodService service = new FoodService(catalog, new ImageManifest(""));
+
+        assertEquals(shipped.size(), service.getAllFoods().size());
+        assertEquals(shipped.get(9).getName(), service.getFoodById(10L).getName());
+        assertFalse(service.getFoodsByType("traditional").isEmpty());
+        assertEquals(service.getFoodsByType("Traditional"), service.getFoodsByType("TRADITIONAL"));
+        assertTrue(service.searchFoods("MOMO").stream().allMatch(food -> food.getName().toLowerCase().contains("momo")));
+        assertEquals(service.getAllCategories().stream().sorted().distinct().toList(), service.getAllCategories());
+        assertNotNull(service.getFoodById(1L).getNutriScore());
+
+        // Foods are detached copies, the entities are left alone
+        assertNotSame(shipped.get(0), service.getFoodById(1L));
+        assertNull(shipped.get(0).getNutriScore());
+
+        verify(repository, times(1)).findAll();
+        verifyNoMoreInteractions(repository);
+        assertEquals(1.0, registry.get("nutribattle.catalog.version").gauge().value());
+    }
+
+    @Test
+    void changesSwapInANewVersion() {
+        when(repository.findAll()).thenReturn(shipped);
+        FoodCatalog.Snapshot before = catalog.getSnapshot();
+
+        Food edited = TestCatalog.shippedFoods().get(4);
+        edited.setName("Renamed Food");
+        when(repository.findById(5L)).thenReturn(Optional.of(edited));
+        catalog.onCatalogChanged(new FoodCatalogChangedEvent(this, 5L, FoodCatalogChangedEvent.ChangeType.UPDATED));
+        catalog.onCatalogChanged(new FoodCatalogChangedEvent(this, 7L, FoodCatalogChangedEvent.ChangeType.DELETED));
+
+        FoodCatalog.Snapshot after = catalog.getSnapshot();
+        assertEquals(before.getVersion() + 2, after.getVersion());
+        assertEquals("Renamed Food", after.getFood(5L).getName());
+        assertNull(after.getFood(7L));
+        assertEquals(shipped.size() - 1, after.size());
+        assertEquals(List.of(after.getFood(5L)), after.searchByName("renamed"));
+
+        // Readers holding the old version still see it unchanged
+        assertEquals(shipped.get(4).getName(), before.getFood(5L).getName());
+        assertNotNull(before.getFood(7L));
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void seededRandomPagesAreStableAndDisjoint() {
+        when(repository.findAll()).thenReturn(shipped);
+        FoodService service = new FoodService(catalog, new ImageManifest(""));
+
+        Set<Long> seen = new HashSet<>();
+        for (int page = 0; page * 60 < shipped.size(); page++) {
+            List<Food> foods = service.getRandomFoods(60, 42L, page);
+            assertEquals(foods, service.getRandomFoods(60, 42L, page));
+            foods.forEach(food -> assertTrue(seen.add(food.getId()), "repeated " + food.getId()));
+        }
+        assertEquals(shipped.size(), seen.size());
+        assertTrue(service.getRandomFoods(60, 42L, 1000).isEmpty());
+        assertNotEquals(service.getRandomFoods(60, 42L, 0), service.getRandomFoods(60, 43L, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getRandomFoods(60, 42L, -1));
+
+        List<Food> sample = service.getRandomFoods(60);
+        assertEquals(60, sample.size());
+        assertEquals(60, sample.stream().map(Food::getId).distinct().count());
+    }
+
+    @Test
+    void keysetPagesWalkTheCatalogInIdOrder() {
+        when(repository.findAll()).thenReturn(shipped);
+        FoodService service = new FoodService(catalog, new ImageManifest(""));
+
+        assertEquals(service.getAllFoods(), walk(after -> service.getFoodsPage(null, after, 50)));
+        assertEquals(service.getFoods(List.of("A", "B"), null), walk(after -> service.getFoodsPage(List.of("a", "B"), after, 7)));
+        assertEquals(service.getFoodsByType("Modern"), walk(after -> service.getFoodsByTypePage("modern", after, 33)));
+        assertEquals(service.searchFoods("chicken"), walk(after -> service.searchFoodsPage("Chicken", after, 4)));
+
+        // A cursor between ids and past the end
+        Long lastId = shipped.get(shipped.size() - 1).getId();
+        assertEquals(List.of(service.getFoodById(lastId)), service.getFoodsPage(null, lastId - 1, 10).getFoods());
+        assertTrue(service.getFoodsPage(null, lastId, 10).getFoods().isEmpty());
+        assertNull(service.getFoodsPage(null, lastId, 10).getNextAfter());
+        assertThrows(IllegalArgumentException.class, () -> service.getFoodsPage(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.searchFoodsPage("a", null, FoodService.MAX_PAGE_SIZE + 1));
+    }
+
+    private static List<Food> walk(Function<Long, FoodService.Page> pages) {
+        List<Food> all = new ArrayList<>();
+        Long after = null;
+        do {
+            FoodService.Page page = pages.apply(after);
+            assertFalse(page.getFoods().isEmpty() && after != null, "empty page after a cursor");
+            all.addAll(page.getFoods());
+            after = page.getNextAfter();
+        } while (after != null);
+        return all;
+    }
+}
@@ -0,0 +1,48 @@
+package com.nutribattle.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nutribattle.dto.FoodView;
+import com.nutribattle.entity.Food;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streamed and buffered listings produce the same JSON as serializing the views at once,
+ * and every response is measured
+ */
+class FoodJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FoodJsonWriter writer = new FoodJsonWriter(objectMapper, registry);
+
+    @Test
+    void streamedBodyMatchesBufferedSerialization() throws IOException {
+        List<Food> foods = TestCatalog.shippedFoods();
+        byte[] expected = objectMapper.writeValueAsBytes(
+                foods.stream().map(FoodView::of).collect(Collectors.toList()));
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        writer.stream("foods", foods, System.nanoTime()).writeTo(streamed);
+        assertArrayEquals(expected, streamed.toByteArray());
+        assertArrayEquals(expected, writer.buffered("foods", foods, System.nanoTime()));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        writer.stream("search", List.of(), System.nanoTime()).writeTo(empty);
+        assertEquals("[]", empty.toString());
+
+        assertEquals(1, registry.get("nutribattle.foods.response.first-byte")
+                .tags("endpoint", "foods", "mode", "stream").timer().count());
+        assertEquals(1, registry.get("nutribattle.foods.response.first-byte")
+                .tags("endpoint", "search", "mode", "stream").timer().count());
+        assertTrue(registry.get("nutribattle.foods.response.allocated")
+                .tags("endpoint", "foods", "mode", "buffered").summary().totalAmount() > expected.length);
+    }
+}
@@ -0,0 +1,118 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.service.KnnRecommendationService.RecommendationMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental updates after admin edits leave the store identical to a full rebuild
+ */
+class FoodNeighborStoreTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void incrementalUpdatesMatchARebuild() {
+        Random random = new Random(17);
+        List<Food> foods = new ArrayList<>(TestCatalog.syntheticFoods(800, 3));
+        long nextId = foods.size() + 1;
+        List<Long> deleted = new ArrayList<>();
+
+        FoodVectorIndex vectorIndex = mock(FoodVectorIndex.class);
+        FoodVectorIndex.Snapshot[] current = {FoodVectorIndex.Snapshot.of(foods)};
+        when(vectorIndex.getSnapshot()).thenAnswer(call -> current[0]);
+        FoodNeighborStore store = new FoodNeighborStore(vectorIndex, registry);
+        store.rebuild();
+
+        for (int step = 0; step < 120; step++) {
+            int action = random.nextInt(3);
+            FoodCatalogChangedEvent.ChangeType changeType;
+            long id;
+            if (action == 0) {
+                Food food = copyOf(foods.get(random.nextInt(foods.size())), random, foods);
+                food.setId(nextId++);
+                foods.add(food);
+                id = food.getId();
+                changeType = FoodCatalogChangedEvent.ChangeType.CREATED;
+            } else if (action == 1) {
+                int index = random.nextInt(foods.size());
+                Food food = copyOf(foods.get(index), random, foods);
+                foods.set(index, food);
+                id = food.getId();
+                changeType = FoodCatalogChangedEvent.ChangeType.UPDATED;
+            } else {
+                id = foods.remove(random.nextInt(foods.size())).getId();
+                deleted.add(id);
+                changeType = FoodCatalogChangedEvent.ChangeType.DELETED;
+            }
+            current[0] = FoodVectorIndex.Snapshot.of(foods);
+            store.onCatalogChanged(new FoodCatalogChangedEvent(this, id, changeType));
+
+            if (step % 20 == 19) {
+                assertSameAsRebuild(store, foods, current[0], changeType + " of food " + id + " at step " + step);
+            }
+        }
+        for (long id : deleted) {
+            for (RecommendationMode mode : RecommendationMode.values()) {
+                assertNull(store.lookup(id, mode), "deleted food " + id);
+            }
+        }
+    }
+
+    private void assertSameAsRebuild(FoodNeighborStore store, List<Food> foods, FoodVectorIndex.Snapshot snapshot,
+                                     String context) {
+        FoodVectorIndex vectorIndex = mock(FoodVectorIndex.class);
+        when(vectorIndex.getSnapshot()).thenReturn(snapshot);
+        FoodNeighborStore rebuilt = new FoodNeighborStore(vectorIndex, registry);
+        rebuilt.rebuild();
+
+        for (Food food : foods) {
+            for (RecommendationMode mode : RecommendationMode.values()) {
+                FoodNeighborStore.NeighborList expected = rebuilt.lookup(food.getId(), mode);
+                FoodNeighborStore.NeighborList actual = store.lookup(food.getId(), mode);
+                String where = context + ": food " + food.getId() + " " + mode;
+                assertNotNull(actual, where);
+                assertEquals(expected.size(), actual.size(), where);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.foodIdAt(i), actual.foodIdAt(i), where);
+                    assertEquals(expected.distanceAt(i), actual.distanceAt(i), where);
+                }
+            }
+        }
+    }
+
+    /**
+     * New version of a food: nutrients moved, and sometimes another food's category or type
+     */
+    private static Food copyOf(Food food, Random random, List<Food> foods) {
+        Food copy = new Food(food.getName(), food.getCategory(), food.getType(),
+                jitter(food.getCalories(), random), jitter(food.getProtein(), random),
+                jitter(food.getFat(), random), jitter(food.getSaturatedFat(), random),
+                jitter(food.getCarbs(), random), jitter(food.getSugar(), random),
+                jitter(food.getFiber(), random), jitter(food.getSodium(), random),
+                food.getVitaminA(), food.getVitaminC(), food.getCalcium(), food.getIron(),
+                null, "");
+        copy.setId(food.getId());
+        if (random.nextInt(3) == 0) {
+            copy.setCategory(foods.get(random.nextInt(foods.size())).getCategory());
+        }
+        if (random.nextInt(3) == 0) {
+            copy.setType(foods.get(random.nextInt(foods.size())).getType());
+        }
+        return copy;
+    }
+
+    private static Double jitter(Double value, Random random) {
+        return value != null ? value * (0.5 + random.nextDouble()) : null;
+    }
+}
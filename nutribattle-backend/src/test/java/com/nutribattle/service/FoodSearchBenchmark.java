@@ -0,0 +1,65 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.repository.FoodRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Manual benchmark of typeahead and fuzzy search latency, and of the index build,
+ * as the catalog grows. Not part of the test suite; run its main method from the IDE or with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.nutribattle.service.FoodSearchBenchmark
+ */
+public final class FoodSearchBenchmark {
+
+    private static final int[] CATALOG_SIZES = {0, 5_000, 50_000}; // 0: the shipped catalog
+    private static final String[] QUERIES = {"mom", "mo:mo", "momos", "sel-roti", "selroti", "shel roti",
+            "aalu", "chicken", "chiken curry", "dessert", "burger", "panner", "dal bhat", "x"};
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %12s%n", "foods", "typeahead us/q", "fuzzy us/q", "build ms");
+
+        for (int size : CATALOG_SIZES) {
+            List<Food> foods = size == 0 ? TestCatalog.shippedFoods() : TestCatalog.syntheticFoods(size, 1);
+            FoodRepository repository = mock(FoodRepository.class);
+            when(repository.findAll()).thenReturn(foods);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            FoodSearchIndex index = new FoodSearchIndex(new FoodCatalog(repository, new NutriScoreCalculator(),
+                    registry), registry);
+
+            long buildStart = System.nanoTime();
+            index.rebuild();
+            double buildMillis = (System.nanoTime() - buildStart) / 1_000_000.0;
+
+            // Warm up both code paths
+            for (int round = 0; round < 3; round++) {
+                run(index, true, ROUNDS / 4);
+                run(index, false, ROUNDS / 4);
+            }
+
+            System.out.printf("%10d %14.2f %14.2f %12.1f%n", foods.size(),
+                    run(index, true, ROUNDS), run(index, false, ROUNDS), buildMillis);
+        }
+    }
+
+    private static double run(FoodSearchIndex index, boolean typeahead, int rounds) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String query : QUERIES) {
+                checksum += typeahead ? index.typeahead(query, 8).size() : index.search(query, 20).size();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == 42) {
+            System.out.print("");
+        }
+        return elapsed / 1_000.0 / ((long) rounds * QUERIES.length);
+    }
+}
@@ -0,0 +1,155 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.FoodSuggestion;
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import com.nutribattle.event.FoodCatalogRebuiltEvent;
+import com.nutribattle.repository.FoodRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The automaton agrees with plain edit distance, spelling variants find the food, and
+ * admin edits leave the index as a rebuild would
+ */
+class FoodSearchIndexTest {
+
+    private static final String[] QUERIES = {"mom", "mo:mo", "momos", "sel-roti", "selroti", "shel roti",
+            "aalu", "chicken", "chiken curry", "dessert", "burger", "panner", "dal bhat", "x"};
+
+    private final FoodRepository repository = mock(FoodRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final FoodCatalog catalog = new FoodCatalog(repository, new NutriScoreCalculator(), registry);
+    private final FoodSearchIndex index = new FoodSearchIndex(catalog, registry);
+
+    @Test
+    void automatonMatchesEditDistance() {
+        Random random = new Random(5);
+        for (int round = 0; round < 20_000; round++) {
+            String word = randomWord(random, 3 + random.nextInt(6));
+            String text = randomWord(random, random.nextInt(10));
+            int maxEdits = FoodSearchIndex.maxEdits(word.length());
+            LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+            long[] state = automaton.start();
+            boolean alive = true;
+            for (int i = 0; i < text.length() && alive; i++) {
+                long[] next = new long[state.length];
+                alive = automaton.step(state, text.charAt(i), next);
+                state = next;
+            }
+            int expected = FoodSearchIndex.editDistance(word, text);
+            assertEquals(expected <= maxEdits ? expected : -1, alive ? automaton.distance(state) : -1,
+                    word + " / " + text);
+        }
+    }
+
+    @Test
+    void spellingVariantsFindTheFood() {
+        when(repository.findAll()).thenReturn(TestCatalog.shippedFoods());
+
+        assertEquals("Momo", firstName("mo:mo"));
+        assertEquals("Momo", firstName("momos"));
+        assertEquals("Momo", firstName("mom"));
+        assertEquals("Sel Roti", firstName("sel-roti"));
+        assertEquals("Sel Roti", firstName("selroti"));
+        assertEquals("Sel Roti", firstName("shel rotti"));
+        // "aalu" and "aloo" fold alike; foods a typo away rank below
+        assertTrue(names("aalu").subList(0, 4).stream().allMatch(name -> name.startsWith("Aloo ")));
+        assertEquals("Paneer", firstName("panner"));
+        assertEquals("Chicken Curry", firstName("chiken curry"));
+        assertEquals(0, index.typeahead("momo", 8).get(0).getEdits());
+        assertEquals(1, index.typeahead("momos", 8).get(0).getEdits());
+        assertTrue(index.typeahead("", 8).isEmpty());
+        assertEquals(8, index.typeahead("a", 8).size());
+    }
+
+    @Test
+    void adminEditsMatchARebuild() {
+        List<Food> foods = TestCatalog.shippedFoods();
+        when(repository.findAll()).thenReturn(foods);
+        index.rebuild();
+
+        Food renamed = TestCatalog.shippedFoods().get(0);
+        renamed.setName("Jhol Momo");
+        renamed.setCategory("Soup");
+        when(repository.findById(1L)).thenReturn(Optional.of(renamed));
+        changed(1L, FoodCatalogChangedEvent.ChangeType.UPDATED);
+        changed(3L, FoodCatalogChangedEvent.ChangeType.DELETED);
+
+        assertEquals("Jhol Momo", firstName("jhol"));
+        assertFalse(names("sel roti").contains("Sel Roti"));
+
+        foods.set(0, renamed);
+        foods.remove(2);
+        FoodCatalog fresh = new FoodCatalog(repository, new NutriScoreCalculator(), registry);
+        FoodSearchIndex rebuilt = new FoodSearchIndex(fresh, registry);
+        for (String query : QUERIES) {
+            assertEquals(ids(rebuilt.typeahead(query, 20)), ids(index.typeahead(query, 20)), query);
+            assertEquals(rebuilt.search(query, 20), index.search(query, 20), query);
+        }
+    }
+
+    @Test
+    void fullReloadsRebuildFromTheEventOnce() {
+        when(repository.findAll()).thenReturn(TestCatalog.shippedFoods());
+        catalog.setApplicationEventPublisher(event -> {
+            if (event instanceof FoodCatalogRebuiltEvent rebuilt) {
+                index.onCatalogRebuilt(rebuilt);
+            }
+        });
+        index.rebuild();
+        assertEquals(catalog.getSnapshot().getVersion(), index.indexedVersion());
+
+        // Re-scoring after a keyword reloads the catalog without a single-food event
+        catalog.rebuild();
+        assertEquals(catalog.getSnapshot().getVersion(), index.indexedVersion());
+        assertEquals(2, registry.get("nutribattle.search.build").timer().count());
+
+        // Rebuilding what is already indexed, and querying, do no work
+        index.rebuild();
+        index.typeahead("momo", 8);
+        assertEquals(2, registry.get("nutribattle.search.build").timer().count());
+
+        // A change that skips a version catches up in the listener, not on the query
+        catalog.onCatalogChanged(new FoodCatalogChangedEvent(this, 3L, FoodCatalogChangedEvent.ChangeType.DELETED));
+        catalog.onCatalogChanged(new FoodCatalogChangedEvent(this, 4L, FoodCatalogChangedEvent.ChangeType.DELETED));
+        index.onCatalogChanged(new FoodCatalogChangedEvent(this, 4L, FoodCatalogChangedEvent.ChangeType.DELETED));
+        assertEquals(catalog.getSnapshot().getVersion(), index.indexedVersion());
+        assertEquals(3, registry.get("nutribattle.search.build").timer().count());
+    }
+
+    private void changed(Long id, FoodCatalogChangedEvent.ChangeType changeType) {
+        FoodCatalogChangedEvent event = new FoodCatalogChangedEvent(this, id, changeType);
+        catalog.onCatalogChanged(event);
+        index.onCatalogChanged(event);
+    }
+
+    private String firstName(String query) {
+        return index.typeahead(query, 8).get(0).getName();
+    }
+
+    private List<String> names(String query) {
+        return index.typeahead(query, 8).stream().map(FoodSuggestion::getName).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<FoodSuggestion> suggestions) {
+        return suggestions.stream().map(FoodSuggestion::getId).collect(Collectors.toList());
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(4)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,194 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.RecommendationConstraints;
+import com.nutribattle.entity.Food;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The partitioned KD-trees and the quantized scan must return exactly what a brute-force scan returns,
+ * with and without constraints
+ */
+class FoodVectorIndexTest {
+
+    @Test
+    void treeSearchMatchesBruteForceOnShippedCatalog() {
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(TestCatalog.shippedFoods());
+
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            for (int k : new int[] {1, 5, 10}) {
+                assertSameNeighbors(snapshot, slot, k, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+                assertSameNeighbors(snapshot, slot, k, snapshot.categoryCodeOf(slot), FoodVectorIndex.ANY);
+                assertSameNeighbors(snapshot, slot, k, FoodVectorIndex.ANY, snapshot.typeCodeOf(slot));
+            }
+        }
+    }
+
+    @Test
+    void treeSearchMatchesBruteForceOnSyntheticCatalog() {
+        List<Food> foods = TestCatalog.syntheticFoods(20_000, 42);
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(foods);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 300; i++) {
+            int slot = random.nextInt(snapshot.size());
+            int otherType = snapshot.typeCodeOf(random.nextInt(snapshot.size()));
+            assertSameNeighbors(snapshot, slot, 10, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+            assertSameNeighbors(snapshot, slot, 10, snapshot.categoryCodeOf(slot), FoodVectorIndex.ANY);
+            assertSameNeighbors(snapshot, slot, 10, FoodVectorIndex.ANY, otherType);
+            assertSameNeighbors(snapshot, slot, 10, snapshot.categoryCodeOf(slot), otherType);
+        }
+    }
+
+    @Test
+    void batchScanMatchesSingleQueries() {
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(TestCatalog.syntheticFoods(3_000, 9));
+        Random random = new Random(5);
+        int queries = 50;
+        int[] slots = new int[queries];
+        int[] ks = new int[queries];
+        int[][] filters = new int[queries][];
+        for (int q = 0; q < queries; q++) {
+            slots[q] = random.nextInt(snapshot.size());
+            ks[q] = 1 + random.nextInt(10);
+            filters[q] = snapshot.filtersFor(slots[q],
+                    KnnRecommendationService.RecommendationMode.values()[q % 3]);
+        }
+
+        // Both kernels must agree with the KD-tree to the last bit
+        for (DistanceKernel kernel : new DistanceKernel[] {new ScalarDistanceKernel(), new VectorApiDistanceKernel()}) {
+            TopKNeighbors[] batch = snapshot.nearestBatch(kernel, slots, ks, filters);
+            for (int q = 0; q < queries; q++) {
+                TopKNeighbors single = snapshot.nearest(slots[q], ks[q], filters[q][0], filters[q][1]);
+                assertEquals(single.size(), batch[q].size(), kernel.name());
+                for (int i = 0; i < single.size(); i++) {
+                    assertEquals(single.slotAt(i), batch[q].slotAt(i), kernel.name());
+                    assertEquals(single.distanceAt(i), batch[q].distanceAt(i), 0.0, kernel.name());
+                }
+            }
+        }
+    }
+
+    @Test
+    void quantizedSearchMatchesExactSearch() {
+        List<Food> foods = TestCatalog.shippedFoods();
+        FoodVectorIndex.Snapshot exact = FoodVectorIndex.Snapshot.of(foods);
+
+        for (FoodVectorIndex.VectorPrecision precision :
+                new FoodVectorIndex.VectorPrecision[] {FoodVectorIndex.VectorPrecision.FLOAT32, FoodVectorIndex.VectorPrecision.INT8}) {
+            FoodVectorIndex.Snapshot compact = FoodVectorIndex.Snapshot.of(foods, precision);
+            // Against one double copy (DOUBLE mode also keeps a column copy, which the ratio must not count):
+            // FLOAT32 halves it, INT8 takes an eighth plus a scale and offset per dimension
+            long doubleCopy = (long) exact.size() * FoodVectorIndex.DIMENSIONS * Double.BYTES;
+            long expectedBytes = precision == FoodVectorIndex.VectorPrecision.FLOAT32
+                    ? doubleCopy / 2
+                    : doubleCopy / 8 + 2L * FoodVectorIndex.DIMENSIONS * Double.BYTES;
+            assertEquals(expectedBytes, compact.vectorMemoryBytes(), precision + " memory");
+            assertEquals(2 * doubleCopy, exact.vectorMemoryBytes());
+
+            for (int slot = 0; slot < exact.size(); slot++) {
+                for (KnnRecommendationService.RecommendationMode mode : KnnRecommendationService.RecommendationMode.values()) {
+                    int[] filters = exact.filtersFor(slot, mode);
+                    if (filters == null) {
+                        continue;
+                    }
+                    for (int k : new int[] {1, 5, 10}) {
+                        TopKNeighbors expected = exact.nearest(slot, k, filters[0], filters[1]);
+                        TopKNeighbors actual = compact.nearest(slot, k, filters[0], filters[1]);
+                        assertEquals(expected.size(), actual.size(), precision + " count for slot " + slot);
+                        for (int i = 0; i < expected.size(); i++) {
+                            assertEquals(expected.slotAt(i), actual.slotAt(i), precision + " neighbour " + i + " of slot " + slot);
+                            assertEquals(expected.distanceAt(i), actual.distanceAt(i), 0.0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void constrainedSearchMatchesFilteredScan() {
+        List<Food> foods = TestCatalog.graded(TestCatalog.syntheticFoods(20_000, 11));
+        List<RecommendationConstraints> constraintSets = List.of(
+                constraints(c -> { c.setMaxSugar(10.0); c.setMinGrade("B"); }),
+                constraints(c -> c.setMinProtein(15.0)),
+                constraints(c -> { c.setMaxSodium(50.0); c.setMaxCalories(150.0); }),
+                // Selective enough to be scanned instead of searched in the tree
+                constraints(c -> { c.setMinProtein(25.0); c.setMinFiber(8.0); c.setMinGrade("A"); }));
+
+        for (FoodVectorIndex.VectorPrecision precision :
+                new FoodVectorIndex.VectorPrecision[] {FoodVectorIndex.VectorPrecision.DOUBLE, FoodVectorIndex.VectorPrecision.INT8}) {
+            FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(foods, precision);
+            Random random = new Random(13);
+
+            for (RecommendationConstraints constraints : constraintSets) {
+                BitSet allowed = snapshot.allowedSlots(constraints);
+                for (int q = 0; q < 60; q++) {
+                    int slot = random.nextInt(snapshot.size());
+                    int[] filters = snapshot.filtersFor(slot, KnnRecommendationService.RecommendationMode.values()[q % 3]);
+                    int k = 1 + random.nextInt(10);
+
+                    TopKNeighbors expected = new TopKNeighbors(k);
+                    for (int other = 0; other < snapshot.size(); other++) {
+                        if (other != slot && snapshot.matches(other, filters[0], filters[1])
+                                && satisfies(snapshot.getFood(other), constraints)) {
+                            expected.offer(other, snapshot.distance(slot, other));
+                        }
+                    }
+                    expected.sortAscending();
+
+                    TopKNeighbors actual = snapshot.nearest(slot, k, filters[0], filters[1], allowed);
+                    assertEquals(expected.size(), actual.size(), precision + " " + constraints);
+                    for (int i = 0; i < expected.size(); i++) {
+                        assertEquals(expected.slotAt(i), actual.slotAt(i), precision + " " + constraints);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void invalidGradeIsRejected() {
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(TestCatalog.graded(TestCatalog.shippedFoods()));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.allowedSlots(constraints(c -> c.setMinGrade("F"))));
+    }
+
+    private static RecommendationConstraints constraints(Consumer<RecommendationConstraints> setup) {
+        RecommendationConstraints constraints = new RecommendationConstraints();
+        setup.accept(constraints);
+        return constraints;
+    }
+
+    private static boolean satisfies(Food food, RecommendationConstraints c) {
+        return (c.getMaxCalories() == null || value(food.getCalories()) <= c.getMaxCalories())
+                && (c.getMaxSugar() == null || value(food.getSugar()) <= c.getMaxSugar())
+                && (c.getMaxSodium() == null || value(food.getSodium()) <= c.getMaxSodium())
+                && (c.getMinProtein() == null || value(food.getProtein()) >= c.getMinProtein())
+                && (c.getMinFiber() == null || value(food.getFiber()) >= c.getMinFiber())
+                && (c.getMinGrade() == null || food.getNutriScore().compareTo(c.getMinGrade()) <= 0);
+    }
+
+    private static double value(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static void assertSameNeighbors(FoodVectorIndex.Snapshot snapshot, int slot, int k,
+                                            int requiredCategory, int requiredType) {
+        TopKNeighbors expected = snapshot.nearestByScan(slot, k, requiredCategory, requiredType);
+        TopKNeighbors actual = snapshot.nearest(slot, k, requiredCategory, requiredType);
+
+        assertEquals(expected.size(), actual.size(), "result count for slot " + slot);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.slotAt(i), actual.slotAt(i), "neighbour " + i + " of slot " + slot);
+            assertEquals(expected.distanceAt(i), actual.distanceAt(i), 0.0);
+        }
+    }
+}
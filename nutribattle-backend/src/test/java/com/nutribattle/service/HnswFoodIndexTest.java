@@ -0,0 +1,68 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.event.FoodCatalogChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Admin edits that arrive while the graph is being built end up in the graph that is kept
+ */
+class HnswFoodIndexTest {
+
+    @Test
+    void editsDuringARebuildAreNotLost() throws InterruptedException {
+        List<Food> foods = TestCatalog.shippedFoods();
+        Food deleted = foods.get(0);
+        Food created = foods.get(foods.size() - 1);
+        // Before the edits: 'created' does not exist yet; after them 'deleted' is gone
+        FoodVectorIndex.Snapshot before = FoodVectorIndex.Snapshot.of(new ArrayList<>(foods.subList(0, foods.size() - 1)));
+        FoodVectorIndex.Snapshot after = FoodVectorIndex.Snapshot.of(new ArrayList<>(foods.subList(1, foods.size())));
+
+        FoodVectorIndex vectorIndex = mock(FoodVectorIndex.class);
+        HnswFoodIndex index = new HnswFoodIndex(vectorIndex);
+        ReflectionTestUtils.setField(index, "m", 16);
+        ReflectionTestUtils.setField(index, "efConstruction", 200);
+        ReflectionTestUtils.setField(index, "defaultEfSearch", 64);
+        ReflectionTestUtils.setField(index, "maxDeletedFraction", 0.2);
+
+        // The admin edits land while the rebuild reads the old snapshot
+        Thread admin = new Thread(() -> {
+            index.onCatalogChanged(new FoodCatalogChangedEvent(this, deleted.getId(),
+                    FoodCatalogChangedEvent.ChangeType.DELETED));
+            index.onCatalogChanged(new FoodCatalogChangedEvent(this, created.getId(),
+                    FoodCatalogChangedEvent.ChangeType.CREATED));
+        });
+        AtomicInteger calls = new AtomicInteger();
+        when(vectorIndex.getSnapshot()).thenAnswer(call -> {
+            if (calls.getAndIncrement() > 0) {
+                return after;
+            }
+            admin.start();
+            while (admin.getState() != Thread.State.WAITING && admin.getState() != Thread.State.TERMINATED) {
+                Thread.sleep(1);
+            }
+            return before;
+        });
+
+        index.rebuild();
+        admin.join(10_000);
+
+        assertNotEquals(deleted.getId(), nearest(index, before, 0));
+        assertEquals(created.getId(), nearest(index, after, after.size() - 1));
+    }
+
+    private static long nearest(HnswFoodIndex index, FoodVectorIndex.Snapshot snapshot, int slot) {
+        double[] query = new double[FoodVectorIndex.DIMENSIONS];
+        snapshot.copyVector(slot, query, 0);
+        return index.search(query, 0, 1, 64, null).get(0).getFoodId();
+    }
+}
@@ -0,0 +1,55 @@
+package com.nutribattle.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recall and incremental maintenance of the HNSW engine
+ */
+class HnswGraphTest {
+
+    @Test
+    void recallAgainstExactEngineIsHigh() {
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(TestCatalog.syntheticFoods(20_000, 5));
+        HnswGraph graph = HnswRecallHarness.build(snapshot, 16, 200);
+
+        int[] queries = new Random(11).ints(300, 0, snapshot.size()).toArray();
+        TopKNeighbors[] exact = new TopKNeighbors[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            exact[i] = snapshot.nearest(queries[i], 10, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+        }
+
+        HnswRecallHarness.Result result = HnswRecallHarness.measure(snapshot, graph, queries, exact, 10, 64);
+        assertTrue(result.recall >= 0.95, "recall@10 was " + result.recall);
+    }
+
+    @Test
+    void deletedFoodsAreNeverReturnedAndUpdatesMoveTheVector() {
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(TestCatalog.shippedFoods());
+        HnswGraph graph = HnswRecallHarness.build(snapshot, 16, 200);
+
+        double[] query = new double[FoodVectorIndex.DIMENSIONS];
+        snapshot.copyVector(0, query, 0);
+        long firstId = snapshot.getFood(0).getId();
+
+        TopKNeighbors before = graph.search(query, 0, 1, 64, null);
+        assertEquals(firstId, graph.foodIdOf(before.slotAt(0)));
+
+        assertTrue(graph.delete(firstId));
+        TopKNeighbors afterDelete = graph.search(query, 0, 10, 64, null);
+        for (int i = 0; i < afterDelete.size(); i++) {
+            assertNotEquals(firstId, graph.foodIdOf(afterDelete.slotAt(i)));
+        }
+
+        // Re-insert the food with a far-away vector: it must be found there, not at the old place
+        double[] moved = new double[FoodVectorIndex.DIMENSIONS];
+        java.util.Arrays.fill(moved, 5.0);
+        graph.insert(firstId, moved, 0);
+        TopKNeighbors atNewPlace = graph.search(moved, 0, 1, 64, null);
+        assertEquals(firstId, graph.foodIdOf(atNewPlace.slotAt(0)));
+        assertEquals(snapshot.size(), graph.liveCount());
+    }
+}
@@ -0,0 +1,100 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Recall@k harness comparing the HNSW engine against the exact KD-tree engine.
+ * Not part of the test suite; run its main method to pick M / efSearch:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.nutribattle.service.HnswRecallHarness -Dexec.args="50000 10"
+ */
+public final class HnswRecallHarness {
+
+    private static final int[] M_VALUES = {8, 16, 32};
+    private static final int[] EF_SEARCH_VALUES = {10, 16, 32, 64, 128, 256};
+    private static final int QUERIES = 1_000;
+
+    public static void main(String[] args) {
+        int catalogSize = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<Food> foods = TestCatalog.syntheticFoods(catalogSize, 1);
+        FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(foods);
+        int[] queries = new Random(3).ints(QUERIES, 0, snapshot.size()).toArray();
+
+        long exactStart = System.nanoTime();
+        TopKNeighbors[] exact = new TopKNeighbors[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            exact[i] = snapshot.nearest(queries[i], k, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+        }
+        double exactMicros = (System.nanoTime() - exactStart) / 1_000.0 / queries.length;
+        System.out.printf("catalog=%d k=%d exact KD-tree: %.2f us/query%n", catalogSize, k, exactMicros);
+        System.out.printf("%4s %9s %10s %10s %10s%n", "M", "efSearch", "recall@k", "us/query", "build ms");
+
+        for (int m : M_VALUES) {
+            long buildStart = System.nanoTime();
+            HnswGraph graph = build(snapshot, m, 200);
+            long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+            for (int efSearch : EF_SEARCH_VALUES) {
+                Result result = measure(snapshot, graph, queries, exact, k, efSearch);
+                System.out.printf("%4d %9d %10.4f %10.2f %10d%n", m, efSearch, result.recall, result.micros, buildMillis);
+            }
+        }
+    }
+
+    static HnswGraph build(FoodVectorIndex.Snapshot snapshot, int m, int efConstruction) {
+        HnswGraph graph = new HnswGraph(FoodVectorIndex.DIMENSIONS, m, efConstruction, 42L);
+        double[] vector = new double[FoodVectorIndex.DIMENSIONS];
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            snapshot.copyVector(slot, vector, 0);
+            graph.insert(snapshot.getFood(slot).getId(), vector, 0);
+        }
+        return graph;
+    }
+
+    /**
+     * Average recall@k of the graph against exact results, and average latency
+     */
+    static Result measure(FoodVectorIndex.Snapshot snapshot, HnswGraph graph, int[] queries,
+                          TopKNeighbors[] exact, int k, int efSearch) {
+        double[] query = new double[FoodVectorIndex.DIMENSIONS];
+        long hits = 0;
+        long expected = 0;
+        long elapsed = 0;
+
+        for (int i = 0; i < queries.length; i++) {
+            long queryId = snapshot.getFood(queries[i]).getId();
+            snapshot.copyVector(queries[i], query, 0);
+
+            long start = System.nanoTime();
+            TopKNeighbors approximate = graph.search(query, 0, k, efSearch, id -> id != queryId);
+            elapsed += System.nanoTime() - start;
+
+            expected += exact[i].size();
+            for (int a = 0; a < approximate.size(); a++) {
+                int slot = snapshot.slotOf(graph.foodIdOf(approximate.slotAt(a)));
+                for (int e = 0; e < exact[i].size(); e++) {
+                    if (exact[i].slotAt(e) == slot) {
+                        hits++;
+                        break;
+                    }
+                }
+            }
+        }
+        return new Result((double) hits / Math.max(1, expected), elapsed / 1_000.0 / queries.length);
+    }
+
+    static final class Result {
+        final double recall;
+        final double micros;
+
+        Result(double recall, double micros) {
+            this.recall = recall;
+            this.micros = micros;
+        }
+    }
+}
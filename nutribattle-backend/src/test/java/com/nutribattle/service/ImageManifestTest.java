@@ -0,0 +1,83 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.repository.FoodRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The manifest follows the image folder, and homepage foods are balanced samples of
+ * foods whose image is in it
+ */
+class ImageManifestTest {
+
+    private static final String SHIPPED_IMAGES = "src/main/resources/static/images/foods";
+
+    @Test
+    void manifestFollowsTheFolder(@TempDir Path directory) throws IOException, InterruptedException {
+        Files.writeString(directory.resolve("momo.jpg"), "");
+        ImageManifest manifest = new ImageManifest(directory.toString());
+        manifest.onApplicationReady();
+        long version = manifest.getVersion();
+        assertTrue(manifest.contains("momo.jpg"));
+        assertFalse(manifest.contains("dal_bhat.jpg"));
+        assertFalse(manifest.contains(null));
+
+        manifest.refresh();
+        assertEquals(version, manifest.getVersion());
+
+        // Picked up by the watcher without an explicit refresh
+        Files.writeString(directory.resolve("dal_bhat.jpg"), "");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!manifest.contains("dal_bhat.jpg") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(manifest.contains("dal_bhat.jpg"));
+        assertTrue(manifest.getVersion() > version);
+        manifest.close();
+    }
+
+    @Test
+    void homepageSamplesBalancedFoodsWithImages() {
+        FoodRepository repository = mock(FoodRepository.class);
+        when(repository.findAll()).thenReturn(TestCatalog.shippedFoods());
+        FoodCatalog catalog = new FoodCatalog(repository, new NutriScoreCalculator(), new SimpleMeterRegistry());
+        ImageManifest manifest = new ImageManifest(SHIPPED_IMAGES);
+        FoodService service = new FoodService(catalog, manifest);
+
+        for (int limit : new int[] {0, 1, 30, 60}) {
+            List<Food> foods = service.getHomepageFoods(limit);
+            Set<Long> ids = new HashSet<>();
+            int traditional = 0;
+            for (Food food : foods) {
+                assertTrue(ids.add(food.getId()), "duplicate " + food.getId());
+                assertTrue(manifest.contains(catalog.getSnapshot().getImageFile(food.getId())));
+                traditional += "Traditional".equals(food.getType()) ? 1 : 0;
+            }
+            if (limit == 30) {
+                assertEquals(30, foods.size());
+                assertEquals(15, traditional);
+            } else if (limit == 60) {
+                // Every Traditional and Modern food with an image; the one Street food is left out
+                long available = TestCatalog.shippedFoods().stream()
+                        .filter(food -> !"Street".equals(food.getType()) && manifest.contains(food.getImageUrl()))
+                        .count();
+                assertEquals(available, foods.size());
+            } else {
+                assertEquals(limit, foods.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.nutribattle.service;
+
+import java.util.Random;
+
+/**
+ * Manual benchmark comparing the KD-tree search with a linear scan as the
+ * catalog grows. Not part of the test suite; run its main method from the IDE
+ * or with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *          -Dexec.mainClass=com.nutribattle.service.KdTreeBenchmark
+ */
+public final class KdTreeBenchmark {
+
+    private static final int[] CATALOG_SIZES = {600, 5_000, 50_000, 500_000};
+    private static final int QUERIES = 2_000;
+    private static final int K = 5;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %12s %12s %12s %12s%n",
+                "foods", "scan us/q", "mixed us/q", "type us/q", "category us/q");
+
+        for (int size : CATALOG_SIZES) {
+            FoodVectorIndex.Snapshot snapshot = FoodVectorIndex.Snapshot.of(TestCatalog.syntheticFoods(size, 1));
+            int[] queries = new Random(2).ints(QUERIES, 0, snapshot.size()).toArray();
+
+            // Warm up both code paths
+            for (int round = 0; round < 3; round++) {
+                run(snapshot, queries, Mode.SCAN);
+                run(snapshot, queries, Mode.MIXED);
+            }
+
+            System.out.printf("%10d %12.2f %12.2f %12.2f %12.2f%n", size,
+                    run(snapshot, queries, Mode.SCAN),
+                    run(snapshot, queries, Mode.MIXED),
+                    run(snapshot, queries, Mode.TYPE),
+                    run(snapshot, queries, Mode.CATEGORY));
+        }
+    }
+
+    private enum Mode { SCAN, MIXED, TYPE, CATEGORY }
+
+    private static double run(FoodVectorIndex.Snapshot snapshot, int[] queries, Mode mode) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int slot : queries) {
+            TopKNeighbors top;
+            switch (mode) {
+                case SCAN:
+                    top = snapshot.nearestByScan(slot, K, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+                    break;
+                case TYPE:
+                    top = snapshot.nearest(slot, K, FoodVectorIndex.ANY, snapshot.typeCodeOf(slot));
+                    break;
+                case CATEGORY:
+                    top = snapshot.nearest(slot, K, snapshot.categoryCodeOf(slot), FoodVectorIndex.ANY);
+                    break;
+                default:
+                    top = snapshot.nearest(slot, K, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+            }
+            checksum += top.slotAt(0);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == 42) {
+            System.out.print("");
+        }
+        return elapsed / 1_000.0 / queries.length;
+    }
+}
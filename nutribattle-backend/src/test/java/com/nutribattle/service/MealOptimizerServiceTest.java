@@ -0,0 +1,157 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.MealAlternative;
+import com.nutribattle.dto.MealOptimizationResult;
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Branch-and-bound must keep the solutions an exhaustive search over the same portions finds
+ */
+class MealOptimizerServiceTest {
+
+    private static final double CALORIE_TOLERANCE = 0.05;
+
+    @Test
+    void smallCatalogMatchesExhaustiveSearch() {
+        List<Food> catalog = TestCatalog.shippedFoods().subList(0, 12);
+        MealOptimizerService optimizer = optimizerOver(catalog);
+        User user = user();
+
+        MealOptimizationResult result = optimizer.optimize(user, "LUNCH", 2, 4, 5, null);
+
+        assertTrue(result.isComplete());
+        List<Combo> expected = exhaustive(catalog, result, 5);
+        assertEquals(expected.size(), result.getSolutions().size());
+        for (int i = 0; i < expected.size(); i++) {
+            MealOptimizationResult.Combination combination = result.getSolutions().get(i);
+            assertEquals(expected.get(i).foodIds, combination.getPortions().stream()
+                    .map(portion -> portion.getFood().getId()).collect(Collectors.toSet()));
+            assertEquals(expected.get(i).calories, combination.getCalories(), 0.1);
+        }
+    }
+
+    @Test
+    void solutionsHitTheCalorieWindowWithRealisticPortions() {
+        MealOptimizerService optimizer = optimizerOver(TestCatalog.shippedFoods());
+
+        MealOptimizationResult result = optimizer.optimize(user(), "DINNER", 2, 3, 5, null);
+
+        assertFalse(result.getSolutions().isEmpty());
+        double previous = -1;
+        for (MealOptimizationResult.Combination combination : result.getSolutions()) {
+            int foods = combination.getPortions().size();
+            assertTrue(foods >= 2 && foods <= 3);
+            assertTrue(combination.getCaloriesDifference() <= result.getTargetCalories() * CALORIE_TOLERANCE + 0.1);
+            for (MealAlternative.Portion portion : combination.getPortions()) {
+                double[] bounds = CalorieKnnService.portionBounds(portion.getFood());
+                assertTrue(portion.getGrams() >= bounds[0] && portion.getGrams() <= bounds[1]);
+            }
+            double objective = combination.getMacroDeviation()
+                    + combination.getCaloriesDifference() / result.getTargetCalories();
+            assertTrue(objective >= previous - 0.002);
+            previous = objective;
+        }
+    }
+
+    @Test
+    void invalidFoodCountsAreRejected() {
+        MealOptimizerService optimizer = optimizerOver(TestCatalog.shippedFoods());
+
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize(user(), "LUNCH", 1, 3, 5, null));
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize(user(), "LUNCH", 2, 5, 5, null));
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize(user(), "LUNCH", 3, 2, 5, null));
+    }
+
+    /**
+     * Every 2-4 food combination at every portion level, best per food set
+     */
+    private static List<Combo> exhaustive(List<Food> foods, MealOptimizationResult result, int k) {
+        double target = result.getTargetCalories();
+        double[] macroTargets = MealOptimizerService.macroSplit(user());
+        for (int m = 0; m < 3; m++) {
+            macroTargets[m] = target * macroTargets[m] / (m == 2 ? 9 : 4);
+        }
+        List<Combo> best = new ArrayList<>();
+        search(foods, 0, new ArrayList<>(), 0, new double[3], target, macroTargets, best);
+        best.sort(Comparator.comparingDouble(combo -> combo.objective));
+        return best.subList(0, Math.min(k, best.size()));
+    }
+
+    private static void search(List<Food> foods, int next, List<Food> chosen, double calories, double[] macros,
+                               double target, double[] macroTargets, List<Combo> best) {
+        if (chosen.size() >= 2 && Math.abs(calories - target) <= target * CALORIE_TOLERANCE) {
+            double objective = MealOptimizerService.objective(calories, macros, target, macroTargets);
+            Set<Long> ids = chosen.stream().map(Food::getId).collect(Collectors.toSet());
+            Combo existing = best.stream().filter(combo -> combo.foodIds.equals(ids)).findFirst().orElse(null);
+            if (existing == null) {
+                best.add(new Combo(ids, calories, objective));
+            } else if (objective < existing.objective) {
+                best.set(best.indexOf(existing), new Combo(ids, calories, objective));
+            }
+        }
+        if (chosen.size() == 4) {
+            return;
+        }
+        for (int i = next; i < foods.size(); i++) {
+            Food food = foods.get(i);
+            for (double grams : MealOptimizerService.portionLevels(food)) {
+                double[] added = {
+                        macros[0] + grams * (food.getProtein() / 100),
+                        macros[1] + grams * (food.getCarbs() / 100),
+                        macros[2] + grams * (food.getFat() / 100)};
+                chosen.add(food);
+                search(foods, i + 1, chosen, calories + grams * (food.getCalories() / 100), added,
+                        target, macroTargets, best);
+                chosen.remove(chosen.size() - 1);
+            }
+        }
+    }
+
+    private static MealOptimizerService optimizerOver(List<Food> foods) {
+        FoodService foodService = mock(FoodService.class);
+        when(foodService.getAllFoods()).thenReturn(foods);
+        FoodVectorIndex index = new FoodVectorIndex(foodService);
+        MealOptimizerService optimizer = new MealOptimizerService(new CalorieKnnService(index), index);
+        // No time pressure in tests: the search must run to completion
+        ReflectionTestUtils.setField(optimizer, "maxTimeBudgetMs", 60_000L);
+        return optimizer;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setNutritionGoal(User.NutritionGoal.MAINTAIN);
+        user.setAgeGroup(User.AgeGroup.MIDDLE_AGE);
+        user.setDailyProteinGoal(115.0);
+        user.setDailyCarbGoal(287.5);
+        user.setDailyFatGoal(76.7);
+        return user;
+    }
+
+    private static final class Combo {
+        private final Set<Long> foodIds;
+        private final double calories;
+        private final double objective;
+
+        Combo(Set<Long> foodIds, double calories, double objective) {
+            this.foodIds = foodIds;
+            this.calories = calories;
+            this.objective = objective;
+        }
+    }
+}
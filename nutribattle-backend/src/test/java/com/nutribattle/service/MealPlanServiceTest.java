@@ -0,0 +1,93 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.CalorieKnnRecommendation;
+import com.nutribattle.dto.MealPlan;
+import com.nutribattle.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plans are filled from one ranking per meal type without breaking the repeat limits
+ */
+class MealPlanServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CalorieKnnService calorieKnnService = calorieService();
+    private final MealPlanService service = new MealPlanService(calorieKnnService, meterRegistry);
+
+    @Test
+    void weekPlanRespectsRepeatLimits() {
+        User user = user();
+        LocalDate start = LocalDate.of(2024, 1, 15);
+
+        MealPlan plan = service.generatePlan(user, start, 7, 2);
+
+        assertEquals(7, plan.getPlan().size());
+        Map<Long, Integer> uses = new HashMap<>();
+        for (int day = 0; day < 7; day++) {
+            MealPlan.DayPlan dayPlan = plan.getPlan().get(day);
+            assertEquals(start.plusDays(day), dayPlan.getDate());
+            assertEquals(4, dayPlan.getMeals().size());
+            Set<Long> today = new HashSet<>();
+            for (MealPlan.PlannedMeal meal : dayPlan.getMeals()) {
+                assertNotNull(meal.getMatch(), meal.getMealType());
+                Long foodId = meal.getMatch().getFood().getId();
+                assertTrue(today.add(foodId), "repeated on one day");
+                uses.merge(foodId, 1, Integer::sum);
+            }
+        }
+        uses.values().forEach(count -> assertTrue(count <= 2));
+
+        // The first day gets each meal type's best match when nothing blocks it
+        CalorieKnnRecommendation.FoodMatch best =
+                calorieKnnService.getCalorieBasedRecommendations(user, "BREAKFAST").getRecommendedFoods().get(0);
+        assertEquals(best.getFood().getId(), plan.getPlan().get(0).getMeals().get(0).getMatch().getFood().getId());
+
+        assertEquals(1, meterRegistry.get("nutribattle.plan.generate").timer().count());
+        assertEquals(1, meterRegistry.get("nutribattle.plan.slot").tag("mealType", "LUNCH").timer().count());
+    }
+
+    @Test
+    void singleUseLimitStillFillsEveryMeal() {
+        MealPlan plan = service.generatePlan(user(), LocalDate.of(2024, 1, 15), 7, 1);
+
+        Set<Long> seen = new HashSet<>();
+        plan.getPlan().forEach(day -> day.getMeals().forEach(meal ->
+                assertTrue(seen.add(meal.getMatch().getFood().getId()))));
+        assertEquals(28, seen.size());
+    }
+
+    @Test
+    void invalidPlanLengthIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.generatePlan(user(), LocalDate.of(2024, 1, 15), 8, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.generatePlan(user(), LocalDate.of(2024, 1, 15), 3, 0));
+    }
+
+    private static CalorieKnnService calorieService() {
+        FoodService foodService = mock(FoodService.class);
+        when(foodService.getAllFoods()).thenReturn(TestCatalog.shippedFoods());
+        return new CalorieKnnService(new FoodVectorIndex(foodService));
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setNutritionGoal(User.NutritionGoal.WEIGHT_LOSS);
+        user.setAgeGroup(User.AgeGroup.MIDDLE_AGE);
+        return user;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.MealAlternative;
+import com.nutribattle.dto.MealItem;
+import com.nutribattle.dto.MealRecommendationResult;
+import com.nutribattle.repository.FoodIntakeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Meal alternatives are searched from the gram-weighted centroid of the meal
+ */
+class MealRecommendationServiceTest {
+
+    private final FoodVectorIndex index = indexOver(TestCatalog.shippedFoods());
+    private final MealRecommendationService service =
+            new MealRecommendationService(index, mock(FoodIntakeRepository.class));
+
+    @Test
+    void singleFoodMealMatchesFoodNeighbours() {
+        FoodVectorIndex.Snapshot snapshot = index.getSnapshot();
+        int slot = snapshot.slotOf(42L);
+
+        MealRecommendationResult result = service.getMealAlternatives(List.of(new MealItem(42L, 250.0)), 5, false);
+
+        TopKNeighbors expected = snapshot.nearest(slot, 5, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+        assertEquals(5, result.getAlternatives().size());
+        for (int i = 0; i < 5; i++) {
+            MealAlternative alternative = result.getAlternatives().get(i);
+            assertEquals(1, alternative.getPortions().size());
+            assertEquals(snapshot.idOf(expected.slotAt(i)), alternative.getPortions().get(0).getFood().getId());
+            assertEquals(250.0, alternative.getPortions().get(0).getGrams());
+        }
+    }
+
+    @Test
+    void combinationsAreRankedWithSinglesAndKeepTheMealWeight() {
+        List<MealItem> meal = List.of(new MealItem(3L, 200.0), new MealItem(120L, 100.0), new MealItem(400L, 50.0));
+
+        MealRecommendationResult result = service.getMealAlternatives(meal, 10, true);
+
+        assertEquals(350.0, result.getTotalGrams());
+        assertEquals(10, result.getAlternatives().size());
+        // A mixed meal is matched better by mixing two foods than by any single food
+        assertEquals(2, result.getAlternatives().get(0).getPortions().size());
+        double previous = Double.POSITIVE_INFINITY;
+        for (MealAlternative alternative : result.getAlternatives()) {
+            assertTrue(alternative.getSimilarityScore() <= previous);
+            previous = alternative.getSimilarityScore();
+
+            double grams = alternative.getPortions().stream().mapToDouble(MealAlternative.Portion::getGrams).sum();
+            assertEquals(350.0, grams, 1.0);
+            alternative.getPortions().forEach(portion ->
+                    assertFalse(List.of(3L, 120L, 400L).contains(portion.getFood().getId())));
+        }
+    }
+
+    private static FoodVectorIndex indexOver(List<com.nutribattle.entity.Food> foods) {
+        FoodService foodService = mock(FoodService.class);
+        when(foodService.getAllFoods()).thenReturn(foods);
+        return new FoodVectorIndex(foodService);
+    }
+}
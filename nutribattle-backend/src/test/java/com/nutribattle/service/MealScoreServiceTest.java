@@ -0,0 +1,198 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.MealNutritionTotals;
+import com.nutribattle.entity.User;
+import com.nutribattle.repository.FoodIntakeRepository;
+import com.nutribattle.repository.MealNutritionTotalsRepository;
+import com.nutribattle.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Meal totals adjusted intake by intake must score like the meal rescanned from scratch
+ */
+class MealScoreServiceTest {
+
+    private static final FoodIntake.MealType[] MEAL_TYPES = FoodIntake.MealType.values();
+
+    private final List<Food> catalog = TestCatalog.shippedFoods();
+    private final NutriScoreCalculator calculator = new NutriScoreCalculator();
+    private final Map<List<Object>, MealNutritionTotals> rows = new HashMap<>();
+    private final List<FoodIntake> logged = new ArrayList<>(); // The intake table
+    private final MealScoreService service = new MealScoreService(fakeRepository(), fakeIntakeRepository(),
+            calculator, mock(UserRepository.class));
+    private final User user = new User();
+
+    @Test
+    void incrementalTotalsMatchRescan() {
+        Random random = new Random(23);
+        LocalDate start = LocalDate.of(2024, 3, 1);
+        List<FoodIntake> intakes = new ArrayList<>();
+
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || intakes.isEmpty()) {
+                FoodIntake intake = intake(catalog.get(random.nextInt(catalog.size())), 20.0 + random.nextInt(400),
+                        start.plusDays(random.nextInt(3)), MEAL_TYPES[random.nextInt(MEAL_TYPES.length)]);
+                intakes.add(intake);
+                logged.add(intake);
+                service.recordIntake(intake);
+            } else if (action < 8) {
+                FoodIntake intake = intakes.remove(random.nextInt(intakes.size()));
+                logged.remove(intake);
+                service.removeIntake(intake);
+            } else {
+                // Edit the quantity, and sometimes move the intake to another meal
+                FoodIntake intake = intakes.get(random.nextInt(intakes.size()));
+                MealScoreService.Contribution before = service.contributionOf(intake);
+                intake.setQuantity(20.0 + random.nextInt(400));
+                if (random.nextBoolean()) {
+                    intake.setMealType(MEAL_TYPES[random.nextInt(MEAL_TYPES.length)]);
+                }
+                intake.calculateNutrition();
+                service.replaceIntake(before, intake);
+            }
+        }
+
+        for (int day = 0; day < 3; day++) {
+            LocalDate date = start.plusDays(day);
+            List<FoodIntake> dayIntakes = intakes.stream()
+                    .filter(intake -> intake.getIntakeDate().equals(date))
+                    .collect(Collectors.toList());
+            Map<FoodIntake.MealType, MealNutritionTotals> totals = service.getMealTotals(user, date, List.of());
+            for (FoodIntake.MealType mealType : MEAL_TYPES) {
+                List<FoodIntake> meal = dayIntakes.stream()
+                        .filter(intake -> intake.getMealType() == mealType)
+                        .collect(Collectors.toList());
+                assertEquals(meal.size(), totals.containsKey(mealType) ? totals.get(mealType).getIntakeCount() : 0);
+                if (!meal.isEmpty()) {
+                    assertEquals(rescan(meal), service.score(List.of(totals.get(mealType))), date + " " + mealType);
+                }
+            }
+            assertEquals(dayIntakes.isEmpty() ? null : rescan(dayIntakes), service.score(totals.values()));
+        }
+    }
+
+    @Test
+    void singleFoodMealScoresLikeTheFood() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        for (Food food : catalog) {
+            FoodIntake intake = intake(food, 150.0, date, FoodIntake.MealType.LUNCH);
+            logged.add(intake);
+            service.recordIntake(intake);
+            assertEquals(calculator.calculateScore(food),
+                    service.score(service.getMealTotals(user, date, List.of()).values()), food.getName());
+            logged.remove(intake);
+            service.removeIntake(intake);
+        }
+        assertNull(service.score(service.getMealTotals(user, date, List.of()).values()));
+    }
+
+    @Test
+    void mealsLoggedBeforeTotalsAreBuiltFromTheirIntakes() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        List<FoodIntake> lunch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            lunch.add(intake(catalog.get(i * 17), 100.0 + i * 40, date, FoodIntake.MealType.LUNCH));
+        }
+        logged.addAll(lunch);
+
+        // Read before any write: summed from the day's intakes, nothing saved
+        assertEquals(rescan(lunch), service.score(service.getMealTotals(user, date, lunch).values()));
+        assertEquals(0, rows.size());
+
+        // The next write builds the row from the table rather than counting just the new intake
+        FoodIntake added = intake(catalog.get(60), 80.0, date, FoodIntake.MealType.LUNCH);
+        logged.add(added);
+        lunch.add(added);
+        service.recordIntake(added);
+        MealNutritionTotals totals = service.getMealTotals(user, date, List.of()).get(FoodIntake.MealType.LUNCH);
+        assertEquals(4, totals.getIntakeCount());
+        assertEquals(rescan(lunch), service.score(List.of(totals)));
+    }
+
+    /**
+     * Score of the intakes summed from scratch, per 100g
+     */
+    private Integer rescan(List<FoodIntake> intakes) {
+        double grams = 0, calories = 0, sugar = 0, saturatedFat = 0, sodium = 0, fiber = 0, protein = 0, fruitVeg = 0;
+        for (FoodIntake intake : intakes) {
+            Food food = intake.getFood();
+            double factor = intake.getQuantity() / 100.0;
+            grams += intake.getQuantity();
+            calories += food.getCalories() * factor;
+            sugar += food.getSugar() * factor;
+            saturatedFat += food.getSaturatedFat() * factor;
+            sodium += food.getSodium() * factor;
+            fiber += food.getFiber() * factor;
+            protein += food.getProtein() * factor;
+            fruitVeg += intake.getQuantity() * calculator.estimateFruitVegPoints(food);
+        }
+        double per100g = 100.0 / grams;
+        int[] score = new int[1];
+        calculator.calculateScores(1, new double[] {calories * per100g}, new double[] {sugar * per100g},
+                new double[] {saturatedFat * per100g}, new double[] {sodium * per100g},
+                new double[] {fiber * per100g}, new double[] {protein * per100g},
+                new int[] {(int) Math.floor(fruitVeg / grams + 1e-9)}, score);
+        return score[0];
+    }
+
+    private FoodIntake intake(Food food, double quantity, LocalDate date, FoodIntake.MealType mealType) {
+        FoodIntake intake = new FoodIntake();
+        intake.setUser(user);
+        intake.setFood(food);
+        intake.setQuantity(quantity);
+        intake.setIntakeDate(date);
+        intake.setMealType(mealType);
+        intake.calculateNutrition();
+        return intake;
+    }
+
+    /**
+     * Intake repository answering from the logged list
+     */
+    private FoodIntakeRepository fakeIntakeRepository() {
+        FoodIntakeRepository repository = mock(FoodIntakeRepository.class);
+        when(repository.findByUserAndIntakeDateAndMealType(any(), any(), any())).thenAnswer(call -> logged.stream()
+                .filter(intake -> intake.getIntakeDate().equals(call.getArgument(1))
+                        && intake.getMealType() == call.getArgument(2))
+                .collect(Collectors.toList()));
+        return repository;
+    }
+
+    /**
+     * Totals repository backed by a map keyed like the table's unique constraint
+     */
+    private MealNutritionTotalsRepository fakeRepository() {
+        MealNutritionTotalsRepository repository = mock(MealNutritionTotalsRepository.class);
+        when(repository.findForUpdate(any(), any(), any())).thenAnswer(call ->
+                Optional.ofNullable(rows.get(List.of(call.getArgument(1), call.getArgument(2)))));
+        when(repository.findByUserAndIntakeDate(any(), any())).thenAnswer(call -> rows.values().stream()
+                .filter(totals -> totals.getIntakeDate().equals(call.getArgument(1)))
+                .collect(Collectors.toList()));
+        when(repository.save(any())).thenAnswer(call -> {
+            MealNutritionTotals totals = call.getArgument(0);
+            if (totals.getId() == null) {
+                totals.setId((long) rows.size() + 1);
+            }
+            rows.put(List.of(totals.getIntakeDate(), totals.getMealType()), totals);
+            return totals;
+        });
+        doAnswer(call -> {
+            MealNutritionTotals totals = call.getArgument(0);
+            rows.remove(List.of(totals.getIntakeDate(), totals.getMealType()));
+            return null;
+        }).when(repository).delete(any());
+        return repository;
+    }
+}
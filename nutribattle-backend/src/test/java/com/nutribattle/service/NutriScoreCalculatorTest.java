@@ -0,0 +1,167 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FruitVegKeyword;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The columnar batch scorer must agree with the per-food ladders on every food,
+ * and the keyword automaton with the substring rules it replaced
+ */
+class NutriScoreCalculatorTest {
+
+    private final NutriScoreCalculator calculator = new NutriScoreCalculator();
+
+    @Test
+    void batchMatchesPerFoodOnShippedCatalog() {
+        assertBatchMatches(TestCatalog.shippedFoods());
+    }
+
+    @Test
+    void batchMatchesPerFoodOnRandomAndBoundaryValues() {
+        List<Food> shipped = TestCatalog.shippedFoods();
+        Random random = new Random(17);
+        // Band bounds and their neighbours, where <= versus < matters
+        double[] edges = {0, 0.9, 1, 1.6, 1.9, 2, 2.8, 3.2, 3.7, 4.5, 4.7, 4.8, 6.4, 8, 9, 10, 13.5, 18,
+                22.5, 27, 31, 36, 40, 45, 90, 180, 450, 900, 335 / 4.184, 3350 / 4.184};
+
+        List<Food> foods = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Food template = shipped.get(random.nextInt(shipped.size()));
+            Food food = new Food(template.getName(), template.getCategory(), template.getType(),
+                    value(random, edges, 900), value(random, edges, 40), value(random, edges, 60),
+                    value(random, edges, 20), value(random, edges, 90), value(random, edges, 60),
+                    value(random, edges, 15), value(random, edges, 1500),
+                    null, null, null, null, null, null);
+            foods.add(food);
+        }
+        assertBatchMatches(foods);
+    }
+
+    @Test
+    void applyReportsOnlyChangedFoods() {
+        List<Food> foods = TestCatalog.shippedFoods();
+        assertEquals(foods.size(), calculator.applyNutriScores(foods).size());
+        assertEquals(0, calculator.applyNutriScores(foods).size());
+
+        foods.get(5).setSugar(foods.get(5).getSugar() + 50);
+        assertEquals(List.of(foods.get(5)), calculator.applyNutriScores(foods));
+        assertEquals(calculator.calculateNutriScore(foods.get(5)), foods.get(5).getNutriScore());
+    }
+
+    @Test
+    void keywordAutomatonMatchesContainsRules() {
+        List<Food> foods = new ArrayList<>(TestCatalog.shippedFoods());
+        // Names and categories glued from keyword fragments, overlaps and near misses
+        String[] parts = {"fruit", "Vegetable", "nu", "nut", "seed", "almond", "cashew", "walnut", "pista",
+                "legume", "lentil", "dal", "da", "bean", "soup", "curry", "saag", "tarkari", "pickle",
+                "Momo", " ", "x", "veget", "able", "pist", "a"};
+        String[] types = {"Traditional", "Modern"};
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            Food food = new Food();
+            food.setId(100_000L + i);
+            food.setCategory(glue(random, parts));
+            food.setName(glue(random, parts));
+            food.setType(types[random.nextInt(2)]);
+            foods.add(food);
+        }
+
+        for (Food food : foods) {
+            assertEquals(containsRules(food), calculator.estimateFruitVegPoints(food),
+                    food.getCategory() + " / " + food.getName());
+        }
+    }
+
+    @Test
+    void overlappingKeywordsAreAllReported() {
+        KeywordAutomaton automaton = new KeywordAutomaton(Map.of("he", 1, "she", 2, "his", 4, "hers", 8));
+        assertEquals(1 | 2 | 8, automaton.match("uSHErs"));
+        assertEquals(4, automaton.match("this"));
+        assertEquals(0, automaton.match("hx s"));
+        assertEquals(0, automaton.match(null));
+    }
+
+    @Test
+    void addedKeywordsAndEditsDropCachedPoints() {
+        Food food = new Food();
+        food.setId(1L);
+        food.setCategory("Snack");
+        food.setName("Mango Lassi");
+        food.setType("Modern");
+        assertEquals(0, calculator.estimateFruitVegPoints(food));
+
+        calculator.setCustomKeywords(List.of(new FruitVegKeyword("mango",
+                FruitVegKeyword.Field.NAME, FruitVegKeyword.KeywordClass.FRUIT_VEGETABLE)));
+        assertEquals(5, calculator.estimateFruitVegPoints(food));
+
+        // Cached by id until the food is edited
+        food.setName("Lassi");
+        assertEquals(5, calculator.estimateFruitVegPoints(food));
+        calculator.invalidate(1L);
+        assertEquals(0, calculator.estimateFruitVegPoints(food));
+    }
+
+    /**
+     * The substring rules the automaton replaced
+     */
+    private static int containsRules(Food food) {
+        String category = food.getCategory().toLowerCase();
+        String name = food.getName().toLowerCase();
+        if (category.contains("fruit") || category.contains("vegetable")) {
+            return 5;
+        }
+        if (category.contains("nut") || category.contains("seed") || name.contains("almond")
+                || name.contains("cashew") || name.contains("walnut") || name.contains("pista")) {
+            return 5;
+        }
+        if (category.contains("legume") || category.contains("lentil") || name.contains("dal") || name.contains("bean")) {
+            return 3;
+        }
+        if ((category.contains("soup") || category.contains("curry"))
+                && (name.contains("vegetable") || name.contains("saag") || name.contains("tarkari"))) {
+            return 2;
+        }
+        if (category.contains("pickle") && food.getType().equals("Traditional")) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static String glue(Random random, String[] parts) {
+        StringBuilder text = new StringBuilder();
+        for (int n = random.nextInt(4); n >= 0; n--) {
+            text.append(parts[random.nextInt(parts.length)]);
+        }
+        return text.toString();
+    }
+
+    private void assertBatchMatches(List<Food> foods) {
+        int[] scores = calculator.calculateScores(foods);
+        for (int i = 0; i < foods.size(); i++) {
+            assertEquals(calculator.calculateScore(foods.get(i)), scores[i], foods.get(i).toString());
+        }
+    }
+
+    /**
+     * Half the time a band edge (exact, or one ulp either side), otherwise uniform
+     */
+    private static double value(Random random, double[] edges, double max) {
+        if (random.nextBoolean()) {
+            return random.nextDouble() * max;
+        }
+        double edge = edges[random.nextInt(edges.length)];
+        switch (random.nextInt(3)) {
+            case 0: return Math.nextDown(edge);
+            case 1: return Math.nextUp(edge);
+            default: return edge;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.nutribattle.service;
+
+import com.nutribattle.dto.PersonalRecommendationResult;
+import com.nutribattle.entity.Food;
+import com.nutribattle.entity.FoodIntake;
+import com.nutribattle.entity.User;
+import com.nutribattle.entity.UserTasteProfile;
+import com.nutribattle.repository.FoodIntakeRepository;
+import com.nutribattle.repository.UserRepository;
+import com.nutribattle.repository.UserTasteProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The incrementally decayed profile must equal the decayed average over the surviving history
+ */
+class TasteProfileServiceTest {
+
+    private static final double HALF_LIFE = 14;
+
+    private final List<Food> catalog = TestCatalog.shippedFoods();
+
+    @Test
+    void incrementalProfileMatchesDecayedAverage() {
+        Random random = new Random(11);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        UserTasteProfile profile = new UserTasteProfile(new User(), FoodIntake.MealType.LUNCH, start);
+        List<Object[]> history = new ArrayList<>();
+
+        for (int step = 0; step < 500; step++) {
+            if (history.isEmpty() || random.nextInt(4) > 0) {
+                // Dates arrive out of order, as when users back-fill their log
+                Object[] intake = {catalog.get(random.nextInt(catalog.size())),
+                        start.plusDays(random.nextInt(90)), 50.0 + random.nextInt(300)};
+                history.add(intake);
+                TasteProfileService.apply(profile, (Food) intake[0], (LocalDate) intake[1], (Double) intake[2], HALF_LIFE);
+            } else {
+                Object[] intake = history.remove(random.nextInt(history.size()));
+                TasteProfileService.apply(profile, (Food) intake[0], (LocalDate) intake[1], -(Double) intake[2], HALF_LIFE);
+            }
+        }
+
+        LocalDate reference = profile.getReferenceDate();
+        double weight = 0;
+        double calories = 0;
+        double sugar = 0;
+        for (Object[] intake : history) {
+            double w = (Double) intake[2]
+                    * Math.pow(0.5, ChronoUnit.DAYS.between((LocalDate) intake[1], reference) / HALF_LIFE);
+            weight += w;
+            calories += w * ((Food) intake[0]).getCalories();
+            sugar += w * ((Food) intake[0]).getSugar();
+        }
+        Food average = TasteProfileService.averageFood(profile);
+        assertEquals(calories / weight, average.getCalories(), 1e-6);
+        assertEquals(sugar / weight, average.getSugar(), 1e-6);
+    }
+
+    @Test
+    void recommendationIsOneQueryWithTheGoalOffset() {
+        UserTasteProfileRepository profiles = mock(UserTasteProfileRepository.class);
+        FoodService foodService = mock(FoodService.class);
+        when(foodService.getAllFoods()).thenReturn(catalog);
+        FoodVectorIndex index = new FoodVectorIndex(foodService);
+        TasteProfileService service = new TasteProfileService(profiles, mock(FoodIntakeRepository.class), index,
+                mock(UserRepository.class));
+
+        User user = new User();
+        user.setNutritionGoal(User.NutritionGoal.WEIGHT_LOSS);
+        UserTasteProfile profile = new UserTasteProfile(user, FoodIntake.MealType.DINNER, LocalDate.of(2024, 1, 1));
+        TasteProfileService.apply(profile, catalog.get(3), LocalDate.of(2024, 1, 1), 300, HALF_LIFE);
+        TasteProfileService.apply(profile, catalog.get(120), LocalDate.of(2024, 1, 5), 150, HALF_LIFE);
+        when(profiles.existsByUser(user)).thenReturn(true);
+        when(profiles.findByUserAndMealType(user, FoodIntake.MealType.DINNER)).thenReturn(Optional.of(profile));
+
+        PersonalRecommendationResult result = service.recommend(user, FoodIntake.MealType.DINNER, 5);
+
+        Food average = TasteProfileService.averageFood(profile);
+        double[] query = TasteProfileService.queryVector(average, User.NutritionGoal.WEIGHT_LOSS);
+        TopKNeighbors expected = index.getSnapshot().nearest(query, 0, -1, 5, FoodVectorIndex.ANY, FoodVectorIndex.ANY);
+        assertEquals(5, result.getRecommendations().size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(index.getSnapshot().idOf(expected.slotAt(i)),
+                    result.getRecommendations().get(i).getFood().getId());
+        }
+
+        // Weight loss pulls the query towards fewer calories than the profile itself
+        double[] plain = new double[FoodVectorIndex.DIMENSIONS];
+        FoodVectorIndex.writeVector(average, plain, 0);
+        assertTrue(query[0] < plain[0]);
+        assertEquals("WEIGHT_LOSS", result.getNutritionGoal());
+    }
+
+    @Test
+    void removalSubtractsWhatWasLoggedEvenAfterTheFoodChanges() {
+        Food food = copyOf(catalog.get(7));
+        FoodIntake intake = intakeOf(new User(), food, LocalDate.of(2024, 2, 1), 180);
+        UserTasteProfile profile = new UserTasteProfile(intake.getUser(), FoodIntake.MealType.LUNCH, intake.getIntakeDate());
+        TasteProfileService.apply(profile, catalog.get(3), LocalDate.of(2024, 1, 30), 120, HALF_LIFE);
+        double calories = TasteProfileService.averageFood(profile).getCalories();
+
+        TasteProfileService.apply(profile, TasteProfileService.nutrientsOf(intake), intake.getIntakeDate(), 180, HALF_LIFE);
+        food.setCalories(food.getCalories() * 3);
+        food.setSugar(food.getSugar() + 40);
+        TasteProfileService.apply(profile, TasteProfileService.nutrientsOf(intake), intake.getIntakeDate(), -180, HALF_LIFE);
+
+        assertEquals(calories, TasteProfileService.averageFood(profile).getCalories(), 1e-6);
+    }
+
+    @Test
+    void firstWriteBuildsProfilesFromTheExistingHistory() {
+        UserTasteProfileRepository profiles = mock(UserTasteProfileRepository.class);
+        FoodIntakeRepository intakes = mock(FoodIntakeRepository.class);
+        FoodVectorIndex index = new FoodVectorIndex(mock(FoodService.class));
+        TasteProfileService service = new TasteProfileService(profiles, intakes, index, mock(UserRepository.class));
+
+        User user = new User();
+        user.setId(1L);
+        FoodIntake older = intakeOf(user, catalog.get(3), LocalDate.of(2024, 1, 1), 200);
+        FoodIntake logged = intakeOf(user, catalog.get(9), LocalDate.of(2024, 1, 2), 150);
+        when(profiles.existsByUser(user)).thenReturn(false);
+        // The intake table already holds the new row when the profile is updated
+        when(intakes.findByUser(user)).thenReturn(List.of(older, logged));
+
+        service.recordIntake(logged);
+
+        verify(profiles).saveAll(any());
+        verify(profiles, never()).findForUpdate(any(), any());
+        verify(profiles, never()).save(any());
+    }
+
+    @Test
+    void firstRecommendationBuildsProfilesUnderTheUserLock() {
+        UserTasteProfileRepository profiles = mock(UserTasteProfileRepository.class);
+        FoodIntakeRepository intakes = mock(FoodIntakeRepository.class);
+        UserRepository users = mock(UserRepository.class);
+        TasteProfileService service = new TasteProfileService(profiles, intakes,
+                new FoodVectorIndex(mock(FoodService.class)), users);
+
+        User user = new User();
+        user.setId(2L);
+        when(profiles.existsByUser(user)).thenReturn(false);
+        when(intakes.findByUser(user)).thenReturn(List.of(intakeOf(user, catalog.get(5), LocalDate.of(2024, 1, 1), 120)));
+
+        service.recommend(user, FoodIntake.MealType.LUNCH, 3);
+
+        InOrder order = inOrder(users, profiles);
+        order.verify(users).findByIdForUpdate(2L);
+        order.verify(profiles).saveAll(any());
+    }
+
+    private static FoodIntake intakeOf(User user, Food food, LocalDate date, double grams) {
+        FoodIntake intake = new FoodIntake();
+        intake.setUser(user);
+        intake.setFood(food);
+        intake.setMealType(FoodIntake.MealType.LUNCH);
+        intake.setIntakeDate(date);
+        intake.setQuantity(grams);
+        intake.calculateNutrition();
+        return intake;
+    }
+
+    private static Food copyOf(Food food) {
+        Food copy = new Food();
+        copy.setId(food.getId());
+        copy.setName(food.getName());
+        copy.setCalories(food.getCalories());
+        copy.setProtein(food.getProtein());
+        copy.setFat(food.getFat());
+        copy.setSaturatedFat(food.getSaturatedFat());
+        copy.setCarbs(food.getCarbs());
+        copy.setSugar(food.getSugar());
+        copy.setFiber(food.getFiber());
+        copy.setSodium(food.getSodium());
+        return copy;
+    }
+}
@@ -0,0 +1,103 @@
+package com.nutribattle.service;
+
+import com.nutribattle.entity.Food;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Food fixtures for engine tests: the shipped CSV catalog and
+ * synthetic catalogs derived from it.
+ */
+final class TestCatalog {
+
+    private TestCatalog() {
+    }
+
+    /**
+     * Load data/nepali_foods.csv with ids assigned in file order
+     */
+    static List<Food> shippedFoods() {
+        List<Food> foods = new ArrayList<>();
+        ClassPathResource resource = new ClassPathResource("data/nepali_foods.csv");
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            reader.readLine(); // header
+            String line;
+            long id = 1;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+                for (int i = 0; i < parts.length; i++) {
+                    parts[i] = parts[i].trim().replaceAll("^\"|\"$", "");
+                }
+                Food food = new Food(parts[1], parts[2], parts[3],
+                        parse(parts[4]), parse(parts[5]), parse(parts[6]), parse(parts[7]),
+                        parse(parts[8]), parse(parts[9]), parse(parts[10]), parse(parts[11]),
+                        parse(parts[12]), parse(parts[13]), parse(parts[14]), parse(parts[15]),
+                        parts[16], parts.length > 17 ? parts[17] : "");
+                food.setId(id++);
+                foods.add(food);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return foods;
+    }
+
+    /**
+     * Synthetic catalog of the given size: shipped foods with multiplicative noise
+     * on every nutrient, keeping their type and category
+     */
+    static List<Food> syntheticFoods(int size, long seed) {
+        List<Food> base = shippedFoods();
+        Random random = new Random(seed);
+        List<Food> foods = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Food template = base.get(random.nextInt(base.size()));
+            Food food = new Food(template.getName() + " #" + i, template.getCategory(), template.getType(),
+                    jitter(template.getCalories(), random), jitter(template.getProtein(), random),
+                    jitter(template.getFat(), random), jitter(template.getSaturatedFat(), random),
+                    jitter(template.getCarbs(), random), jitter(template.getSugar(), random),
+                    jitter(template.getFiber(), random), jitter(template.getSodium(), random),
+                    jitter(template.getVitaminA(), random), jitter(template.getVitaminC(), random),
+                    jitter(template.getCalcium(), random), jitter(template.getIron(), random),
+                    null, "");
+            food.setId((long) i + 1);
+            foods.add(food);
+        }
+        return foods;
+    }
+
+    /**
+     * Set the Nutri-Score grade on every food, as FoodService does when loading the catalog
+     */
+    static List<Food> graded(List<Food> foods) {
+        NutriScoreCalculator calculator = new NutriScoreCalculator();
+        for (Food food : foods) {
+            food.setNutriScore(calculator.calculateNutriScore(food));
+        }
+        return foods;
+    }
+
+    private static Double jitter(Double value, Random random) {
+        if (value == null) {
+            return null;
+        }
+        return Math.max(0.0, value * (1.0 + random.nextGaussian() * 0.25) + random.nextGaussian());
+    }
+
+    private static Double parse(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.nutribattle.util;
+
+import com.nutribattle.entity.Food;
+import com.nutribattle.repository.FoodRepository;
+import com.nutribattle.service.NutriScoreCalculator;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * The startup backfill stores missing scores, corrects stale ones and leaves correct rows alone
+ */
+class NutriScoreBackfillTest {
+
+    private final NutriScoreCalculator calculator = new NutriScoreCalculator();
+    private final FoodRepository repository = mock(FoodRepository.class);
+    private final NutriScoreBackfill backfill = new NutriScoreBackfill(repository, calculator);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void savesOnlyMissingAndStaleScores() throws Exception {
+        Food missing = food(1L, "Dal", 120.0, 1.0, 0.3, 8.0, 200.0);
+        Food stale = food(2L, "Jalebi", 450.0, 40.0, 9.0, 0.5, 30.0);
+        stale.setNutriScore("A"); // Scored before the rules changed
+        stale.setNutriScoreValue(-5);
+        Food correct = food(3L, "Cucumber", 15.0, 1.5, 0.0, 0.7, 2.0);
+        calculator.applyNutriScore(correct);
+        when(repository.findAll()).thenReturn(List.of(missing, stale, correct));
+
+        backfill.run();
+
+        ArgumentCaptor<List<Food>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        assertEquals(List.of(missing, stale), saved.getValue());
+        for (Food food : List.of(missing, stale, correct)) {
+            assertEquals(calculator.calculateScore(food), food.getNutriScoreValue(), food.getName());
+            assertEquals(calculator.calculateNutriScore(food), food.getNutriScore(), food.getName());
+        }
+        assertNotEquals("A", stale.getNutriScore());
+    }
+
+    @Test
+    void upToDateCatalogIsNotWritten() throws Exception {
+        Food correct = food(3L, "Cucumber", 15.0, 1.5, 0.0, 0.7, 2.0);
+        calculator.applyNutriScore(correct);
+        when(repository.findAll()).thenReturn(List.of(correct));
+
+        backfill.run();
+
+        verify(repository, never()).saveAll(any());
+    }
+
+    private static Food food(Long id, String name, double calories, double sugar, double saturatedFat,
+                             double fiber, double sodium) {
+        Food food = new Food(name, "Test", "Traditional", calories, 3.0, saturatedFat * 2, saturatedFat,
+                20.0, sugar, fiber, sodium, 0.0, 0.0, 0.0, 0.0, null, "");
+        food.setId(id);
+        return food;
+    }
+}